@@ -0,0 +1,83 @@
+package Sudoku.Game.Solver.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks of keeping a game saved on every move: a move logged by {@link Autosave}, against
+ * a move followed by saving the whole game, and restoring an autosaved game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class AutosaveBenchmark {
+
+    private SudokuGrid grid;
+    private SudokuGrid saved;
+    private Path directory;
+    private Autosave autosave;
+    private File file;
+    private int move;
+
+    @Setup
+    public void setUp() throws IOException {
+        grid = Boards.gameInProgress(SudokuUtilities.SudokuLevel.MEDIUM);
+        saved = Boards.gameInProgress(SudokuUtilities.SudokuLevel.MEDIUM);
+        directory = Files.createTempDirectory("autosave");
+        autosave = Autosave.start(directory, grid);
+        file = File.createTempFile("benchmark", ".sudoku");
+    }
+
+    @Setup(Level.Iteration)
+    public void clearJournal() {
+        // Every move is kept for undo, so the journal would grow through the whole run
+        grid.getJournal().clear();
+        saved.getJournal().clear();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        autosave.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+        file.delete();
+    }
+
+    @Benchmark
+    public SudokuGrid moveWithAutosave() {
+        // The move and its undo are logged; the writer thread commits them every interval
+        int i = move++;
+        int cell = i % 81;
+        grid.setCellValue(cell / 9, cell % 9, 1 + (i / 81) % 9);
+        grid.undo();
+        return grid;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SudokuGrid moveAndSaveWholeGame() throws IOException {
+        int i = move++;
+        int cell = i % 81;
+        saved.setCellValue(cell / 9, cell % 9, 1 + (i / 81) % 9);
+        saved.undo();
+        FileHandler.serializeToFile(file, saved);
+        return saved;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SudokuGrid recover() throws IOException {
+        return Autosave.recover(directory);
+    }
+}
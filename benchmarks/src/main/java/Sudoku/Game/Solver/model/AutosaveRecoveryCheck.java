@@ -0,0 +1,195 @@
+package Sudoku.Game.Solver.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link Autosave#recover} restores what was on disk at a crash, with seeded
+ * puzzles and moves so that every run checks the same files.
+ *
+ * A crash is made by copying the autosave directory while autosave is running. The log is
+ * only written on {@link Autosave#flush()}, so every flush adds one frame and the expected
+ * game after each frame is known. The checks:
+ * <ul>
+ * <li>replay: the copy after the last flush is restored with every move, values and marks;</li>
+ * <li>torn frame: the last frame cut off at every length short of its end, or with a byte of
+ * its records changed, is not replayed, and the frames before it are;</li>
+ * <li>generation: a checkpoint of a new game next to the log of the game before it, as left by
+ * a crash between writing the two, is restored without any move of the old log.</li>
+ * </ul>
+ *
+ * Usage: AutosaveRecoveryCheck [--seed=N] [--frames=N]
+ */
+public class AutosaveRecoveryCheck {
+    // Long enough that the writer only writes when it is flushed
+    private static final long COMMIT_MILLIS = 3_600_000;
+    private static final int MOVES_PER_FRAME = 20;
+
+    private final Random random;
+    private final List<String> failures = new ArrayList<>();
+    private int checks;
+
+    AutosaveRecoveryCheck(long seed) {
+        random = new Random(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        long seed = 1;
+        int frames = 10;
+        for (String arg : args) {
+            if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--frames=")) {
+                frames = Integer.parseInt(arg.substring("--frames=".length()));
+            } else {
+                System.err.println("Usage: AutosaveRecoveryCheck [--seed=N] [--frames=N]");
+                System.exit(2);
+            }
+        }
+        AutosaveRecoveryCheck check = new AutosaveRecoveryCheck(seed);
+        Path directory = Files.createTempDirectory("autosave-check");
+        try {
+            check.run(directory, Math.max(1, frames));
+        } finally {
+            delete(directory);
+        }
+        if (!check.failures.isEmpty()) {
+            for (String failure : check.failures) {
+                System.err.println("FAILED: " + failure);
+            }
+            System.exit(1);
+        }
+        System.err.printf("ok: %d recoveries checked, seed %d%n", check.checks, seed);
+    }
+
+    void run(Path directory, int frames) throws IOException {
+        Path live = directory.resolve("live");
+        Path crash = directory.resolve("crash");
+        SudokuGrid grid = newGrid();
+        BoardSnapshot beforeLast = grid.snapshot();
+        try (Autosave autosave = Autosave.start(live, grid, COMMIT_MILLIS, Integer.MAX_VALUE)) {
+            long logSize = Files.size(live.resolve("moves.log"));
+            long lastFrameStart = logSize;
+            for (int frame = 0; frame < frames; frame++) {
+                beforeLast = grid.snapshot();
+                play(grid);
+                autosave.flush();
+                lastFrameStart = logSize;
+                logSize = Files.size(live.resolve("moves.log"));
+                copy(live, crash);
+                expect(crash, grid.snapshot(), "replay after " + (frame + 1) + " frames");
+            }
+
+            for (long cut = lastFrameStart + 1; cut < logSize; cut++) {
+                copy(live, crash);
+                truncate(crash.resolve("moves.log"), cut);
+                expect(crash, beforeLast, "last frame cut off after " + (cut - lastFrameStart) + " bytes");
+            }
+            for (long at = lastFrameStart + 8; at < logSize; at += 4) {
+                copy(live, crash);
+                flipByte(crash.resolve("moves.log"), at);
+                expect(crash, beforeLast, "record byte " + (at - lastFrameStart) + " of the last frame changed");
+            }
+            copy(live, crash);
+        }
+
+        // A new game over the crashed one writes a checkpoint of the next generation
+        Path staleLog = directory.resolve("stale.log");
+        Files.copy(crash.resolve("moves.log"), staleLog);
+        SudokuGrid next = newGrid();
+        try (Autosave autosave = Autosave.start(crash, next, COMMIT_MILLIS, Integer.MAX_VALUE)) {
+            Files.copy(staleLog, crash.resolve("moves.log"), StandardCopyOption.REPLACE_EXISTING);
+            expect(crash, next.snapshot(), "checkpoint of a new game next to the log of the old one");
+        }
+    }
+
+    private SudokuGrid newGrid() {
+        return new SudokuGrid(SudokuUtilities.newPuzzle(SudokuUtilities.SudokuLevel.MEDIUM,
+                new SudokuGenerator(new Random(random.nextLong()))));
+    }
+
+    /**
+     * Makes values and marks moves on random editable cells, some of them wrong.
+     */
+    private void play(SudokuGrid grid) {
+        int gridSize = grid.getSize().getGridSize();
+        for (int moves = 0; moves < MOVES_PER_FRAME; ) {
+            int row = random.nextInt(gridSize);
+            int col = random.nextInt(gridSize);
+            if (!grid.isTileEditable(row, col)) {
+                continue;
+            }
+            if (random.nextInt(3) == 0) {
+                grid.toggleMark(row, col, 1 + random.nextInt(gridSize));
+            } else {
+                grid.setCellValue(row, col, random.nextInt(gridSize + 1));
+            }
+            moves++;
+        }
+    }
+
+    /**
+     * Restores the game in a directory and compares every cell with the expected board.
+     */
+    private void expect(Path directory, BoardSnapshot expected, String when) throws IOException {
+        checks++;
+        SudokuGrid recovered = Autosave.recover(directory);
+        if (recovered == null) {
+            failures.add("nothing restored, " + when);
+            return;
+        }
+        BoardSnapshot actual = recovered.snapshot();
+        int gridSize = expected.getSize().getGridSize();
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                if (actual.getValue(row, col) != expected.getValue(row, col)
+                        || actual.getMarks(row, col) != expected.getMarks(row, col)
+                        || actual.getSolution(row, col) != expected.getSolution(row, col)
+                        || actual.isGiven(row, col) != expected.isGiven(row, col)) {
+                    failures.add("cell (" + row + ", " + col + ") differs, " + when);
+                    return;
+                }
+            }
+        }
+        if (actual.getFilledCount() != expected.getFilledCount() || actual.getWrongCount() != expected.getWrongCount()) {
+            failures.add("counts differ, " + when);
+        }
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        for (String name : new String[] {"checkpoint.sudoku", "moves.log"}) {
+            Files.copy(from.resolve(name), to.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), (int) size));
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[(int) position] ^= 0x5A;
+        Files.write(file, bytes);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package Sudoku.Game.Solver.model;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the model benchmarks with the GC profiler, so every result also reports the
+ * allocation rate. Any JMH command-line options can be given, for example a benchmark
+ * name pattern or -f 1 -wi 3 -i 5 for a quicker run.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine).addProfiler(GCProfiler.class);
+        // An empty pattern would match every benchmark, so only the default one is added
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include("Sudoku\\.Game\\.Solver\\..*");
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,40 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * Representative boards for the benchmarks: freshly generated puzzles with half of the
+ * empty cells filled in correctly, as in a game in progress.
+ */
+final class Boards {
+
+    private Boards() {
+    }
+
+    static SudokuGrid gameInProgress(SudokuUtilities.SudokuLevel level) {
+        SudokuGrid grid = new SudokuGrid(level);
+        boolean fill = false;
+        for (int row = 0; row < SudokuUtilities.GRID_SIZE; row++) {
+            for (int col = 0; col < SudokuUtilities.GRID_SIZE; col++) {
+                if (grid.isTileEditable(row, col)) {
+                    if (fill) {
+                        grid.setCellValue(row, col, grid.getSolutionValue(row, col));
+                    }
+                    fill = !fill;
+                }
+            }
+        }
+        return grid;
+    }
+
+    static String representation(SudokuGrid grid) {
+        StringBuilder givens = new StringBuilder();
+        StringBuilder solution = new StringBuilder();
+        for (int row = 0; row < SudokuUtilities.GRID_SIZE; row++) {
+            for (int col = 0; col < SudokuUtilities.GRID_SIZE; col++) {
+                int correct = grid.getSolutionValue(row, col);
+                givens.append(grid.isTileEditable(row, col) ? 0 : correct);
+                solution.append(correct);
+            }
+        }
+        return givens.append(solution).toString();
+    }
+}
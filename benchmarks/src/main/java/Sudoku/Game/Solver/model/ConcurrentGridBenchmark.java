@@ -0,0 +1,74 @@
+package Sudoku.Game.Solver.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of one grid shared by several threads: players making moves, on cells of their
+ * own rows or on any cell, while a spectator takes snapshots.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Group)
+public class ConcurrentGridBenchmark {
+
+    private SudokuGrid grid;
+
+    @State(Scope.Thread)
+    public static class Player {
+        int index;
+        int move;
+
+        @Setup
+        public void setUp(ThreadParams params) {
+            index = params.getThreadIndex();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        grid = Boards.gameInProgress(SudokuUtilities.SudokuLevel.MEDIUM);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearJournal() {
+        // Every move is kept for undo, so the journal would grow through the whole run
+        grid.getJournal().clear();
+    }
+
+    @Benchmark
+    @Group("ownRows")
+    @GroupThreads(2)
+    public SudokuGrid moveInOwnRows(Player player) {
+        // The two players keep to cells that share no row, column or box
+        int i = player.move++;
+        int row = player.index * 4;
+        int col = player.index * 4 + i % 3;
+        grid.setCellValue(row, col, 1 + (i / 3) % 9);
+        grid.setCellValue(row, col, 0);
+        return grid;
+    }
+
+    @Benchmark
+    @Group("anyCell")
+    @GroupThreads(2)
+    public SudokuGrid moveAnywhere(Player player) {
+        int i = player.move++;
+        int cell = (i * 7 + player.index * 40) % 81;
+        grid.setCellValue(cell / 9, cell % 9, 1 + (i / 81) % 9);
+        grid.setCellValue(cell / 9, cell % 9, 0);
+        return grid;
+    }
+
+    @Benchmark
+    @Group("anyCell")
+    @GroupThreads(1)
+    public BoardSnapshot snapshotWhileMoving() {
+        return grid.snapshot();
+    }
+}
@@ -0,0 +1,41 @@
+package Sudoku.Game.Solver.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of rating generated classic puzzles, as done for every puzzle put in a bank.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DifficultyRaterBenchmark {
+    private static final int PUZZLES = 256;
+
+    @Param({"EASY", "HARD"})
+    public SudokuUtilities.SudokuLevel level;
+
+    private DifficultyRater rater;
+    private int[][] puzzles;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rater = new DifficultyRater();
+        SudokuGenerator generator = new SudokuGenerator(new Random(42));
+        puzzles = new int[PUZZLES][81];
+        for (int[] puzzle : puzzles) {
+            generator.generate(level, puzzle, new int[81]);
+        }
+    }
+
+    @Benchmark
+    public int rate() {
+        return rater.rate(puzzles[next++ % PUZZLES]);
+    }
+}
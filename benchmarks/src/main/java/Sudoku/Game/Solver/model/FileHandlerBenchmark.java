@@ -0,0 +1,51 @@
+package Sudoku.Game.Solver.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of saving and loading games, both in memory and through a file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FileHandlerBenchmark {
+
+    private SudokuGrid grid;
+    private ByteBuffer buffer;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        grid = Boards.gameInProgress(SudokuUtilities.SudokuLevel.MEDIUM);
+        buffer = ByteBuffer.allocate(FileHandler.RECORD_SIZE);
+        file = File.createTempFile("benchmark", ".sudoku");
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public SudokuGrid bufferRoundTrip() throws IOException {
+        buffer.clear();
+        FileHandler.write(grid, buffer);
+        buffer.flip();
+        return FileHandler.read(buffer);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SudokuGrid fileRoundTrip() throws IOException, ClassNotFoundException {
+        FileHandler.serializeToFile(file, grid);
+        return FileHandler.deSerializeFromFile(file);
+    }
+}
@@ -0,0 +1,254 @@
+package Sudoku.Game.Solver.model;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hammers one grid from many threads and checks that its state stays consistent.
+ *
+ * In the first round the players share every cell: they place values, toggle pencil marks,
+ * undo, redo and clear the board, while spectators take snapshots and hints and check each
+ * snapshot. A snapshot is consistent when the filled, wrong and conflict counts match a
+ * recount of its values and every unit mask matches the values of its unit. Every spectator
+ * also keeps an older snapshot and checks that it has not changed since it was taken, though
+ * it shares its words with the board the players change. When the players
+ * are done, every move is undone, which must bring back the board as it was, values and marks,
+ * so no move was lost from the journal or recorded out of step with the board.
+ *
+ * In the second round every player fills in its own share of the cells, taken across words so
+ * that neighbouring cells belong to different threads. The board must end up solved, so no
+ * change was lost when threads changed fields of the same word.
+ *
+ * Usage: GridStressTest [--threads=N] [--seconds=N]
+ */
+public class GridStressTest {
+    private final SudokuGrid grid;
+    private final AtomicReference<String> failure = new AtomicReference<>();
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong snapshots = new AtomicLong();
+
+    GridStressTest(SudokuGrid grid) {
+        this.grid = grid;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int seconds = 5;
+        for (String arg : args) {
+            if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            } else {
+                System.err.println("Usage: GridStressTest [--threads=N] [--seconds=N]");
+                System.exit(2);
+            }
+        }
+        GridStressTest test = new GridStressTest(Boards.gameInProgress(SudokuUtilities.SudokuLevel.HARD));
+        test.shareCells(threads, seconds * 1_000_000_000L);
+        test.fillOwnCells(threads);
+        String failure = test.failure.get();
+        if (failure != null) {
+            System.err.println("FAILED: " + failure);
+            System.exit(1);
+        }
+        System.err.printf("ok: %d moves and %d checked snapshots on %d threads%n",
+                test.moves.get(), test.snapshots.get(), threads);
+    }
+
+    /**
+     * Runs players and spectators on all cells, then undoes every move.
+     */
+    void shareCells(int threads, long nanos) throws InterruptedException {
+        BoardSnapshot before = grid.snapshot();
+        grid.getJournal().clear();
+        long deadline = System.nanoTime() + nanos;
+        int spectators = Math.max(1, threads / 4);
+        run(threads, index -> {
+            if (index < spectators) {
+                spectate(deadline);
+            } else {
+                play(deadline);
+            }
+        });
+        check(grid.snapshot(), "after the players");
+        while (grid.undo()) {
+            // Every move, whichever thread made it
+        }
+        BoardSnapshot after = grid.snapshot();
+        check(after, "after undoing everything");
+        int gridSize = after.getSize().getGridSize();
+        for (int cell = 0; cell < after.getSize().getCellCount(); cell++) {
+            int row = cell / gridSize;
+            int col = cell % gridSize;
+            if (after.getValue(row, col) != before.getValue(row, col) || after.getMarks(row, col) != before.getMarks(row, col)) {
+                fail("cell (" + row + ", " + col + ") is not back as it was after undoing everything");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Lets every thread fill in the cells whose index modulo the number of threads is its own.
+     */
+    void fillOwnCells(int threads) throws InterruptedException {
+        grid.clearBoard();
+        int gridSize = grid.getSize().getGridSize();
+        int cellCount = grid.getSize().getCellCount();
+        run(threads, index -> {
+            for (int cell = index; cell < cellCount; cell += threads) {
+                int row = cell / gridSize;
+                int col = cell % gridSize;
+                grid.toggleMark(row, col, grid.getSolutionValue(row, col));
+                grid.setCellValue(row, col, grid.getSolutionValue(row, col));
+                moves.addAndGet(2);
+            }
+        });
+        if (!grid.checkSolution() || grid.getConflictCount() != 0) {
+            fail("the board is not solved after every thread filled in its own cells: "
+                    + grid.getFilledCount() + " filled, " + grid.getWrongCount() + " wrong");
+        }
+        check(grid.snapshot(), "after filling in the cells");
+    }
+
+    private void play(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int gridSize = grid.getSize().getGridSize();
+        while (System.nanoTime() < deadline && failure.get() == null) {
+            int row = random.nextInt(gridSize);
+            int col = random.nextInt(gridSize);
+            int choice = random.nextInt(1000);
+            if (choice < 600) {
+                grid.setCellValue(row, col, random.nextInt(gridSize + 1));
+            } else if (choice < 900) {
+                grid.toggleMark(row, col, 1 + random.nextInt(gridSize));
+            } else if (choice < 970) {
+                grid.undo();
+            } else if (choice < 998) {
+                grid.redo();
+            } else {
+                grid.clearBoard();
+            }
+            moves.incrementAndGet();
+        }
+    }
+
+    private void spectate(long deadline) {
+        Hint hint = new Hint();
+        BoardSnapshot kept = grid.snapshot();
+        long keptSum = checksum(kept);
+        for (int i = 0; System.nanoTime() < deadline && failure.get() == null; i++) {
+            BoardSnapshot snapshot = grid.snapshot();
+            check(snapshot, "in a snapshot");
+            grid.getHint(hint);
+            if (checksum(kept) != keptSum) {
+                fail("a snapshot changed after it was taken");
+            }
+            if (i % 64 == 0) {
+                kept = snapshot;
+                keptSum = checksum(kept);
+            }
+            snapshots.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sums up every cell of a snapshot: its value, solution, given flag and marks.
+     */
+    private static long checksum(BoardSnapshot board) {
+        int gridSize = board.getSize().getGridSize();
+        long sum = 0;
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                long cell = board.getValue(row, col) | (long) board.getSolution(row, col) << 8
+                        | (board.isGiven(row, col) ? 1L << 16 : 0) | (long) board.getMarks(row, col) << 17;
+                sum = sum * 31 + cell;
+            }
+        }
+        return sum * 31 + board.getFilledCount();
+    }
+
+    /**
+     * Checks that the counts and unit masks of a board agree with its values.
+     */
+    void check(BoardSnapshot board, String when) {
+        SudokuSize size = board.getSize();
+        int gridSize = size.getGridSize();
+        int filled = 0;
+        int wrong = 0;
+        int conflicts = 0;
+        int[] unitValues = new int[size.getUnitCount()];
+        for (int unit = 0; unit < size.getUnitCount(); unit++) {
+            int[] counts = new int[gridSize + 1];
+            for (int i = unit * gridSize; i < (unit + 1) * gridSize; i++) {
+                int cell = size.unitCells[i];
+                int value = board.getValue(cell / gridSize, cell % gridSize);
+                if (value != 0) {
+                    counts[value]++;
+                    unitValues[unit] |= 1 << (value - 1);
+                }
+            }
+            for (int value = 1; value <= gridSize; value++) {
+                conflicts += Math.max(0, counts[value] - 1);
+            }
+        }
+        for (int cell = 0; cell < size.getCellCount(); cell++) {
+            int row = cell / gridSize;
+            int col = cell % gridSize;
+            int value = board.getValue(row, col);
+            if (value != 0) {
+                filled++;
+                if (value != board.getSolution(row, col)) {
+                    wrong++;
+                }
+            }
+            int used = unitValues[size.rowUnit[cell]] | unitValues[size.colUnit[cell]] | unitValues[size.boxUnit[cell]];
+            for (int v = 1; v <= gridSize; v++) {
+                if (board.isLegal(row, col, v) != ((used & 1 << (v - 1)) == 0)) {
+                    fail("the unit masks of cell (" + row + ", " + col + ") are wrong for " + v + " " + when);
+                    return;
+                }
+            }
+        }
+        if (filled != board.getFilledCount() || wrong != board.getWrongCount() || conflicts != board.getConflictCount()) {
+            fail("counts " + board.getFilledCount() + "/" + board.getWrongCount() + "/" + board.getConflictCount()
+                    + " instead of " + filled + "/" + wrong + "/" + conflicts + " " + when);
+        }
+    }
+
+    private void fail(String message) {
+        failure.compareAndSet(null, message);
+    }
+
+    private interface Task {
+        void run(int index);
+    }
+
+    /**
+     * Runs a task on a number of threads started at the same moment and waits for them.
+     */
+    private void run(int threads, Task task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            int index = i;
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(index);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException | Error e) {
+                    fail(Thread.currentThread().getName() + " threw " + e);
+                }
+            }, "stress-" + i);
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package Sudoku.Game.Solver.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of reading and writing a collection of puzzles, per puzzle: the streaming
+ * {@link PuzzleReader} and {@link PuzzleWriter} against a BufferedReader that makes a String
+ * of every line for {@link SudokuUtilities#convertStringToIntArray}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PuzzleFormatBenchmark {
+    private static final int PUZZLES = 10_000;
+
+    @Param({"LINE", "CSV"})
+    public PuzzleFormat format;
+
+    private int[][] givens;
+    private int[][] solutions;
+    private byte[] collection;
+    private byte[] lines;
+    private final int[] values = new int[81];
+
+    @Setup
+    public void setUp() throws IOException {
+        givens = new int[PUZZLES][81];
+        solutions = new int[PUZZLES][81];
+        SudokuGenerator generator = new SudokuGenerator();
+        for (int i = 0; i < PUZZLES; i++) {
+            generator.generate(SudokuUtilities.SudokuLevel.values()[i % 3], givens[i], solutions[i]);
+        }
+        collection = write(format);
+        lines = write(PuzzleFormat.LINE);
+    }
+
+    private byte[] write(PuzzleFormat puzzleFormat) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PuzzleWriter writer = new PuzzleWriter(Channels.newChannel(out), puzzleFormat, SudokuSize.CLASSIC, '0')) {
+            for (int i = 0; i < PUZZLES; i++) {
+                writer.write(givens[i], null, i % 90 / 10.0);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public long read() throws IOException {
+        long sum = 0;
+        try (PuzzleReader reader = new PuzzleReader(Channels.newChannel(new ByteArrayInputStream(collection)), format)) {
+            while (reader.next()) {
+                reader.copyGivens(values);
+                sum += values[80];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public long readLinesAsStrings() throws IOException {
+        // What reading a collection took before: a String per line, split into its fields
+        long sum = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(lines), StandardCharsets.US_ASCII), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                SudokuUtilities.convertStringToIntArray(line.substring(0, 81), values);
+                sum += values[80];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PUZZLES)
+    public long write() throws IOException {
+        try (PuzzleWriter writer = new PuzzleWriter(Channels.newChannel(OutputStream.nullOutputStream()), format)) {
+            for (int i = 0; i < PUZZLES; i++) {
+                writer.write(givens[i], solutions[i], i % 90 / 10.0);
+            }
+            return writer.getCount();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package Sudoku.Game.Solver.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the SudokuGrid operations the controller calls on every move.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SudokuGridBenchmark {
+
+    @Param({"EASY", "HARD"})
+    public SudokuUtilities.SudokuLevel level;
+
+    private SudokuGrid grid;
+    private SudokuGrid other;
+    private final Hint hint = new Hint();
+    private int move;
+
+    @Setup
+    public void setUp() {
+        grid = Boards.gameInProgress(level);
+        other = Boards.gameInProgress(level);
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        // Walk over every cell and value so the check cannot be hoisted out of the loop
+        int i = move++;
+        int cell = i % 81;
+        return grid.isValidMove(cell / 9, cell % 9, 1 + (i / 81) % 9);
+    }
+
+    @Benchmark
+    public boolean isBoardComplete() {
+        return grid.isBoardComplete();
+    }
+
+    @Benchmark
+    public boolean isCurrentStateCorrect() {
+        return grid.isCurrentStateCorrect();
+    }
+
+    @Benchmark
+    public boolean checkSolution() {
+        return grid.checkSolution();
+    }
+
+    @Benchmark
+    public Hint getHint() {
+        grid.getHint(hint);
+        return hint;
+    }
+
+    @Benchmark
+    public SudokuGrid moveAndUndo() {
+        // A move is recorded in the journal and undone, so the grid stays as it was
+        int i = move++;
+        int cell = i % 81;
+        grid.setCellValue(cell / 9, cell % 9, 1 + (i / 81) % 9);
+        grid.undo();
+        return grid;
+    }
+
+    @Benchmark
+    public BoardSnapshot moveAndSnapshot() {
+        // Every snapshot is taken after a move, so the next move copies the shared words
+        int i = move++;
+        int cell = i % 81;
+        grid.setCellValue(cell / 9, cell % 9, 1 + (i / 81) % 9);
+        grid.undo();
+        return grid.snapshot();
+    }
+
+    @Benchmark
+    public SudokuGrid copyState() {
+        grid.copyState(other);
+        return grid;
+    }
+}
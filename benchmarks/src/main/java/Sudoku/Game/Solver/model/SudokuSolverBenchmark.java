@@ -0,0 +1,53 @@
+package Sudoku.Game.Solver.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the solvers on generated classic puzzles: the uniqueness check done for
+ * every generated or loaded puzzle, and solving.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SudokuSolverBenchmark {
+    private static final int PUZZLES = 256;
+
+    @Param({"EASY", "HARD"})
+    public SudokuUtilities.SudokuLevel level;
+
+    @Param({"dlx", "engine"})
+    public String solverName;
+
+    private SudokuSolver solver;
+    private int[][] puzzles;
+    private int[] scratch;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        solver = "dlx".equals(solverName) ? new DancingLinksSolver() : new SudokuEngine();
+        SudokuGenerator generator = new SudokuGenerator(new Random(42));
+        puzzles = new int[PUZZLES][81];
+        for (int[] puzzle : puzzles) {
+            generator.generate(level, puzzle, new int[81]);
+        }
+        scratch = new int[81];
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        return solver.countSolutions(puzzles[next++ % PUZZLES], 2);
+    }
+
+    @Benchmark
+    public boolean solve() {
+        System.arraycopy(puzzles[next++ % PUZZLES], 0, scratch, 0, 81);
+        return solver.solve(scratch);
+    }
+}
@@ -0,0 +1,38 @@
+package Sudoku.Game.Solver.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of puzzle creation and parsing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SudokuUtilitiesBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD"})
+    public SudokuUtilities.SudokuLevel level;
+
+    private String representation;
+
+    @Setup
+    public void setUp() {
+        representation = Boards.representation(new SudokuGrid(level));
+    }
+
+    @Benchmark
+    public int[][][] generateSudokuMatrix() {
+        return SudokuUtilities.generateSudokuMatrix(level);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int[][][] convertStringToIntMatrix() {
+        return SudokuUtilities.convertStringToIntMatrix(representation);
+    }
+}
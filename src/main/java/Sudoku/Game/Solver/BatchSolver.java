@@ -0,0 +1,195 @@
+package Sudoku.Game.Solver;
+
+import Sudoku.Game.Solver.model.SudokuEngine;
+import Sudoku.Game.Solver.model.SudokuUtilities;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Headless command-line solver for files of puzzles, one puzzle of 81 characters
+ * ('0' for an empty cell) per line.
+ *
+ * For every input line one output line is written, in input order: the solution, or
+ * "unsolvable" or "invalid", followed by a tab and the solving time in nanoseconds.
+ * Lines are read in windows of a fixed size; a window is solved on all cores while the
+ * next one is read, so memory use depends on the window size and not on the file size.
+ *
+ * Usage: BatchSolver &lt;input file|-&gt; [output file] [--window=N] [--threads=N]
+ *
+ * The class needs no display and does not use JavaFX, so it can be run from the class
+ * path without the JavaFX modules.
+ */
+public class BatchSolver {
+    private static final int DEFAULT_WINDOW = 8192;
+    private static final int CELL_COUNT = SudokuUtilities.GRID_SIZE * SudokuUtilities.GRID_SIZE;
+    private static final String UNSOLVABLE = "unsolvable";
+    private static final String INVALID = "invalid";
+    private static final ThreadLocal<SudokuEngine> engines = ThreadLocal.withInitial(SudokuEngine::new);
+    private static final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[CELL_COUNT]);
+
+    private final ForkJoinPool pool;
+    private long solved;
+    private long unsolvable;
+    private long invalid;
+
+    /**
+     * A window of lines together with the results of solving them. The arrays are
+     * reused for every window.
+     */
+    private static class Window {
+        final String[] lines;
+        final char[][] solutions;
+        final String[] failures;
+        final long[] nanos;
+        int size;
+
+        Window(int capacity) {
+            lines = new String[capacity];
+            solutions = new char[capacity][CELL_COUNT];
+            failures = new String[capacity];
+            nanos = new long[capacity];
+        }
+    }
+
+    /**
+     * Creates a batch solver.
+     *
+     * @param threads The number of threads solving puzzles.
+     */
+    public BatchSolver(int threads) {
+        pool = new ForkJoinPool(threads);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String input = null;
+        String output = null;
+        int window = DEFAULT_WINDOW;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            if (arg.startsWith("--window=")) {
+                window = Integer.parseInt(arg.substring("--window=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (input == null) {
+                input = arg;
+            } else {
+                output = arg;
+            }
+        }
+        if (input == null) {
+            System.err.println("Usage: BatchSolver <input file|-> [output file] [--window=N] [--threads=N]");
+            System.exit(2);
+        }
+
+        BatchSolver solver = new BatchSolver(threads);
+        long start = System.nanoTime();
+        try (BufferedReader in = input.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII), 1 << 16)
+                : Files.newBufferedReader(Paths.get(input), StandardCharsets.US_ASCII);
+             Writer out = new BufferedWriter(output == null
+                     ? new OutputStreamWriter(System.out, StandardCharsets.US_ASCII)
+                     : Files.newBufferedWriter(Paths.get(output), StandardCharsets.US_ASCII), 1 << 16)) {
+            solver.solveAll(in, out, window);
+        } finally {
+            solver.pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = solver.solved + solver.unsolvable + solver.invalid;
+        System.err.printf("%d puzzles (%d solved, %d unsolvable, %d invalid) in %.2f s, %.0f puzzles/s%n",
+                total, solver.solved, solver.unsolvable, solver.invalid, seconds, total / seconds);
+    }
+
+    /**
+     * Solves every puzzle read from the input and writes the results in input order.
+     *
+     * @param in         The puzzles, one per line.
+     * @param out        Receives one result line per input line.
+     * @param windowSize The number of lines read and solved at a time.
+     * @throws IOException          If reading or writing fails.
+     * @throws InterruptedException If the thread is interrupted while waiting for a window.
+     */
+    public void solveAll(BufferedReader in, Writer out, int windowSize) throws IOException, InterruptedException {
+        Window current = new Window(windowSize);
+        Window next = new Window(windowSize);
+        read(in, current);
+        while (current.size > 0) {
+            Window solving = current;
+            Future<?> task = pool.submit(() -> IntStream.range(0, solving.size).parallel()
+                    .forEach(i -> solve(solving, i)));
+            read(in, next);
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                throw new IOException("Solving failed", e.getCause());
+            }
+            write(out, current);
+            Window swap = current;
+            current = next;
+            next = swap;
+        }
+    }
+
+    private static void read(BufferedReader in, Window window) throws IOException {
+        int size = 0;
+        String line;
+        while (size < window.lines.length && (line = in.readLine()) != null) {
+            window.lines[size++] = line;
+        }
+        window.size = size;
+    }
+
+    private static void solve(Window window, int i) {
+        String line = window.lines[i].trim();
+        int[] values = scratch.get();
+        long start = System.nanoTime();
+        try {
+            SudokuUtilities.convertStringToIntArray(line, values);
+        } catch (IllegalArgumentException e) {
+            window.failures[i] = INVALID;
+            window.nanos[i] = 0;
+            return;
+        }
+        SudokuEngine engine = engines.get();
+        engine.load(values);
+        boolean found = engine.solve();
+        window.nanos[i] = System.nanoTime() - start;
+        if (!found) {
+            window.failures[i] = UNSOLVABLE;
+            return;
+        }
+        window.failures[i] = null;
+        engine.copyTo(values);
+        char[] solution = window.solutions[i];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            solution[cell] = (char) ('0' + values[cell]);
+        }
+    }
+
+    private void write(Writer out, Window window) throws IOException {
+        for (int i = 0; i < window.size; i++) {
+            String failure = window.failures[i];
+            if (failure == null) {
+                out.write(window.solutions[i]);
+                solved++;
+            } else {
+                out.write(failure);
+                if (INVALID.equals(failure)) {
+                    invalid++;
+                } else {
+                    unsolvable++;
+                }
+            }
+            out.write('\t');
+            out.write(Long.toString(window.nanos[i]));
+            out.write('\n');
+            window.lines[i] = null;
+        }
+    }
+}
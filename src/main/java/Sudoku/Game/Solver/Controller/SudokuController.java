@@ -2,7 +2,14 @@ package Sudoku.Game.Solver.Controller;
 
 import javafx.stage.FileChooser;
 import Sudoku.Game.Solver.View.SudokuView;
+import Sudoku.Game.Solver.model.DancingLinksSolver;
+import Sudoku.Game.Solver.model.DifficultyRater;
+import Sudoku.Game.Solver.model.Hint;
+import Sudoku.Game.Solver.model.Puzzle;
+import Sudoku.Game.Solver.model.PuzzleFormat;
+import Sudoku.Game.Solver.model.PuzzleReader;
 import Sudoku.Game.Solver.model.SudokuGrid;
+import Sudoku.Game.Solver.model.SudokuSize;
 import Sudoku.Game.Solver.model.SudokuUtilities.SudokuLevel;
 import Sudoku.Game.Solver.model.FileHandler;
 
@@ -17,6 +24,8 @@ public class SudokuController {
     private int selectedNumber = 0;
     private int selectedRow = -1;
     private int selectedCol = -1;
+    private boolean pencilMode;
+    private final Hint hint = new Hint();
 
     public SudokuController(SudokuGrid model, SudokuView view) {
         this.model = model;
@@ -26,7 +35,6 @@ public class SudokuController {
     public void startNewGame(SudokuLevel level) {
         try {
             model.startNewGame(level);
-            vview.updateView();
         } catch (Exception e) {
             vview.showAlert("Fel vid start av nytt spel: " + e.getMessage());
         }
@@ -34,12 +42,23 @@ public class SudokuController {
     public void handlePlayAgain(SudokuLevel level) {
         try {
             model.startNewGame(level);
-            vview.updateView();
         } catch (Exception e) {
             vview.showAlert("Fel vid start av att spela igen spel: " + e.getMessage());
         }
     }
 
+    /**
+     * Starts a new game on a board of another size, at the current level.
+     */
+    public void handleNewSize(SudokuSize size) {
+        try {
+            model.startNewGame(model.getLevel(), size);
+            clearSelection();
+        } catch (Exception e) {
+            vview.showAlert("Fel vid start av nytt spel: " + e.getMessage());
+        }
+    }
+
     public void handleSaveGame() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Game");
@@ -72,10 +91,8 @@ public class SudokuController {
     public void fillCell(int row, int col,int selectedNumber) {
         try {
             model.setCellValue(row, col, selectedNumber);
-            vview.updateView();
             if (model.isBoardComplete()) {
                 if (model.checkSolution()) {
-                    vview.updateView();
                     vview.showAlert("Grattis! Du har löst Sudokut.");
                 } else {
                     vview.showAlert("Lösningen är inte korrekt. Försök igen.");
@@ -86,6 +103,33 @@ public class SudokuController {
         }
     }
 
+    /**
+     * Adds a number to the pencil marks of an empty cell, or removes it if it is marked.
+     * Zero removes all marks of the cell.
+     */
+    public void markCell(int row, int col, int number) {
+        try {
+            if (model.getUserValue(row, col) != 0) {
+                return; // the marks of a filled cell are not shown
+            }
+            if (number == 0) {
+                model.setMarks(row, col, 0);
+            } else {
+                model.toggleMark(row, col, number);
+            }
+        } catch (Exception e) {
+            vview.showAlert("Error marking cell: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Turns pencil mode on or off. In pencil mode, clicked cells and typed numbers change the
+     * pencil marks instead of the values.
+     */
+    public void setPencilMode(boolean pencilMode) {
+        this.pencilMode = pencilMode;
+    }
+
     public void checkCurrentState() {
         if (model.isCurrentStateCorrect()) {
             vview.showAllInputsSoFarRight();
@@ -97,7 +141,6 @@ public class SudokuController {
     public void clearBoard() {
         try {
             model.clearBoard();
-            vview.updateView();
         } catch (Exception e) {
             vview.showAlert("Fel vid rensning av brädet: " + e.getMessage());
         }
@@ -105,9 +148,8 @@ public class SudokuController {
 
     public void getHint() {
         try {
-            int[] hint = model.getHint();
-            if (hint != null) {
-                fillCell(hint[0], hint[1],hint[2]);
+            if (model.getHint(hint)) {
+                fillCell(hint.getRow(), hint.getCol(), hint.getValue());
             } else {
                 vview.showAlert("Ingen ledtråd tillgänglig just nu.");
             }
@@ -116,6 +158,26 @@ public class SudokuController {
         }
     }
 
+    /**
+     * Undoes the last move, or brings back the previous game if the last move was a new game.
+     */
+    public void undo() {
+        SudokuSize oldSize = model.getSize();
+        if (model.undo() && model.getSize() != oldSize) {
+            clearSelection();
+        }
+    }
+
+    /**
+     * Makes the last undone move again.
+     */
+    public void redo() {
+        SudokuSize oldSize = model.getSize();
+        if (model.redo() && model.getSize() != oldSize) {
+            clearSelection();
+        }
+    }
+
     public void handleLoadGame() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Load Game");
@@ -124,8 +186,23 @@ public class SudokuController {
         if (selectedFile != null) {
             try {
                 SudokuGrid loadedModel = FileHandler.deSerializeFromFile(selectedFile);
+                // The file may have been written elsewhere, so the puzzle must be checked before it is played
+                // The check is bounded, so a board made to be hard to decide cannot freeze the window
+                SudokuGrid.PuzzleCheck check = loadedModel.checkPuzzle(
+                        new DancingLinksSolver(loadedModel.getSize()), SudokuGrid.PUZZLE_CHECK_SEARCHES);
+                if (check == SudokuGrid.PuzzleCheck.UNDECIDED) {
+                    vview.showAlert("Det sparade spelet kunde inte kontrolleras.");
+                    return;
+                }
+                if (check == SudokuGrid.PuzzleCheck.INVALID) {
+                    vview.showAlert("Det sparade spelet har ingen entydig lösning.");
+                    return;
+                }
+                SudokuSize oldSize = model.getSize();
                 model.copyState(loadedModel);
-                vview.updateView();
+                if (model.getSize() != oldSize) {
+                    clearSelection(); // the view has a new board without a selection
+                }
             } catch (IOException | ClassNotFoundException e) {
                 vview.showFileNotOpened();
             }
@@ -134,6 +211,41 @@ public class SudokuController {
         }
     }
 
+    /**
+     * Starts a game of the first puzzle with one solution in a puzzle collection, in the line,
+     * SDK or CSV format given by the extension of the file. The level follows from its rating.
+     */
+    public void handleImportPuzzle() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Puzzle");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Puzzle Collections", "*.txt", "*.sdk", "*.csv"));
+        File selectedFile = fileChooser.showOpenDialog(null);
+        if (selectedFile == null) {
+            return;
+        }
+        String name = selectedFile.getName().toLowerCase();
+        PuzzleFormat format = name.endsWith(".sdk") ? PuzzleFormat.SDK
+                : name.endsWith(".csv") ? PuzzleFormat.CSV : PuzzleFormat.LINE;
+        try (PuzzleReader reader = PuzzleReader.open(selectedFile.toPath(), format)) {
+            DancingLinksSolver solver = new DancingLinksSolver();
+            DifficultyRater rater = new DifficultyRater();
+            while (reader.next()) {
+                Puzzle puzzle = reader.toPuzzle(solver, rater);
+                if (puzzle != null) {
+                    SudokuSize oldSize = model.getSize();
+                    model.startNewGame(puzzle);
+                    if (model.getSize() != oldSize) {
+                        clearSelection();
+                    }
+                    return;
+                }
+            }
+            vview.showAlert("Filen innehåller inget pussel med entydig lösning.");
+        } catch (IOException e) {
+            vview.showFileNotOpened();
+        }
+    }
+
     public void showRules() {
         vview.showRules();
     }
@@ -142,7 +254,58 @@ public class SudokuController {
         setSelectedNumber(button.getValue()); //
     }
     public void cellClicked(int row, int col) {
-        fillCell(row, col, selectedNumber);
+        selectCell(row, col);
+        if (pencilMode) {
+            markCell(row, col, selectedNumber);
+        } else {
+            fillCell(row, col, selectedNumber);
+        }
+    }
+
+    public void selectCell(int row, int col) {
+        selectedRow = row;
+        selectedCol = col;
+        vview.showSelection(row, col);
+    }
+
+    /**
+     * Moves the selection by the given number of rows and columns, wrapping around at the edges.
+     * The first move selects the top left cell.
+     */
+    public void moveSelection(int rowStep, int colStep) {
+        if (selectedRow < 0) {
+            selectCell(0, 0);
+            return;
+        }
+        int gridSize = model.getSize().getGridSize();
+        selectCell(Math.floorMod(selectedRow + rowStep, gridSize),
+                Math.floorMod(selectedCol + colStep, gridSize));
+    }
+
+    private void clearSelection() {
+        selectedRow = -1;
+        selectedCol = -1;
+    }
+
+    /**
+     * Fills the selected cell with a number typed on the keyboard, zero to empty it.
+     * In pencil mode the number is marked instead.
+     */
+    public void enterNumber(int number) {
+        if (pencilMode) {
+            enterMark(number);
+        } else if (selectedRow >= 0) {
+            fillCell(selectedRow, selectedCol, number);
+        }
+    }
+
+    /**
+     * Marks or unmarks a number typed on the keyboard in the selected cell, zero to remove all its marks.
+     */
+    public void enterMark(int number) {
+        if (selectedRow >= 0) {
+            markCell(selectedRow, selectedCol, number);
+        }
     }
 }
 
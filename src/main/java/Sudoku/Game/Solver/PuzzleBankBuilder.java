@@ -0,0 +1,97 @@
+package Sudoku.Game.Solver;
+
+import Sudoku.Game.Solver.model.DifficultyRater;
+import Sudoku.Game.Solver.model.Puzzle;
+import Sudoku.Game.Solver.model.PuzzleBank;
+import Sudoku.Game.Solver.model.SudokuGenerator;
+import Sudoku.Game.Solver.model.SudokuUtilities;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Command-line tool that fills a puzzle bank file with generated puzzles, using one
+ * generator thread per available processor.
+ *
+ * Every puzzle is rated with {@link DifficultyRater} and stored under the level its rating
+ * gives, with the score as its rating. Puzzles are generated with the number of clues of the
+ * hardest level that still needs puzzles; those that rate as a level that is already full are
+ * thrown away.
+ *
+ * Usage: PuzzleBankBuilder &lt;bank file&gt; &lt;puzzles per level&gt;
+ */
+public class PuzzleBankBuilder {
+
+    private PuzzleBankBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 2) {
+            System.err.println("Usage: PuzzleBankBuilder <bank file> <puzzles per level>");
+            System.exit(2);
+        }
+        long perLevel = Long.parseLong(args[1]);
+        SudokuUtilities.SudokuLevel[] levels = SudokuUtilities.SudokuLevel.values();
+        try (PuzzleBank.Writer writer = new PuzzleBank.Writer(Paths.get(args[0]))) {
+            AtomicLongArray remaining = new AtomicLongArray(levels.length);
+            for (int level = 0; level < levels.length; level++) {
+                remaining.set(level, perLevel);
+            }
+            Thread[] workers = new Thread[Runtime.getRuntime().availableProcessors()];
+            IOException[] failure = new IOException[1];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Thread(() -> {
+                    SudokuGenerator generator = new SudokuGenerator();
+                    DifficultyRater rater = new DifficultyRater();
+                    int cells = SudokuUtilities.GRID_SIZE * SudokuUtilities.GRID_SIZE;
+                    int target;
+                    while ((target = hardestNeeded(remaining)) >= 0) {
+                        int[] givens = new int[cells];
+                        int[] solution = new int[cells];
+                        generator.generate(levels[target], givens, solution);
+                        int score = rater.rate(givens);
+                        SudokuUtilities.SudokuLevel level = rater.getLevel();
+                        if (remaining.getAndDecrement(level.ordinal()) <= 0) {
+                            continue;
+                        }
+                        synchronized (writer) {
+                            try {
+                                writer.add(new Puzzle(level, givens, solution), DifficultyRater.toBankRating(score));
+                            } catch (IOException e) {
+                                failure[0] = e;
+                                for (int j = 0; j < levels.length; j++) {
+                                    remaining.set(j, 0);
+                                }
+                            }
+                        }
+                    }
+                });
+                workers[i].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            for (SudokuUtilities.SudokuLevel level : levels) {
+                System.out.println(level + ": " + perLevel + " puzzles");
+            }
+        }
+    }
+
+    /**
+     * Finds the hardest level that still needs puzzles.
+     *
+     * @return The ordinal of the level, or -1 if all levels are full.
+     */
+    private static int hardestNeeded(AtomicLongArray remaining) {
+        for (int level = remaining.length() - 1; level >= 0; level--) {
+            if (remaining.get(level) > 0) {
+                return level;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,176 @@
+package Sudoku.Game.Solver;
+
+import Sudoku.Game.Solver.model.DancingLinksSolver;
+import Sudoku.Game.Solver.model.DifficultyRater;
+import Sudoku.Game.Solver.model.Puzzle;
+import Sudoku.Game.Solver.model.PuzzleBank;
+import Sudoku.Game.Solver.model.PuzzleFormat;
+import Sudoku.Game.Solver.model.PuzzleReader;
+import Sudoku.Game.Solver.model.PuzzleWriter;
+import Sudoku.Game.Solver.model.SudokuSize;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Command-line tool that converts collections of classic puzzles between the text formats of
+ * {@link PuzzleFormat}, or loads them into a {@link PuzzleBank} the game can draw from.
+ *
+ * Puzzles are streamed through a {@link PuzzleReader} and a {@link PuzzleWriter}, so files of
+ * any size are converted in constant memory. With --min-rating and --max-rating only puzzles
+ * rated within the range are kept, and puzzles without a rating are dropped. With --rate every
+ * puzzle is checked to have one solution, solved and rated with {@link DifficultyRater}, whose
+ * score replaces the rating of the input; this is always done for a bank, whose puzzles need a
+ * solution and a level. The format of a file follows from its extension (.sdk, .csv, .bank and
+ * anything else for lines) unless it is given with --from or --to. Statistics are written to
+ * standard error at the end.
+ *
+ * Usage: PuzzleConverter &lt;input file|-&gt; &lt;output file|-&gt; [--from=line|sdk|csv]
+ * [--to=line|sdk|csv|bank] [--min-rating=X] [--max-rating=X] [--rate] [--empty=.|0]
+ */
+public class PuzzleConverter {
+    private static final String BANK = "bank";
+
+    private PuzzleConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String input = null;
+        String output = null;
+        String from = null;
+        String to = null;
+        double minRating = Double.NEGATIVE_INFINITY;
+        double maxRating = Double.POSITIVE_INFINITY;
+        boolean rate = false;
+        char empty = '.';
+        for (String arg : args) {
+            if (arg.startsWith("--from=")) {
+                from = arg.substring("--from=".length());
+            } else if (arg.startsWith("--to=")) {
+                to = arg.substring("--to=".length());
+            } else if (arg.startsWith("--min-rating=")) {
+                minRating = Double.parseDouble(arg.substring("--min-rating=".length()));
+            } else if (arg.startsWith("--max-rating=")) {
+                maxRating = Double.parseDouble(arg.substring("--max-rating=".length()));
+            } else if (arg.equals("--rate")) {
+                rate = true;
+            } else if (arg.startsWith("--empty=") && arg.length() == "--empty=".length() + 1) {
+                empty = arg.charAt("--empty=".length());
+            } else if (input == null) {
+                input = arg;
+            } else if (output == null) {
+                output = arg;
+            } else {
+                input = null;
+                break;
+            }
+        }
+        if (input == null || output == null) {
+            System.err.println("Usage: PuzzleConverter <input file|-> <output file|-> [--from=line|sdk|csv]"
+                    + " [--to=line|sdk|csv|bank] [--min-rating=X] [--max-rating=X] [--rate] [--empty=.|0]");
+            System.exit(2);
+        }
+        String toFormat = to != null ? to.toLowerCase(Locale.ROOT) : formatOf(output);
+        boolean bank = toFormat.equals(BANK);
+        if (bank && output.equals("-")) {
+            System.err.println("A puzzle bank must be written to a file");
+            System.exit(2);
+        }
+
+        ReadableByteChannel in = input.equals("-")
+                ? Channels.newChannel(System.in)
+                : FileChannel.open(Paths.get(input), StandardOpenOption.READ);
+        long start = System.nanoTime();
+        long kept = 0;
+        long filtered = 0;
+        long notUnique = 0;
+        try (PuzzleReader reader = new PuzzleReader(in, parseFormat(from != null ? from : formatOf(input)))) {
+            DancingLinksSolver solver = new DancingLinksSolver();
+            DifficultyRater rater = new DifficultyRater();
+            int[] givens = new int[SudokuSize.CLASSIC.getCellCount()];
+            int[] solution = new int[SudokuSize.CLASSIC.getCellCount()];
+            // NaN is outside every range, so unrated puzzles are dropped by a filter
+            boolean filtering = minRating != Double.NEGATIVE_INFINITY || maxRating != Double.POSITIVE_INFINITY;
+            if (bank) {
+                try (PuzzleBank.Writer writer = new PuzzleBank.Writer(Paths.get(output))) {
+                    while (reader.next()) {
+                        Puzzle puzzle = reader.toPuzzle(solver, rater);
+                        if (puzzle == null) {
+                            notUnique++;
+                        } else if (rater.getScore() < minRating || rater.getScore() > maxRating) {
+                            filtered++;
+                        } else {
+                            writer.add(puzzle, DifficultyRater.toBankRating(rater.getScore()));
+                            kept++;
+                        }
+                    }
+                }
+            } else {
+                WritableByteChannel out = output.equals("-")
+                        ? Channels.newChannel(System.out)
+                        : FileChannel.open(Paths.get(output), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                try (PuzzleWriter writer = new PuzzleWriter(out, parseFormat(toFormat), SudokuSize.CLASSIC, empty)) {
+                    while (reader.next()) {
+                        double rating = reader.getRating();
+                        if (rate) {
+                            Puzzle puzzle = reader.toPuzzle(solver, rater);
+                            if (puzzle == null) {
+                                notUnique++;
+                                continue;
+                            }
+                            puzzle.copyGivens(givens);
+                            puzzle.copySolution(solution);
+                            rating = rater.getScore();
+                        } else {
+                            reader.copyGivens(givens);
+                            if (reader.hasSolution()) {
+                                reader.copySolution(solution);
+                            }
+                        }
+                        if (filtering && !(rating >= minRating && rating <= maxRating)) {
+                            filtered++;
+                            continue;
+                        }
+                        writer.write(givens, rate || reader.hasSolution() ? solution : null, rating);
+                        kept++;
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long total = kept + filtered + notUnique;
+            System.err.printf("%d puzzles read (%d written, %d filtered, %d without one solution, %d invalid records)"
+                            + " in %.2f s, %.0f puzzles/s%n",
+                    total, kept, filtered, notUnique, reader.getInvalidCount(), seconds, total / seconds);
+        }
+    }
+
+    /**
+     * Gets the format of a file from its extension.
+     */
+    private static String formatOf(String file) {
+        String name = file.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".sdk")) {
+            return "sdk";
+        } else if (name.endsWith(".csv")) {
+            return "csv";
+        } else if (name.endsWith(".bank")) {
+            return BANK;
+        }
+        return "line";
+    }
+
+    private static PuzzleFormat parseFormat(String name) {
+        if (name.equals(BANK)) {
+            System.err.println("A puzzle bank can only be written");
+            System.exit(2);
+        }
+        return PuzzleFormat.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
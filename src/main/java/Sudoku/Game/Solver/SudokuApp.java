@@ -1,25 +1,77 @@
 package Sudoku.Game.Solver;
 
 import Sudoku.Game.Solver.View.SudokuView;
+import Sudoku.Game.Solver.model.Autosave;
+import Sudoku.Game.Solver.model.PuzzleBank;
 import Sudoku.Game.Solver.model.SudokuGrid;
 import Sudoku.Game.Solver.model.SudokuUtilities;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class SudokuApp extends Application {
+    private Autosave autosave;
 
     @Override
     public void start(Stage primaryStage) {
-
-        SudokuGrid model = new SudokuGrid(SudokuUtilities.SudokuLevel.EASY);
-        SudokuView sudokuView = new SudokuView(model);
+        // --bank=<file> draws new games from a puzzle bank instead of generating them
+        String bankFile = getParameters().getNamed().get("bank");
+        if (bankFile != null) {
+            try {
+                SudokuUtilities.setPuzzleBank(PuzzleBank.open(Paths.get(bankFile)));
+            } catch (IOException e) {
+                System.err.println("Could not open puzzle bank " + bankFile + ": " + e.getMessage());
+            }
+        }
+
+        // --renderer=canvas paints the board on a single Canvas instead of a Label per cell
+        boolean canvasBoard = "canvas".equals(getParameters().getNamed().get("renderer"));
+
+        // --autosave=<dir> keeps the autosaved game in another directory, --autosave=off turns it off
+        String autosaveDir = getParameters().getNamed().get("autosave");
+        Path autosavePath = autosaveDir == null
+                ? Paths.get(System.getProperty("user.home"), ".sudoku", "autosave")
+                : "off".equals(autosaveDir) ? null : Paths.get(autosaveDir);
+        SudokuGrid model = null;
+        if (autosavePath != null) {
+            try {
+                model = Autosave.recover(autosavePath);
+            } catch (IOException e) {
+                System.err.println("Could not restore the autosaved game: " + e.getMessage());
+            }
+        }
+        if (model == null) {
+            model = new SudokuGrid(SudokuUtilities.SudokuLevel.EASY);
+        }
+        if (autosavePath != null) {
+            try {
+                autosave = Autosave.start(autosavePath, model);
+            } catch (IOException e) {
+                System.err.println("Could not start autosave in " + autosavePath + ": " + e.getMessage());
+            }
+        }
+        SudokuView sudokuView = new SudokuView(model, canvasBoard);
         Scene scene = new Scene(sudokuView.getRoot(), 562,562);
         primaryStage.setScene(scene);
         primaryStage.setTitle("Sudoku Game");
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        if (autosave != null) {
+            try {
+                autosave.close();
+            } catch (IOException e) {
+                System.err.println("Could not finish the autosave: " + e.getMessage());
+            }
+        }
+    }
+
 
 
 
@@ -0,0 +1,40 @@
+package Sudoku.Game.Solver.View;
+
+import javafx.scene.Node;
+
+/**
+ * Draws the cells of the board for {@link GridView}. The renderer reads the values from the
+ * model itself and reports clicked cells to the controller; GridView tells it which cells
+ * to draw again. An empty cell shows its pencil marks in small print, in a square of the
+ * size of a box.
+ */
+interface BoardRenderer {
+
+    /**
+     * Gets the node showing the board. It is created once and takes the keyboard focus.
+     *
+     * @return The board node.
+     */
+    Node getNode();
+
+    /**
+     * Draws one cell again from the model.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     */
+    void showCell(int row, int col);
+
+    /**
+     * Draws again every cell that differs from the model.
+     */
+    void refresh();
+
+    /**
+     * Moves the highlight to the selected cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     */
+    void showSelection(int row, int col);
+}
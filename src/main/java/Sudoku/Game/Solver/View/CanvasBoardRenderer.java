@@ -0,0 +1,179 @@
+package Sudoku.Game.Solver.View;
+
+import Sudoku.Game.Solver.Controller.SudokuController;
+import Sudoku.Game.Solver.model.SudokuGrid;
+import Sudoku.Game.Solver.model.SudokuUtilities;
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+import java.util.Arrays;
+
+/**
+ * Paints the whole board onto a single Canvas, so the board is one node however many cells
+ * it has. The digits are drawn once into images when the renderer is created, and a cell is
+ * only painted again when what it shows has changed. A renderer is made for one board size.
+ */
+class CanvasBoardRenderer implements BoardRenderer {
+    private static final double BOARD_SIZE = 432;
+    private static final double MIN_CELL_SIZE = 24;
+    private static final Color SELECTED_COLOR = Color.LIGHTBLUE;
+    // What a cell shows is kept as its value plus these flags
+    private static final int GIVEN_FLAG = 1 << 8;
+    private static final int SELECTED_FLAG = 1 << 9;
+    private static final int NOT_PAINTED = -1;
+
+    private final SudokuGrid model;
+    private final SudokuController kontroller;
+    private final int size;
+    private final int boxSize;
+    private final double cellSize;
+    private final Canvas canvas;
+    private final GraphicsContext graphics;
+    private final Image[] givenGlyphs;
+    private final Image[] userGlyphs;
+    private final Image[] markGlyphs;
+    private final int[] painted;
+    private final int[] paintedMarks;
+    private int selectedCell = -1;
+
+    CanvasBoardRenderer(SudokuGrid model, SudokuController kontroller) {
+        this.model = model;
+        this.kontroller = kontroller;
+        size = model.getSize().getGridSize();
+        boxSize = model.getSize().getBoxSize();
+        cellSize = Math.max(MIN_CELL_SIZE, Math.floor(BOARD_SIZE / size));
+        canvas = new Canvas(size * cellSize, size * cellSize);
+        graphics = canvas.getGraphicsContext2D();
+        double fontSize = cellSize * 20 / 48;
+        givenGlyphs = makeGlyphs(Font.font("Monospaced", FontWeight.BOLD, fontSize));
+        userGlyphs = makeGlyphs(Font.font("Monospaced", FontWeight.NORMAL, fontSize));
+        markGlyphs = makeGlyphs(Font.font("Monospaced", FontWeight.NORMAL, Math.floor(cellSize / (1.4 * boxSize))));
+        painted = new int[size * size];
+        paintedMarks = new int[size * size];
+        Arrays.fill(painted, NOT_PAINTED);
+        canvas.setOnMouseClicked(new ClickHandler());
+        paintLines();
+        refresh();
+    }
+
+    /**
+     * Draws every value once with the given font into an image with a transparent background.
+     */
+    private Image[] makeGlyphs(Font font) {
+        Text text = new Text();
+        text.setFont(font);
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        Image[] glyphs = new Image[size + 1];
+        for (int value = 1; value <= size; value++) {
+            text.setText(String.valueOf(SudokuUtilities.convertIntToSudokuChar(value)));
+            glyphs[value] = text.snapshot(parameters, null);
+        }
+        return glyphs;
+    }
+
+    @Override
+    public Node getNode() {
+        return canvas;
+    }
+
+    @Override
+    public void showCell(int row, int col) {
+        int cell = row * size + col;
+        int value = model.getUserValue(row, col);
+        boolean given = !model.isTileEditable(row, col);
+        int shown = value | (given ? GIVEN_FLAG : 0) | (cell == selectedCell ? SELECTED_FLAG : 0);
+        int marks = value == 0 ? model.getMarks(row, col) : 0;
+        if (painted[cell] == shown && paintedMarks[cell] == marks) {
+            return;
+        }
+        painted[cell] = shown;
+        paintedMarks[cell] = marks;
+        // The inside of the cell is painted over, the lines around it are left as they are
+        double x = col * cellSize;
+        double y = row * cellSize;
+        graphics.setFill(cell == selectedCell ? SELECTED_COLOR : Color.WHITE);
+        graphics.fillRect(x + 1, y + 1, cellSize - 2, cellSize - 2);
+        if (value != 0) {
+            Image glyph = given ? givenGlyphs[value] : userGlyphs[value];
+            graphics.drawImage(glyph, x + (cellSize - glyph.getWidth()) / 2, y + (cellSize - glyph.getHeight()) / 2);
+        } else if (marks != 0) {
+            paintMarks(x, y, marks);
+        }
+    }
+
+    /**
+     * Paints the marked values of a cell in a square of the size of a box, every value in its own place.
+     */
+    private void paintMarks(double x, double y, int marks) {
+        double step = cellSize / boxSize;
+        for (int value = 1; value <= size; value++) {
+            if ((marks & 1 << (value - 1)) != 0) {
+                Image glyph = markGlyphs[value];
+                double markX = x + (value - 1) % boxSize * step;
+                double markY = y + (value - 1) / boxSize * step;
+                graphics.drawImage(glyph, markX + (step - glyph.getWidth()) / 2, markY + (step - glyph.getHeight()) / 2);
+            }
+        }
+    }
+
+    @Override
+    public void refresh() {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                showCell(row, col);
+            }
+        }
+    }
+
+    @Override
+    public void showSelection(int row, int col) {
+        int previous = selectedCell;
+        selectedCell = row * size + col;
+        if (previous >= 0) {
+            showCell(previous / size, previous % size);
+        }
+        showCell(row, col);
+    }
+
+    private void paintLines() {
+        double boardSize = size * cellSize;
+        graphics.setFill(Color.WHITE);
+        graphics.fillRect(0, 0, boardSize, boardSize);
+        graphics.setStroke(Color.BLACK);
+        for (int line = 0; line <= size; line++) {
+            double position = line * cellSize;
+            if (line % boxSize == 0) {
+                graphics.setLineWidth(2);
+            } else {
+                // Half a pixel in, so that a one pixel line covers exactly one pixel
+                graphics.setLineWidth(1);
+                position += 0.5;
+            }
+            graphics.strokeLine(position, 0, position, boardSize);
+            graphics.strokeLine(0, position, boardSize, position);
+        }
+    }
+
+    private class ClickHandler implements EventHandler<MouseEvent> {
+        @Override
+        public void handle(MouseEvent event) {
+            int row = (int) (event.getY() / cellSize);
+            int col = (int) (event.getX() / cellSize);
+            if (row < 0 || row >= size || col < 0 || col >= size) {
+                return;
+            }
+            canvas.requestFocus(); // so that the keyboard can be used from here on
+            kontroller.cellClicked(row, col);
+        }
+    }
+}
@@ -1,20 +1,22 @@
 package Sudoku.Game.Solver.View;
 
 import Sudoku.Game.Solver.Controller.SudokuController;
+import Sudoku.Game.Solver.model.CellChangeListener;
 import Sudoku.Game.Solver.model.SudokuGrid;
+import Sudoku.Game.Solver.model.SudokuSize;
 import Sudoku.Game.Solver.model.SudokuUtilities;
-import Sudoku.Game.Solver.model.Tile;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
-import javafx.scene.input.MouseEvent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.TilePane;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 
 public class GridView {
 
@@ -22,22 +24,47 @@ public class GridView {
     private final SudokuGrid model;
     private SudokuController kontroller;
     private BorderPane borderPane;
-    private final Label[][] numberTiles;
-    private TilePane numberPane;
+    private final boolean canvasBoard;
+    private BoardRenderer renderer;
+    private Node numberPane;
+    private SudokuSize shownSize;
 
     private Button checkButton;
     private Button hintButton;
+    private ToggleButton pencilButton;
     private Button[] numberButtons;
 
     public GridView(SudokuGrid model, SudokuController kontroller) {
+        this(model, kontroller, false);
+    }
+
+    /**
+     * Creates the view of a game.
+     *
+     * @param model       The game.
+     * @param kontroller  The controller handling the input.
+     * @param canvasBoard true to paint the board on a single Canvas, false to show a Label per cell.
+     */
+    public GridView(SudokuGrid model, SudokuController kontroller, boolean canvasBoard) {
         this.model=model;
         this.kontroller=kontroller;
+        this.canvasBoard = canvasBoard;
         initButtons();
-        numberTiles = new Label[SudokuUtilities.GRID_SIZE][SudokuUtilities.GRID_SIZE];
-        initNumberTiles();
-        numberPane = makeNumberPane();
+        initBoard();
         initBorderPane();
         menuBar= createGameMenu();
+        model.addChangeListener(new ModelListener());
+    }
+
+    /**
+     * Creates the board for the current size of the model.
+     */
+    private void initBoard() {
+        shownSize = model.getSize();
+        renderer = canvasBoard ? new CanvasBoardRenderer(model, kontroller) : new LabelBoardRenderer(model, kontroller);
+        numberPane = renderer.getNode();
+        numberPane.setFocusTraversable(true);
+        numberPane.setOnKeyPressed(new KeyHandler());
     }
 
     private void initBorderPane(){
@@ -48,21 +75,14 @@ public class GridView {
         GridPane leftButtonsPane = new GridPane();
         leftButtonsPane.add(checkButton, 0,0);
         leftButtonsPane.add(hintButton,0,1);
+        leftButtonsPane.add(pencilButton,0,2);
         leftButtonsPane.setAlignment(Pos.CENTER);
         leftButtonsPane.setPadding(new Insets(10));
         leftButtonsPane.setVgap(5);
         borderPane.setLeft(leftButtonsPane);
 
 
-        GridPane numbersPane = new GridPane();
-        for (int i= 0; i < numberButtons.length; i++){
-            //              knapp,
-            numbersPane.add(numberButtons[i], 0,i);
-        }
-        numbersPane.setAlignment(Pos.CENTER);
-        numbersPane.setVgap(1);
-        numbersPane.setPadding(new Insets(15));
-        borderPane.setRight(numbersPane);
+        borderPane.setRight(makeNumbersPane());
 
         //top
         GridPane topPane = new GridPane();
@@ -75,6 +95,19 @@ public class GridView {
         borderPane.setBottom(bottomPane);
     }
 
+    private GridPane makeNumbersPane() {
+        GridPane numbersPane = new GridPane();
+        for (int i= 0; i < numberButtons.length; i++){
+            //              knapp, kolumn, rad - tio knappar per kolumn
+            numbersPane.add(numberButtons[i], i / 10, i % 10);
+        }
+        numbersPane.setAlignment(Pos.CENTER);
+        numbersPane.setVgap(1);
+        numbersPane.setHgap(1);
+        numbersPane.setPadding(new Insets(15));
+        return numbersPane;
+    }
+
     private void initButtons(){
         checkButton = new Button("Check");
         checkButton.setOnAction(new EventHandler<ActionEvent>() { //connect till händelsekällan
@@ -92,26 +125,43 @@ public class GridView {
             }
         });
 
-        numberButtons = new Button[10];
+        pencilButton = new ToggleButton("Pencil");
+        pencilButton.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent actionEvent) {
+                kontroller.setPencilMode(pencilButton.isSelected());
+                numberPane.requestFocus();
+            }
+        });
+
+        initNumberButtons();
+    }
+
+    private void initNumberButtons() {
+        int gridSize = model.getSize().getGridSize();
+        numberButtons = new Button[gridSize + 1];
         SudokuButton[] numberButtonValues = SudokuButton.values(); //hämta alla värden
         for(int i = 0; i < numberButtons.length-1; i++){
             int index = i;
-            numberButtons[i] = new Button(String.valueOf(i+1)); //siffran som kommer visas på knappen
+            numberButtons[i] = new Button(String.valueOf(SudokuUtilities.convertIntToSudokuChar(i+1))); //siffran som kommer visas på knappen
             numberButtons[i].setOnAction(new EventHandler<ActionEvent>() {
                 @Override
                 public void handle(ActionEvent actionEvent) {
-                    kontroller.handleButtonGuess(numberButtonValues[index]); //koppla knapp till enum
+                    if (index < numberButtonValues.length - 1) {
+                        kontroller.handleButtonGuess(numberButtonValues[index]); //koppla knapp till enum
+                    } else {
+                        kontroller.setSelectedNumber(index + 1); // värden över 9 har ingen enum
+                    }
                 }
             });
         }
-        numberButtons[9] = new Button("C");
-        numberButtons[9].setOnAction(new EventHandler<ActionEvent>() {
+        numberButtons[gridSize] = new Button("C");
+        numberButtons[gridSize].setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent actionEvent) {
                 kontroller.handleButtonGuess(SudokuButton.C); //koppla knapp till enum
             }
         });
-
     }
 
     private Menu createFileMenu() {
@@ -120,7 +170,7 @@ public class GridView {
         exitItem.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent actionEvent) {
-                System.exit(0);
+                Platform.exit(); // stop() ska köras så att autosparningen avslutas
             }
         });
 
@@ -141,8 +191,17 @@ public class GridView {
             }
         });
 
+        MenuItem importItem = new MenuItem("Import puzzle");
+        importItem.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent actionEvent) {
+                kontroller.handleImportPuzzle();
+            }
+        });
+
         fileMenu.getItems().add(LoadItem);
         fileMenu.getItems().add(SaveItem);
+        fileMenu.getItems().add(importItem);
         fileMenu.getItems().add(exitItem);
         return fileMenu;
 
@@ -186,14 +245,54 @@ public class GridView {
             }
         });
 
+        Menu sizeMenu = new Menu("Size");
+        for (int boxSize = SudokuSize.MIN_BOX_SIZE; boxSize <= SudokuSize.MAX_BOX_SIZE; boxSize++) {
+            SudokuSize size = SudokuSize.of(boxSize);
+            MenuItem sizeItem = new MenuItem(size.toString());
+            sizeItem.setOnAction(new EventHandler<ActionEvent>() {
+                @Override
+                public void handle(ActionEvent actionEvent) {
+                    kontroller.handleNewSize(size);
+                }
+            });
+            sizeMenu.getItems().add(sizeItem);
+        }
+
         sudokuMenu.getItems().add(playAgainItem);
         sudokuMenu.getItems().add(easyLevelItem);
         sudokuMenu.getItems().add(mediumLevelItem);
         sudokuMenu.getItems().add(hardLevelItem);
+        sudokuMenu.getItems().add(sizeMenu);
         return sudokuMenu;
     }
 
 
+    private Menu createEditMenu() {
+        Menu editMenu = new Menu("Edit");
+
+        MenuItem undoItem = new MenuItem("Undo");
+        undoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Z"));
+        undoItem.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent actionEvent) {
+                kontroller.undo();
+            }
+        });
+
+        MenuItem redoItem = new MenuItem("Redo");
+        redoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Y"));
+        redoItem.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent actionEvent) {
+                kontroller.redo();
+            }
+        });
+
+        editMenu.getItems().add(undoItem);
+        editMenu.getItems().add(redoItem);
+        return editMenu;
+    }
+
     private Menu createHelpMenu(){
 
         Menu HelpMenu= new Menu("Help");
@@ -237,100 +336,136 @@ public class GridView {
 
     public MenuBar createGameMenu(){
         MenuBar menuBar= new MenuBar();
-        menuBar.getMenus().addAll(createFileMenu(),creatGameMenu(),createHelpMenu());
+        menuBar.getMenus().addAll(createFileMenu(),createEditMenu(),creatGameMenu(),createHelpMenu());
 
         return menuBar;
     }
 
 
     // use this method to get a reference to the number (called by some other class)
-    public TilePane getNumberPane() {
+    public Node getNumberPane() {
         return numberPane;
     }
 
-    // called by constructor (only)
-    private final  void initNumberTiles() {
-        Font font;
-        Tile[][] cells= model.getGrid();
-
-        for (int row = 0; row < SudokuUtilities.GRID_SIZE; row++) {
-            for (int col = 0; col < SudokuUtilities.GRID_SIZE; col++) {
-                
-                Label tile;
-                if (cells[row][col].getUserValue() != 0) {
-                    tile = new Label(String.valueOf(cells[row][col].getUserValue()));
-                }else{
-                    tile= new Label(" ");
-                }
-                if (cells[row][col].isFromStart()) {
-                    font = Font.font("Monospaced", FontWeight.BOLD, 20);
-                } else {
-                    font = Font.font("Monospaced", FontWeight.NORMAL, 20);
-                }
+    /**
+     * Highlights the selected cell, the target of keyboard input.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     */
+    public void showSelection(int row, int col) {
+        renderer.showSelection(row, col);
+    }
 
-                tile.setPrefWidth(48);
-                tile.setPrefHeight(48);
-                tile.setFont(font);
-                tile.setAlignment(Pos.CENTER);
-                tile.setStyle("-fx-border-color: black; -fx-border-width: 0.5px;"); // css style
-                tile.setOnMouseClicked(new tileCLickHandler()); // add your custom event handler
-                // add new tile to grid
-                numberTiles[row][col] = tile;
-            }
-        }
+    /**
+     * Updates every cell that differs from the model.
+     */
+    public void refresh() {
+        renderer.refresh();
     }
 
 
+    public BorderPane getBorderPane() {
+        return borderPane;
+    }
 
-    private final TilePane makeNumberPane() {
-        // create the root tile pane
-        TilePane root = new TilePane();
-        root.setPrefColumns(SudokuUtilities.SECTIONS_PER_ROW);
-        root.setPrefRows(SudokuUtilities.SECTIONS_PER_ROW);
-        root.setStyle(
-                "-fx-border-color: black; -fx-border-width: 1.0px; -fx-background-color: white;");
-
-        TilePane[][] sections = new TilePane[SudokuUtilities.SECTIONS_PER_ROW][SudokuUtilities.SECTIONS_PER_ROW];
-        int i = 0;
-        for (int srow = 0; srow < SudokuUtilities.SECTIONS_PER_ROW; srow++) {
-            for (int scol = 0; scol < SudokuUtilities.SECTIONS_PER_ROW; scol++) {
-                TilePane section = new TilePane();
-                section.setPrefColumns(SudokuUtilities.SECTION_SIZE);
-                section.setPrefRows(SudokuUtilities.SECTION_SIZE);
-                section.setStyle( "-fx-border-color: black; -fx-border-width: 0.5px;");
-
-                for (int row = 0; row < SudokuUtilities.SECTION_SIZE; row++) {
-                    for (int col = 0; col < SudokuUtilities.SECTION_SIZE; col++) {
-                        section.getChildren().add(
-                                numberTiles[srow * SudokuUtilities.SECTION_SIZE + row][scol * SudokuUtilities.SECTION_SIZE + col]);
-                    }
-                }
-                root.getChildren().add(section);
+
+    private class ModelListener implements CellChangeListener {
+        private boolean inBatch;
+
+        @Override
+        public void cellChanged(int row, int col, int oldValue, int newValue) {
+            if (!inBatch) {
+                renderer.showCell(row, col);
             }
         }
-        return root;
-    }
 
+        @Override
+        public void marksChanged(int row, int col, int oldMarks, int newMarks) {
+            if (!inBatch) {
+                renderer.showCell(row, col);
+            }
+        }
 
-    public BorderPane getBorderPane() {
-        return borderPane;
-    }
+        @Override
+        public void batchStarted(Batch batch) {
+            inBatch = true;
+        }
 
+        @Override
+        public void batchEnded(Batch batch) {
+            inBatch = false;
+            if (model.getSize() != shownSize) {
+                // A board of another size needs new cells and number buttons
+                initBoard();
+                borderPane.setCenter(numberPane);
+                initNumberButtons();
+                borderPane.setRight(makeNumbersPane());
+                numberPane.requestFocus();
+                return;
+            }
+            // The initial cells may have changed as well, and only differing cells are drawn
+            renderer.refresh();
+        }
+    }
 
-    private class tileCLickHandler implements EventHandler<MouseEvent>{
+    /**
+     * Arrow keys move the selection, digits and the letters for values above 9 fill the
+     * selected cell and Backspace, Delete or 0 empties it. With Shift held down, the keys
+     * change the pencil marks of the cell instead.
+     */
+    private class KeyHandler implements EventHandler<KeyEvent> {
         @Override
-        public void handle(MouseEvent event) {
-            for(int row = 0; row < SudokuUtilities.GRID_SIZE; row++) {
-                for(int col = 0; col < SudokuUtilities.GRID_SIZE; col++) {
-                    if(event.getSource() == numberTiles[row][col]) {
-                        if(event.getSource() == numberTiles[row][col]) {
-                            kontroller.cellClicked(row, col);
-                            return;
-                        }
+        public void handle(KeyEvent event) {
+            KeyCode code = event.getCode();
+            switch (code) {
+                case UP:
+                    kontroller.moveSelection(-1, 0);
+                    break;
+                case DOWN:
+                    kontroller.moveSelection(1, 0);
+                    break;
+                case LEFT:
+                    kontroller.moveSelection(0, -1);
+                    break;
+                case RIGHT:
+                    kontroller.moveSelection(0, 1);
+                    break;
+                case BACK_SPACE:
+                case DELETE:
+                    enter(0, event.isShiftDown());
+                    break;
+                default:
+                    int digit = digitOf(code);
+                    if (digit < 0 || digit > model.getSize().getGridSize()) {
                         return;
                     }
-                }
+                    enter(digit, event.isShiftDown());
+            }
+            event.consume();
+        }
+
+        private void enter(int number, boolean mark) {
+            if (mark) {
+                kontroller.enterMark(number);
+            } else {
+                kontroller.enterNumber(number);
+            }
+        }
+
+        private int digitOf(KeyCode code) {
+            // The digit keys and the keypad digits are each declared in order in KeyCode
+            if (code.compareTo(KeyCode.DIGIT0) >= 0 && code.compareTo(KeyCode.DIGIT9) <= 0) {
+                return code.ordinal() - KeyCode.DIGIT0.ordinal();
+            }
+            if (code.compareTo(KeyCode.NUMPAD0) >= 0 && code.compareTo(KeyCode.NUMPAD9) <= 0) {
+                return code.ordinal() - KeyCode.NUMPAD0.ordinal();
+            }
+            // A stands for 10, B for 11 and so on, as in the text form of a board
+            if (code.compareTo(KeyCode.A) >= 0 && code.compareTo(KeyCode.Z) <= 0) {
+                return code.ordinal() - KeyCode.A.ordinal() + 10;
             }
+            return -1;
         }
     }
 }
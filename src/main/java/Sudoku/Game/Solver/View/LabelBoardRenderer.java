@@ -0,0 +1,179 @@
+package Sudoku.Game.Solver.View;
+
+import Sudoku.Game.Solver.Controller.SudokuController;
+import Sudoku.Game.Solver.model.SudokuGrid;
+import Sudoku.Game.Solver.model.SudokuUtilities;
+import javafx.event.EventHandler;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.TilePane;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+/**
+ * Shows the board as one Label per cell, in a TilePane per box. A renderer is made for one
+ * board size.
+ */
+class LabelBoardRenderer implements BoardRenderer {
+    private static final Font GIVEN_FONT = Font.font("Monospaced", FontWeight.BOLD, 20);
+    private static final Font USER_FONT = Font.font("Monospaced", FontWeight.NORMAL, 20);
+    private static final double BOARD_SIZE = 432;
+    private static final double MIN_TILE_SIZE = 24;
+    private static final String TILE_STYLE = "-fx-border-color: black; -fx-border-width: 0.5px;";
+    private static final String SELECTED_TILE_STYLE = TILE_STYLE + " -fx-background-color: lightblue;";
+
+    private final SudokuGrid model;
+    private final SudokuController kontroller;
+    private final int size;
+    private final int boxSize;
+    private final double tileSize;
+    private final Font markFont;
+    private final String[] cellTexts;
+    private final int[] shownMarks;
+    private final Label[][] numberTiles;
+    private final TilePane numberPane;
+    private Label selectedTile;
+
+    LabelBoardRenderer(SudokuGrid model, SudokuController kontroller) {
+        this.model = model;
+        this.kontroller = kontroller;
+        size = model.getSize().getGridSize();
+        boxSize = model.getSize().getBoxSize();
+        tileSize = Math.max(MIN_TILE_SIZE, Math.floor(BOARD_SIZE / size)); // 48 on a 9x9 board
+        // Room for a box of marks with a space between them
+        markFont = Font.font("Monospaced", FontWeight.NORMAL, Math.floor(tileSize / (1.4 * boxSize)));
+        shownMarks = new int[size * size];
+        cellTexts = new String[size + 1];
+        cellTexts[0] = " ";
+        for (int value = 1; value <= size; value++) {
+            cellTexts[value] = String.valueOf(SudokuUtilities.convertIntToSudokuChar(value));
+        }
+        numberTiles = new Label[size][size];
+        initNumberTiles();
+        numberPane = makeNumberPane();
+    }
+
+    @Override
+    public Node getNode() {
+        return numberPane;
+    }
+
+    // called by constructor (only)
+    private void initNumberTiles() {
+        EventHandler<MouseEvent> clickHandler = new tileCLickHandler(); // shared by all tiles
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Label tile = new Label();
+                tile.setPrefWidth(tileSize);
+                tile.setPrefHeight(tileSize);
+                tile.setAlignment(Pos.CENTER);
+                tile.setStyle(TILE_STYLE); // css style
+                tile.setUserData(row * size + col); // the cell index, read by the click handler
+                tile.setOnMouseClicked(clickHandler); // add your custom event handler
+                // add new tile to grid
+                numberTiles[row][col] = tile;
+                showCell(row, col);
+            }
+        }
+    }
+
+    /**
+     * Updates the label of a cell from the model. The text and font are only set when they
+     * differ, so unchanged labels are not laid out again.
+     */
+    @Override
+    public void showCell(int row, int col) {
+        Label tile = numberTiles[row][col];
+        int value = model.getUserValue(row, col);
+        int marks = value == 0 ? model.getMarks(row, col) : 0;
+        int cell = row * size + col;
+        if (marks != 0) {
+            if (marks != shownMarks[cell] || tile.getFont() != markFont) {
+                tile.setText(marksText(marks));
+                tile.setFont(markFont);
+            }
+            shownMarks[cell] = marks;
+            return;
+        }
+        shownMarks[cell] = 0;
+        String text = cellTexts[value];
+        if (!text.equals(tile.getText())) {
+            tile.setText(text);
+        }
+        Font font = model.isTileEditable(row, col) ? USER_FONT : GIVEN_FONT;
+        if (tile.getFont() != font) {
+            tile.setFont(font);
+        }
+    }
+
+    /**
+     * Lays out the marked values as a square of the size of a box, a space for every value
+     * that is not marked.
+     */
+    private String marksText(int marks) {
+        StringBuilder text = new StringBuilder(2 * size);
+        for (int value = 1; value <= size; value++) {
+            text.append((marks & 1 << (value - 1)) != 0 ? cellTexts[value] : " ");
+            if (value < size) {
+                text.append(value % boxSize == 0 ? '\n' : ' ');
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void showSelection(int row, int col) {
+        if (selectedTile != null) {
+            selectedTile.setStyle(TILE_STYLE);
+        }
+        selectedTile = numberTiles[row][col];
+        selectedTile.setStyle(SELECTED_TILE_STYLE);
+    }
+
+    @Override
+    public void refresh() {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                showCell(row, col);
+            }
+        }
+    }
+
+    private TilePane makeNumberPane() {
+        // create the root tile pane
+        TilePane root = new TilePane();
+        root.setPrefColumns(boxSize);
+        root.setPrefRows(boxSize);
+        root.setStyle(
+                "-fx-border-color: black; -fx-border-width: 1.0px; -fx-background-color: white;");
+
+        for (int srow = 0; srow < boxSize; srow++) {
+            for (int scol = 0; scol < boxSize; scol++) {
+                TilePane section = new TilePane();
+                section.setPrefColumns(boxSize);
+                section.setPrefRows(boxSize);
+                section.setStyle( "-fx-border-color: black; -fx-border-width: 0.5px;");
+
+                for (int row = 0; row < boxSize; row++) {
+                    for (int col = 0; col < boxSize; col++) {
+                        section.getChildren().add(
+                                numberTiles[srow * boxSize + row][scol * boxSize + col]);
+                    }
+                }
+                root.getChildren().add(section);
+            }
+        }
+        return root;
+    }
+
+    private class tileCLickHandler implements EventHandler<MouseEvent>{
+        @Override
+        public void handle(MouseEvent event) {
+            int cell = (Integer) ((Node) event.getSource()).getUserData();
+            numberPane.requestFocus(); // so that the keyboard can be used from here on
+            kontroller.cellClicked(cell / size, cell % size);
+        }
+    }
+}
@@ -18,7 +18,7 @@ import java.util.Optional;
 public class SudokuView {
 
 
-    private static SudokuGrid model;
+    private final SudokuGrid model;
     private Button clearbutton;
     private SudokuController controller;
     private GridView gridView;
@@ -31,9 +31,19 @@ public class SudokuView {
 
 
     public SudokuView(SudokuGrid model) {
+        this(model, false);
+    }
+
+    /**
+     * Creates the view of a game.
+     *
+     * @param model       The game.
+     * @param canvasBoard true to paint the board on a single Canvas, false to show a Label per cell.
+     */
+    public SudokuView(SudokuGrid model, boolean canvasBoard) {
         this.model = model;
         this.controller = new SudokuController(model, this);
-        this.gridView = new GridView(this.model, this.controller);
+        this.gridView = new GridView(this.model, this.controller, canvasBoard);
         sudokuBoard = gridView.getBorderPane();
         alert = new Alert(Alert.AlertType.CONFIRMATION);
     }
@@ -55,11 +65,22 @@ public class SudokuView {
         return result.isPresent() && result.get() == ButtonType.OK;
     }
 
+    /**
+     * Brings every cell on screen up to date with the model. Changes made through the model
+     * are shown as they happen, so this is only needed if the view may have missed some.
+     */
     public void updateView() {
-        gridView = new GridView(model, controller);
-        sudokuBoard.setCenter(gridView.getNumberPane());
-
+        gridView.refresh();
+    }
 
+    /**
+     * Highlights the cell that keyboard input goes to.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     */
+    public void showSelection(int row, int col) {
+        gridView.showSelection(row, col);
     }
 
     public File getFiletoSave() {
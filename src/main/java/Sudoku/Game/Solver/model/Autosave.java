@@ -0,0 +1,487 @@
+package Sudoku.Game.Solver.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Saves a game on every move, a few bytes per change, so that it can be restored when the
+ * program is started again, even after a crash.
+ *
+ * The game is kept in two files in a directory: a checkpoint, which is the whole game in the
+ * format of {@link FileHandler}, and a log of the changes made since. Every change of a value
+ * or of the pencil marks of a cell is one record in the log, holding what the cell holds
+ * after the change, so a record replayed twice does no harm:
+ * <pre>
+ * value record  one int: cell index in bits 0-9, value in bits 10-14, bit 31 clear
+ * marks record  one int: cell index in bits 0-9, bit 31 set; then the marks as an int
+ * </pre>
+ * The records are gathered as the changes are reported to this listener and written by a
+ * background thread once per commit interval, as one frame: the number of bytes of its
+ * records, their CRC-32 and the records. Each frame is forced to disk before the next one is
+ * gathered, so a crash loses at most the changes of the last interval. A frame cut off by a
+ * crash does not match its checksum, and the log is replayed up to it.
+ *
+ * When the log has grown past its limit, when another game replaces the current one and when
+ * autosave is closed, the writer takes a {@link SudokuGrid#snapshot()}, writes it as the new
+ * checkpoint and starts a new log. Both files begin with a magic number and a generation, and
+ * a log is only replayed onto the checkpoint of its own generation, so a crash between writing
+ * the two never replays the moves of one game onto another. Each file is written to a
+ * temporary file first and then moved into place.
+ *
+ * Only the state of the game is saved, not the moves that could be undone.
+ */
+public final class Autosave implements CellChangeListener, Closeable {
+    /** The default time between two writes of the log, in milliseconds. */
+    public static final long DEFAULT_COMMIT_MILLIS = 100;
+    /** The default size of the log in bytes after which a new checkpoint is written. */
+    public static final int DEFAULT_COMPACT_BYTES = 64 * 1024;
+    private static final String CHECKPOINT = "checkpoint.sudoku";
+    private static final String LOG = "moves.log";
+    private static final int CHECKPOINT_MAGIC = 0x53444B43; // "SDKC"
+    private static final int LOG_MAGIC = 0x53444B4C; // "SDKL"
+    private static final int FILE_HEADER_SIZE = 12;
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int CELL_BITS = 10;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    private static final int MARKS_RECORD = 1 << 31;
+
+    private final Path directory;
+    private final SudokuGrid grid;
+    private final long commitMillis;
+    private final int compactBytes;
+    private final Thread writer;
+
+    // Guards the fields below it; held by the listener only to add records, never while writing
+    private final Object lock = new Object();
+    private int[] pending = new int[256]; // Records gathered since the last write
+    private int[] spare = new int[256]; // The array being written, swapped with pending
+    private int pendingCount;
+    private long gathered;
+    private long saved; // Changes written to the log or covered by a checkpoint
+    private boolean replacing; // Another game is coming in; it goes to the next checkpoint whole
+    private long replacements; // Games replaced, each needing a checkpoint
+    private long checkpointed; // Replacements covered by a checkpoint
+    private boolean flushRequested;
+    private boolean closing;
+    private boolean stopped;
+    private IOException failure;
+
+    // Used by the writer thread only, or before it starts and after it ends
+    private long generation;
+    private FileChannel log;
+    private long logSize;
+    private ByteBuffer frame = ByteBuffer.allocateDirect(4096);
+    private final CRC32 crc = new CRC32();
+
+    private Autosave(Path directory, SudokuGrid grid, long commitMillis, int compactBytes) {
+        this.directory = directory;
+        this.grid = grid;
+        this.commitMillis = commitMillis;
+        this.compactBytes = compactBytes;
+        writer = new Thread(this::write, "autosave");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Starts saving a game with the default commit interval and log size.
+     *
+     * @see #start(Path, SudokuGrid, long, int)
+     */
+    public static Autosave start(Path directory, SudokuGrid grid) throws IOException {
+        return start(directory, grid, DEFAULT_COMMIT_MILLIS, DEFAULT_COMPACT_BYTES);
+    }
+
+    /**
+     * Starts saving a game: writes it as a checkpoint, replacing any game saved in the
+     * directory, and from then on logs every change to it.
+     *
+     * @param directory    The directory to keep the files in, created if it does not exist.
+     * @param grid         The game to save.
+     * @param commitMillis The time between two writes of the log, in milliseconds.
+     * @param compactBytes The size of the log in bytes after which a new checkpoint is written.
+     * @return The running autosave, to be closed when the game ends.
+     * @throws IOException If the first checkpoint cannot be written.
+     */
+    public static Autosave start(Path directory, SudokuGrid grid, long commitMillis, int compactBytes) throws IOException {
+        Files.createDirectories(directory);
+        Autosave autosave = new Autosave(directory, grid, commitMillis, compactBytes);
+        autosave.generation = Math.max(readGeneration(directory.resolve(CHECKPOINT), CHECKPOINT_MAGIC),
+                readGeneration(directory.resolve(LOG), LOG_MAGIC));
+        // Listening first, so that no change made while the checkpoint is written is missed
+        grid.addChangeListener(autosave);
+        try {
+            autosave.checkpoint();
+        } catch (IOException e) {
+            grid.removeChangeListener(autosave);
+            autosave.closeLog();
+            throw e;
+        }
+        autosave.writer.start();
+        return autosave;
+    }
+
+    /**
+     * Restores the game saved in a directory: the checkpoint with the changes of its log.
+     *
+     * @param directory The directory given to {@link #start}.
+     * @return The restored game, with no moves to undo, or null if no game is saved there.
+     * @throws IOException If the files cannot be read or the checkpoint is not a saved game.
+     */
+    public static SudokuGrid recover(Path directory) throws IOException {
+        ByteBuffer checkpoint;
+        try {
+            checkpoint = ByteBuffer.wrap(Files.readAllBytes(directory.resolve(CHECKPOINT)));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (checkpoint.remaining() < FILE_HEADER_SIZE || checkpoint.getInt() != CHECKPOINT_MAGIC) {
+            throw new IOException("Not an autosaved game");
+        }
+        long generation = checkpoint.getLong();
+        SudokuGrid grid = FileHandler.read(checkpoint);
+        ByteBuffer log;
+        try {
+            log = ByteBuffer.wrap(Files.readAllBytes(directory.resolve(LOG)));
+        } catch (NoSuchFileException e) {
+            return grid;
+        }
+        if (log.remaining() >= FILE_HEADER_SIZE && log.getInt() == LOG_MAGIC && log.getLong() == generation) {
+            replay(grid, log);
+        }
+        grid.getJournal().clear(); // a restored game starts without moves to undo
+        return grid;
+    }
+
+    /**
+     * Applies the frames of a log to a game, up to the first frame that is cut off or does
+     * not match its checksum.
+     */
+    private static void replay(SudokuGrid grid, ByteBuffer log) {
+        SudokuSize size = grid.getSize();
+        int gridSize = size.getGridSize();
+        CRC32 crc = new CRC32();
+        while (log.remaining() >= FRAME_HEADER_SIZE) {
+            int bytes = log.getInt();
+            int checksum = log.getInt();
+            if (bytes < 0 || bytes % 4 != 0 || bytes > log.remaining()) {
+                return;
+            }
+            ByteBuffer records = log.slice(log.position(), bytes);
+            crc.reset();
+            crc.update(records.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return;
+            }
+            log.position(log.position() + bytes);
+            while (records.hasRemaining()) {
+                int record = records.getInt();
+                int cell = record & CELL_MASK;
+                if (cell >= size.getCellCount()) {
+                    return;
+                }
+                if ((record & MARKS_RECORD) != 0) {
+                    int marks = records.hasRemaining() ? records.getInt() : -1;
+                    if ((marks & ~size.getAllValues()) != 0) {
+                        return;
+                    }
+                    grid.setMarks(cell / gridSize, cell % gridSize, marks);
+                } else {
+                    int value = record >>> CELL_BITS;
+                    if (value > gridSize) {
+                        return;
+                    }
+                    // As an entry of the journal, so that the value is not removed from the marks of its units
+                    grid.applyEntry(MoveJournal.valueEntry(cell, grid.getUserValue(cell / gridSize, cell % gridSize), value));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the generation of a checkpoint or a log.
+     *
+     * @return The generation, or zero if there is no such file.
+     */
+    private static long readGeneration(Path file, int magic) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is full or the file ends
+            }
+            header.flip();
+            return header.remaining() == FILE_HEADER_SIZE && header.getInt() == magic ? header.getLong() : 0;
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void cellChanged(int row, int col, int oldValue, int newValue) {
+        gather(row, col, false);
+    }
+
+    @Override
+    public void marksChanged(int row, int col, int oldMarks, int newMarks) {
+        gather(row, col, true);
+    }
+
+    @Override
+    public void batchStarted(Batch batch) {
+        if (batch != Batch.CLEAR) {
+            synchronized (lock) {
+                replacing = true;
+            }
+        }
+    }
+
+    @Override
+    public void batchEnded(Batch batch) {
+        if (batch != Batch.CLEAR) {
+            synchronized (lock) {
+                // The records not yet written belong to the game that was replaced
+                replacing = false;
+                pendingCount = 0;
+                replacements++;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Adds the record of a changed cell. The value or marks are read here rather than taken
+     * from the event: moves on other threads may remove marks from the same cell at once and
+     * report them in another order, but the last record of a cell is always gathered after its
+     * last change.
+     */
+    private void gather(int row, int col, boolean marks) {
+        synchronized (lock) {
+            if (replacing || closing) {
+                return;
+            }
+            if (pendingCount + 2 > pending.length) {
+                pending = Arrays.copyOf(pending, 2 * pending.length);
+            }
+            int cell = row * grid.getSize().getGridSize() + col;
+            if (marks) {
+                pending[pendingCount++] = MARKS_RECORD | cell;
+                pending[pendingCount++] = grid.getMarks(row, col);
+            } else {
+                pending[pendingCount++] = cell | grid.getUserValue(row, col) << CELL_BITS;
+            }
+            gathered++;
+        }
+    }
+
+    /**
+     * Writes the changes gathered so far without waiting for the end of the commit interval,
+     * and waits until they are on disk.
+     *
+     * @throws IOException If the log could not be written.
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            long target = gathered;
+            long replaced = replacements;
+            flushRequested = true;
+            lock.notifyAll();
+            while ((saved < target || checkpointed < replaced) && !stopped) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while flushing the autosave log");
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Stops saving the game. A last checkpoint is written, so the log is empty afterwards.
+     *
+     * @throws IOException If the log or the last checkpoint could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        grid.removeChangeListener(this);
+        synchronized (lock) {
+            closing = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the autosave");
+        }
+        closeLog();
+        synchronized (lock) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Writes the log once per commit interval, and a checkpoint when one is needed, until
+     * autosave is closed or a write fails.
+     */
+    private void write() {
+        try {
+            while (true) {
+                boolean last;
+                boolean newGame;
+                synchronized (lock) {
+                    if (!closing && checkpointed == replacements && !flushRequested) {
+                        lock.wait(commitMillis);
+                    }
+                    flushRequested = false;
+                    last = closing;
+                    newGame = checkpointed < replacements;
+                }
+                if (last) {
+                    checkpoint();
+                    return;
+                }
+                if (newGame) {
+                    checkpoint();
+                } else {
+                    commit();
+                    if (logSize > compactBytes) {
+                        checkpoint();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (lock) {
+                closing = true;
+                stopped = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes the gathered records to the log as one frame and forces it to disk.
+     */
+    private void commit() throws IOException {
+        int[] records;
+        int count;
+        long upTo;
+        synchronized (lock) {
+            if (pendingCount == 0) {
+                markSaved(gathered);
+                return;
+            }
+            records = pending;
+            count = pendingCount;
+            upTo = gathered;
+            pending = spare;
+            pendingCount = 0;
+            spare = records;
+        }
+        int bytes = count * 4;
+        if (frame.capacity() < FRAME_HEADER_SIZE + bytes) {
+            frame = ByteBuffer.allocateDirect(Integer.highestOneBit(FRAME_HEADER_SIZE + bytes) << 1);
+        }
+        frame.clear().position(FRAME_HEADER_SIZE);
+        for (int i = 0; i < count; i++) {
+            frame.putInt(records[i]);
+        }
+        frame.flip();
+        crc.reset();
+        crc.update(frame.slice(FRAME_HEADER_SIZE, bytes));
+        frame.putInt(0, bytes).putInt(4, (int) crc.getValue());
+        while (frame.hasRemaining()) {
+            log.write(frame);
+        }
+        log.force(false);
+        logSize += FRAME_HEADER_SIZE + bytes;
+        synchronized (lock) {
+            markSaved(upTo);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the game as the new checkpoint and starts a new, empty log. The
+     * records gathered before the snapshot are in it, so they are dropped; those gathered
+     * after go to the new log, even if the snapshot has them too.
+     */
+    private void checkpoint() throws IOException {
+        long covered;
+        long replaced;
+        synchronized (lock) {
+            covered = gathered;
+            replaced = replacements;
+            pendingCount = 0;
+        }
+        ByteBuffer game = FileHandler.write(grid.snapshot());
+        generation++;
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(CHECKPOINT_MAGIC).putLong(generation).flip();
+        replace(CHECKPOINT, header, game);
+        closeLog();
+        header.clear();
+        header.putInt(LOG_MAGIC).putLong(generation).flip();
+        replace(LOG, header);
+        log = FileChannel.open(directory.resolve(LOG), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        logSize = FILE_HEADER_SIZE;
+        synchronized (lock) {
+            checkpointed = replaced;
+            markSaved(covered);
+        }
+    }
+
+    /**
+     * Replaces a file with the given contents: they are written to a temporary file, forced
+     * to disk and moved into place, so the file is either the old one or the new one.
+     */
+    private void replace(String name, ByteBuffer... contents) throws IOException {
+        Path file = directory.resolve(name);
+        Path temporary = directory.resolve(name + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ByteBuffer buffer : contents) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void closeLog() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    /**
+     * Notes that the changes gathered up to a count are saved and wakes the threads that flush.
+     * The caller holds the lock.
+     */
+    private void markSaved(long upTo) {
+        saved = Math.max(saved, upTo);
+        lock.notifyAll();
+    }
+}
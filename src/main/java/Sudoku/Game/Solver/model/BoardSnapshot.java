@@ -0,0 +1,159 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * The state of a game at one moment: the values, the solution, the initial cells, the pencil
+ * marks and the level. A snapshot never changes, so it can be saved, checked or sent while the
+ * game goes on, from any thread.
+ *
+ * A snapshot is taken by {@link SudokuGrid#snapshot()} in constant time: it shares the packed
+ * words of the board, and the grid copies them only when it is changed next. Snapshots taken
+ * while the game does not change are the same object.
+ */
+public final class BoardSnapshot {
+    private final SudokuBoard board;
+    private final SudokuUtilities.SudokuLevel level;
+
+    BoardSnapshot(SudokuBoard board, SudokuUtilities.SudokuLevel level) {
+        this.board = board;
+        this.level = level;
+    }
+
+    /**
+     * Gets the board the snapshot reads from, which must not be changed.
+     */
+    SudokuBoard board() {
+        return board;
+    }
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return The board size.
+     */
+    public SudokuSize getSize() {
+        return board.getSize();
+    }
+
+    /**
+     * Gets the difficulty level of the game.
+     *
+     * @return The level.
+     */
+    public SudokuUtilities.SudokuLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the value of a cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return The value of the cell, zero if it is empty.
+     */
+    public int getValue(int row, int col) {
+        return board.getValue(row, col);
+    }
+
+    /**
+     * Gets the correct value of a cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return The value of the cell in the solution.
+     */
+    public int getSolution(int row, int col) {
+        return board.getSolution(row, col);
+    }
+
+    /**
+     * Checks if a cell was given from the start.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return true if the cell is an initial cell; false otherwise.
+     */
+    public boolean isGiven(int row, int col) {
+        return board.isGiven(row, col);
+    }
+
+    /**
+     * Gets the pencil marks of a cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return A bitmask where bit (value - 1) is set for every marked value.
+     */
+    public int getMarks(int row, int col) {
+        return board.getMarks(row, col);
+    }
+
+    /**
+     * Gets the values that can still be placed in an empty cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return A bitmask where bit (value - 1) is set for every value that is not present in
+     *         the row, column or box, zero if the cell is filled.
+     */
+    public int getCandidates(int row, int col) {
+        return board.getCandidates(row, col);
+    }
+
+    /**
+     * Checks if a value can be placed in a cell without breaking the rules.
+     *
+     * @param row   The row of the cell (zero-based index).
+     * @param col   The column of the cell (zero-based index).
+     * @param value The value to check, from 1 to the grid size.
+     * @return true if the value is not present in the row, column or box; false otherwise.
+     */
+    public boolean isLegal(int row, int col, int value) {
+        return board.isLegal(row, col, value);
+    }
+
+    /**
+     * Gets the number of filled cells, including the initial ones.
+     *
+     * @return The number of cells with a value.
+     */
+    public int getFilledCount() {
+        return board.getFilledCount();
+    }
+
+    /**
+     * Gets the number of filled cells whose value differs from the solution.
+     *
+     * @return The number of wrong cells.
+     */
+    public int getWrongCount() {
+        return board.getWrongCount();
+    }
+
+    /**
+     * Gets the number of repeated values on the board.
+     *
+     * @return The total number of conflicts in all rows, columns and boxes.
+     */
+    public int getConflictCount() {
+        return board.getConflictCount();
+    }
+
+    /**
+     * Checks if every cell is filled with its correct value.
+     *
+     * @return true if the board is solved; false otherwise.
+     */
+    public boolean isSolved() {
+        return board.isSolved();
+    }
+
+    /**
+     * Makes a board with the state of the snapshot that may be changed. The board shares the
+     * words of the snapshot until it is changed, so this takes constant time as well.
+     *
+     * @return A new board.
+     */
+    public SudokuBoard toBoard() {
+        return board.copy();
+    }
+}
@@ -0,0 +1,71 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * Receives the changes made to the cells of a {@link SudokuGrid}, so that views, autosave
+ * or network sync can react to what has changed instead of reading the whole board.
+ *
+ * Every change of a user value is reported with {@link #cellChanged}, and every change of the
+ * pencil marks of a cell with {@link #marksChanged}; when a value is placed, the marks it
+ * removes from the other cells of its row, column and box are reported after it. Operations that
+ * change many cells at once report each changed cell between {@link #batchStarted} and
+ * {@link #batchEnded}; when a batch ends, the initial cells and solution may have changed
+ * too. If a batch changes the size of the board, no cell changes are reported for it.
+ * Events are delivered on the thread that changed the grid and nothing is allocated to
+ * deliver them. Threads that make moves at the same time deliver their events at the same
+ * time, while the changed cells are locked, so a listener may read cells but must not change
+ * the grid or read it as a whole with {@link SudokuGrid#snapshot()} or a hint.
+ */
+public interface CellChangeListener {
+
+    /**
+     * The operations that change many cells at once.
+     */
+    enum Batch {
+        /** All editable cells are emptied. */
+        CLEAR,
+        /**
+         * A new puzzle, possibly of another size, replaces the current one, or an earlier
+         * game is brought back by undo or redo.
+         */
+        NEW_GAME,
+        /** The state of another grid is copied, for example when a game is loaded. */
+        COPY_STATE
+    }
+
+    /**
+     * Called after the user value of a cell has changed.
+     *
+     * @param row      The row of the cell (zero-based index).
+     * @param col      The column of the cell (zero-based index).
+     * @param oldValue The previous value, zero if the cell was empty.
+     * @param newValue The new value, zero if the cell is now empty.
+     */
+    void cellChanged(int row, int col, int oldValue, int newValue);
+
+    /**
+     * Called after the pencil marks of a cell have changed.
+     *
+     * @param row      The row of the cell (zero-based index).
+     * @param col      The column of the cell (zero-based index).
+     * @param oldMarks The previous marks, bit (value - 1) set for every marked value.
+     * @param newMarks The new marks.
+     */
+    default void marksChanged(int row, int col, int oldMarks, int newMarks) {
+    }
+
+    /**
+     * Called before the cell changes of a batch are reported.
+     *
+     * @param batch The operation.
+     */
+    default void batchStarted(Batch batch) {
+    }
+
+    /**
+     * Called after the last cell change of a batch has been reported.
+     *
+     * @param batch The operation.
+     */
+    default void batchEnded(Batch batch) {
+    }
+}
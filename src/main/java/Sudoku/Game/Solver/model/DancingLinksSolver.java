@@ -0,0 +1,291 @@
+package Sudoku.Game.Solver.model;
+
+import java.util.Arrays;
+
+/**
+ * Solves Sudoku as an exact cover problem with Knuth's Algorithm X on dancing links.
+ *
+ * Every candidate (cell, value) is a row of the matrix that covers four constraints: the cell
+ * is filled, and the value occurs in the row, in the column and in the box. The nodes are kept
+ * in parallel int arrays instead of objects, allocated once for the largest matrix of the size.
+ * For each board the matrix is linked again in those arrays with only the constraints the
+ * initial values leave open and only the candidates they leave legal, which is much less work
+ * than covering the initial values in a full matrix. The search then always branches on the
+ * constraint with the fewest rows left.
+ */
+public class DancingLinksSolver implements SudokuSolver {
+    private static final int ROOT = 0;
+    private static final int NODES_PER_ROW = 4;
+
+    private final SudokuSize size;
+    private final int gridSize;
+    private final int cellCount;
+    private final int unitCount;
+    private final int allValues;
+    private final int firstNode;
+    // Shared lookup tables of the size, see SudokuSize
+    private final int[] rowUnit;
+    private final int[] colUnit;
+    private final int[] boxUnit;
+
+    // Links of the column headers and of the nodes after them; the root is 0. Column 1 + cell
+    // is the constraint that the cell is filled, column 1 + cellCount + unit * gridSize + value - 1
+    // the constraint that the value occurs in the unit.
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    // Column header of every node, number of rows left in every column, and cell and value of every row
+    private final int[] column;
+    private final int[] columnSize;
+    private final int[] rowCell;
+    private final int[] rowValue;
+    // The values present in every unit of the board being solved
+    private final int[] unitMasks;
+
+    // Search state: the solution being built
+    private final int[] solution;
+    private int limit;
+    private int found;
+    // Searches left before the current search gives up, see countSolutions(int[], int, long)
+    private long searchesLeft;
+    private boolean keepSolution;
+    private SolutionHandler handler;
+
+    /**
+     * Creates a solver for classic 9x9 boards.
+     */
+    public DancingLinksSolver() {
+        this(SudokuSize.CLASSIC);
+    }
+
+    /**
+     * Creates a solver for boards of the given size.
+     *
+     * @param size The size of the boards.
+     */
+    public DancingLinksSolver(SudokuSize size) {
+        this.size = size;
+        gridSize = size.getGridSize();
+        cellCount = size.getCellCount();
+        unitCount = size.getUnitCount();
+        allValues = size.getAllValues();
+        rowUnit = size.rowUnit;
+        colUnit = size.colUnit;
+        boxUnit = size.boxUnit;
+        int columns = NODES_PER_ROW * cellCount;
+        firstNode = columns + 1;
+        int rows = cellCount * gridSize;
+        int nodeCount = firstNode + NODES_PER_ROW * rows;
+        left = new int[nodeCount];
+        right = new int[nodeCount];
+        up = new int[nodeCount];
+        down = new int[nodeCount];
+        column = new int[nodeCount];
+        columnSize = new int[columns + 1];
+        rowCell = new int[rows];
+        rowValue = new int[rows];
+        unitMasks = new int[unitCount];
+        solution = new int[cellCount];
+    }
+
+    @Override
+    public SudokuSize getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean solve(int[] values) {
+        if (search(values, 1, null, true, Long.MAX_VALUE) == 0) {
+            return false;
+        }
+        System.arraycopy(solution, 0, values, 0, cellCount);
+        return true;
+    }
+
+    @Override
+    public int findSolutions(int[] values, int limit, SolutionHandler handler) {
+        return search(values, limit, handler, false, Long.MAX_VALUE);
+    }
+
+    @Override
+    public int countSolutions(int[] values, int limit, long maxSearches) {
+        int count = search(values, limit, null, false, maxSearches);
+        return searchesLeft < 0 && count < limit ? -1 : count;
+    }
+
+    private int search(int[] values, int limit, SolutionHandler handler, boolean keepSolution, long maxSearches) {
+        if (values.length != cellCount) {
+            throw new IllegalArgumentException("Expected " + cellCount + " values, got " + values.length);
+        }
+        found = 0;
+        searchesLeft = maxSearches;
+        if (!link(values) || limit <= 0) {
+            return 0;
+        }
+        this.limit = limit;
+        this.handler = handler;
+        this.keepSolution = keepSolution;
+        System.arraycopy(values, 0, solution, 0, cellCount);
+        try {
+            search();
+        } finally {
+            this.handler = null;
+        }
+        return found;
+    }
+
+    /**
+     * Links the matrix for a board: the open constraints as columns, and a row for every legal
+     * value of every empty cell.
+     *
+     * @return false if the initial values repeat a value in a unit; true otherwise.
+     */
+    private boolean link(int[] values) {
+        Arrays.fill(unitMasks, 0);
+        for (int cell = 0; cell < cellCount; cell++) {
+            int value = values[cell];
+            if (value == 0) {
+                continue;
+            }
+            if (value < 0 || value > gridSize) {
+                throw new IllegalArgumentException("Invalid cell value " + value);
+            }
+            int bit = 1 << (value - 1);
+            if (((unitMasks[rowUnit[cell]] | unitMasks[colUnit[cell]] | unitMasks[boxUnit[cell]]) & bit) != 0) {
+                return false;
+            }
+            unitMasks[rowUnit[cell]] |= bit;
+            unitMasks[colUnit[cell]] |= bit;
+            unitMasks[boxUnit[cell]] |= bit;
+        }
+
+        int last = ROOT;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (values[cell] == 0) {
+                last = appendColumn(last, 1 + cell);
+            }
+        }
+        for (int unit = 0; unit < unitCount; unit++) {
+            int missing = allValues & ~unitMasks[unit];
+            while (missing != 0) {
+                int bit = missing & -missing;
+                missing ^= bit;
+                last = appendColumn(last, 1 + cellCount + unit * gridSize + Integer.numberOfTrailingZeros(bit));
+            }
+        }
+        right[last] = ROOT;
+        left[ROOT] = last;
+
+        int node = firstNode;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (values[cell] != 0) {
+                continue;
+            }
+            int candidates = allValues & ~(unitMasks[rowUnit[cell]] | unitMasks[colUnit[cell]] | unitMasks[boxUnit[cell]]);
+            while (candidates != 0) {
+                int bit = candidates & -candidates;
+                candidates ^= bit;
+                int value = Integer.numberOfTrailingZeros(bit);
+                int row = (node - firstNode) / NODES_PER_ROW;
+                rowCell[row] = cell;
+                rowValue[row] = value + 1;
+                // The cell, and the value in the row, the column and the box
+                appendNode(node, 1 + cell);
+                appendNode(node + 1, 1 + cellCount + rowUnit[cell] * gridSize + value);
+                appendNode(node + 2, 1 + cellCount + colUnit[cell] * gridSize + value);
+                appendNode(node + 3, 1 + cellCount + boxUnit[cell] * gridSize + value);
+                for (int i = 0; i < NODES_PER_ROW; i++) {
+                    left[node + i] = node + (i + NODES_PER_ROW - 1) % NODES_PER_ROW;
+                    right[node + i] = node + (i + 1) % NODES_PER_ROW;
+                }
+                node += NODES_PER_ROW;
+            }
+        }
+        return true;
+    }
+
+    private int appendColumn(int last, int col) {
+        right[last] = col;
+        left[col] = last;
+        up[col] = col;
+        down[col] = col;
+        columnSize[col] = 0;
+        return col;
+    }
+
+    /**
+     * Appends a node at the bottom of a column.
+     */
+    private void appendNode(int node, int col) {
+        column[node] = col;
+        up[node] = up[col];
+        down[node] = col;
+        down[up[col]] = node;
+        up[col] = node;
+        columnSize[col]++;
+    }
+
+    private void search() {
+        if (--searchesLeft < 0) {
+            return;
+        }
+        if (right[ROOT] == ROOT) {
+            found++;
+            if (handler != null) {
+                handler.solutionFound(solution);
+            }
+            return;
+        }
+        // Branch on the constraint with the fewest candidates left
+        int best = right[ROOT];
+        for (int col = right[best]; col != ROOT && columnSize[best] > 1; col = right[col]) {
+            if (columnSize[col] < columnSize[best]) {
+                best = col;
+            }
+        }
+        if (columnSize[best] == 0) {
+            return;
+        }
+        cover(best);
+        for (int node = down[best]; node != best && found < limit && searchesLeft >= 0; node = down[node]) {
+            for (int other = right[node]; other != node; other = right[other]) {
+                cover(column[other]);
+            }
+            int row = (node - firstNode) / NODES_PER_ROW;
+            solution[rowCell[row]] = rowValue[row];
+            search();
+            if (!(keepSolution && found > 0)) {
+                solution[rowCell[row]] = 0;
+            }
+            for (int other = left[node]; other != node; other = left[other]) {
+                uncover(column[other]);
+            }
+        }
+        uncover(best);
+    }
+
+    private void cover(int col) {
+        right[left[col]] = right[col];
+        left[right[col]] = left[col];
+        for (int row = down[col]; row != col; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                up[down[node]] = up[node];
+                down[up[node]] = down[node];
+                columnSize[column[node]]--;
+            }
+        }
+    }
+
+    private void uncover(int col) {
+        for (int row = up[col]; row != col; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                columnSize[column[node]]++;
+                up[down[node]] = node;
+                down[up[node]] = node;
+            }
+        }
+        right[left[col]] = col;
+        left[right[col]] = col;
+    }
+}
@@ -0,0 +1,156 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * Rates how hard a puzzle is for a person by solving it with the techniques of
+ * {@link Technique}, always using the easiest one that makes progress.
+ *
+ * The score is the sum of the weights of the techniques of all steps, so it grows both with
+ * the hardest technique needed and with the number of steps. If no technique applies before
+ * the puzzle is solved, the rating stops there and {@link Technique#TRIAL_AND_ERROR} is the
+ * hardest technique. The level of a puzzle follows from its hardest technique, see
+ * {@link #levelOf(Technique)}; the score tells puzzles of the same level apart.
+ *
+ * The rater works on bitmask candidates and allocates nothing after construction. It is not
+ * thread-safe; use one instance per thread.
+ */
+public class DifficultyRater {
+    private final LogicSolver solver;
+    private final int[] givens; // Scratch for rate(Puzzle)
+    private int score;
+    private Technique hardest;
+    private int steps;
+
+    /**
+     * Creates a rater for classic 9x9 puzzles.
+     */
+    public DifficultyRater() {
+        this(SudokuSize.CLASSIC);
+    }
+
+    /**
+     * Creates a rater for puzzles of the given size.
+     *
+     * @param size The size of the puzzles.
+     */
+    public DifficultyRater(SudokuSize size) {
+        solver = new LogicSolver(size);
+        givens = new int[size.getCellCount()];
+    }
+
+    /**
+     * Rates a puzzle. The hardest technique and the number of steps can be read afterwards.
+     *
+     * @param givens The initial values, one per cell in row-major order, zero for an empty cell.
+     * @return The score of the puzzle.
+     * @throws IllegalArgumentException If the array does not match the size of the rater.
+     */
+    public int rate(int[] givens) {
+        if (givens.length != solver.getSize().getCellCount()) {
+            throw new IllegalArgumentException("Expected " + solver.getSize().getCellCount() + " values, got " + givens.length);
+        }
+        solver.load(givens);
+        score = 0;
+        hardest = null;
+        steps = 0;
+        while (!solver.isSolved()) {
+            Technique technique = solver.step() ? solver.getTechnique() : Technique.TRIAL_AND_ERROR;
+            score += technique.getWeight();
+            steps++;
+            if (hardest == null || technique.compareTo(hardest) > 0) {
+                hardest = technique;
+            }
+            if (technique == Technique.TRIAL_AND_ERROR) {
+                break;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Rates a puzzle.
+     *
+     * @param puzzle The puzzle, of the size of the rater.
+     * @return The score of the puzzle.
+     * @throws IllegalArgumentException If the puzzle has another size.
+     */
+    public int rate(Puzzle puzzle) {
+        if (puzzle.getSize() != solver.getSize()) {
+            throw new IllegalArgumentException("Expected a " + solver.getSize() + " puzzle, got " + puzzle.getSize());
+        }
+        puzzle.copyGivens(givens);
+        return rate(givens);
+    }
+
+    /**
+     * Gets the score of the last rated puzzle.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the hardest technique the last rated puzzle needed.
+     *
+     * @return The technique, or null if the puzzle had no empty cells.
+     */
+    public Technique getHardestTechnique() {
+        return hardest;
+    }
+
+    /**
+     * Gets the number of steps taken to solve the last rated puzzle.
+     *
+     * @return The number of steps, counting the one that needed trial and error, if any.
+     */
+    public int getStepCount() {
+        return steps;
+    }
+
+    /**
+     * Checks if the last rated puzzle was solved with the techniques alone.
+     *
+     * @return true if the puzzle needs no trial and error; false otherwise.
+     */
+    public boolean isSolvedLogically() {
+        return hardest != Technique.TRIAL_AND_ERROR;
+    }
+
+    /**
+     * Gets the level of the last rated puzzle.
+     *
+     * @return The level.
+     */
+    public SudokuUtilities.SudokuLevel getLevel() {
+        return levelOf(hardest);
+    }
+
+    /**
+     * Gets the level of a puzzle from the hardest technique it needs. Puzzles that only need
+     * singles are easy, puzzles that need pointing or pairs are medium, and puzzles that need
+     * a fish, a chain or trial and error are hard.
+     *
+     * @param hardest The hardest technique needed, or null if there was nothing to solve.
+     * @return The level.
+     */
+    public static SudokuUtilities.SudokuLevel levelOf(Technique hardest) {
+        if (hardest == null || hardest.compareTo(Technique.NAKED_SINGLE) <= 0) {
+            return SudokuUtilities.SudokuLevel.EASY;
+        }
+        if (hardest.compareTo(Technique.X_WING) < 0) {
+            return SudokuUtilities.SudokuLevel.MEDIUM;
+        }
+        return SudokuUtilities.SudokuLevel.HARD;
+    }
+
+    /**
+     * Converts a score to the one-byte rating stored in a {@link PuzzleBank}.
+     *
+     * @param score The score.
+     * @return The rating, 1-255.
+     */
+    public static int toBankRating(int score) {
+        return Math.max(1, Math.min(255, score));
+    }
+}
@@ -1,11 +1,50 @@
 package Sudoku.Game.Solver.model;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Manages file operations related to the Sudoku game.
+ *
+ * Games are saved in a compact, versioned binary format:
+ * <pre>
+ *  0  int     magic "SDKU"
+ *  4  byte    format version
+ *  5  byte    level (ordinal of SudokuLevel)
+ *  6  byte    grid size, 9 in version 1
+ *  7  byte    flags, bit 0 set when pencil marks follow; zero in older files
+ *  8  81 byte one byte per cell in row-major order: solution in the high nibble, user value in the low nibble
+ * 89  11 byte bitmap of the cells given from the start, bit (cell % 8) of byte (cell / 8)
+ * </pre>
+ * Classic 9x9 games are written in version 1. Other sizes have values that do not fit in a
+ * nibble and are written in version 2, which has two bytes per cell, the solution and then
+ * the user value, followed by a bitmap of the given cells as above.
+ *
+ * If any cell has pencil marks, the flag is set and the record goes on with a bitmap of the
+ * cells that have marks, in the same form as the given cells, and then the marks of each of
+ * those cells in row-major order, as a big-endian bitmask of one byte per eight values: two
+ * bytes on a 9x9 board. A game without marks is written exactly as before, and readers that
+ * do not know the flag read the rest of the game and ignore the marks.
+ * Files saved by older releases with Java serialization are still read, and are written
+ * in the new format the next time they are saved.
  */
 public class FileHandler {
+    private static final int MAGIC = 0x53444B55;
+    private static final byte VERSION = 1;
+    private static final byte SIZED_VERSION = 2;
+    private static final int GRID_SIZE = SudokuUtilities.GRID_SIZE;
+    private static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+    private static final int HEADER_SIZE = 8;
+    private static final int MARKS_FLAG = 1;
+    /** The size in bytes of a saved classic game without pencil marks. */
+    public static final int RECORD_SIZE = recordSize(SudokuSize.CLASSIC);
+    private static final int MAX_RECORD_SIZE = recordSize(SudokuSize.of(SudokuSize.MAX_BOX_SIZE))
+            + marksSize(SudokuSize.of(SudokuSize.MAX_BOX_SIZE), SudokuSize.of(SudokuSize.MAX_BOX_SIZE).getCellCount());
+    // Every Java serialization stream starts with these two bytes
+    private static final short LEGACY_MAGIC = (short) 0xACED;
 
     /**
      * Serializes the SudokuGrid to  file.
@@ -15,8 +54,12 @@ public class FileHandler {
      * @throws IOException If there's an issue during file writing.
      */
     public static void serializeToFile(File file, SudokuGrid grid) throws IOException {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
-            out.writeObject(grid);
+        ByteBuffer buffer = write(grid);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
         }
     }
 
@@ -25,12 +68,351 @@ public class FileHandler {
      *
      * @param file The file to read the serialized data from.
      * @return The deserialized SudokuGrid object.
-     * @throws IOException If there's an issue during file reading.
-     * @throws ClassNotFoundException If the read class from the file is not found.
+     * @throws IOException If there's an issue during file reading, or the file is not a saved game.
+     * @throws ClassNotFoundException If the file was saved by an older release and a class it refers to is not found.
      */
     public static SudokuGrid deSerializeFromFile(File file) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-            return (SudokuGrid) in.readObject();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), MAX_RECORD_SIZE));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+            buffer.flip();
+            if (buffer.remaining() >= 2 && buffer.getShort(0) == LEGACY_MAGIC) {
+                channel.position(0);
+                return readLegacy(Channels.newInputStream(channel));
+            }
+            return read(buffer);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the size in bytes of a saved game of a board size without pencil marks.
+     *
+     * @param size The board size.
+     * @return The number of bytes {@link #write} writes for a game of that size without marks.
+     */
+    public static int recordSize(SudokuSize size) {
+        int cells = size.getCellCount();
+        int bytesPerCell = size == SudokuSize.CLASSIC ? 1 : 2;
+        return HEADER_SIZE + cells * bytesPerCell + (cells + 7) / 8;
+    }
+
+    /**
+     * Gets the size in bytes of a saved game, pencil marks included.
+     *
+     * @param grid The game.
+     * @return The number of bytes {@link #write} writes for the game.
+     */
+    public static int recordSize(SudokuGrid grid) {
+        return recordSize(grid.snapshot());
+    }
+
+    private static int recordSize(BoardSnapshot board) {
+        SudokuSize size = board.getSize();
+        int marked = countMarkedCells(board);
+        return recordSize(size) + (marked == 0 ? 0 : marksSize(size, marked));
+    }
+
+    /**
+     * Gets the size of the pencil marks: the bitmap of the marked cells and their masks.
+     */
+    private static int marksSize(SudokuSize size, int markedCells) {
+        return (size.getCellCount() + 7) / 8 + markedCells * bytesPerMask(size);
+    }
+
+    private static int bytesPerMask(SudokuSize size) {
+        return (size.getGridSize() + 7) / 8;
+    }
+
+    private static int countMarkedCells(BoardSnapshot board) {
+        int gridSize = board.getSize().getGridSize();
+        int marked = 0;
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                if (board.getMarks(row, col) != 0) {
+                    marked++;
+                }
+            }
+        }
+        return marked;
+    }
+
+    /**
+     * Writes a game in the binary save format, as it is at one moment even if other threads
+     * make moves meanwhile.
+     *
+     * @param grid The game to write.
+     * @return A new buffer holding exactly the saved game, ready to be read.
+     */
+    public static ByteBuffer write(SudokuGrid grid) {
+        return write(grid.snapshot());
+    }
+
+    /**
+     * Writes a snapshot of a game in the binary save format.
+     *
+     * @return A new buffer holding exactly the saved game, ready to be read.
+     */
+    static ByteBuffer write(BoardSnapshot board) {
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize(board));
+        write(board, buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Writes a game in the binary save format, as it is at one moment. If other threads may add
+     * pencil marks meanwhile, use {@link #write(SudokuGrid)}, which sizes the buffer itself.
+     *
+     * @param grid   The game to write.
+     * @param buffer The buffer to write to, with at least {@link #recordSize(SudokuGrid)} bytes remaining.
+     */
+    public static void write(SudokuGrid grid, ByteBuffer buffer) {
+        write(grid.snapshot(), buffer);
+    }
+
+    private static void write(BoardSnapshot board, ByteBuffer buffer) {
+        SudokuSize size = board.getSize();
+        int gridSize = size.getGridSize();
+        boolean classic = size == SudokuSize.CLASSIC;
+        boolean marked = countMarkedCells(board) > 0;
+        buffer.putInt(MAGIC);
+        buffer.put(classic ? VERSION : SIZED_VERSION);
+        buffer.put((byte) board.getLevel().ordinal());
+        buffer.put((byte) gridSize);
+        buffer.put((byte) (marked ? MARKS_FLAG : 0));
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                if (classic) {
+                    buffer.put((byte) (board.getSolution(row, col) << 4 | board.getValue(row, col)));
+                } else {
+                    buffer.put((byte) board.getSolution(row, col));
+                    buffer.put((byte) board.getValue(row, col));
+                }
+            }
+        }
+        int cellCount = size.getCellCount();
+        int bits = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (board.isGiven(cell / gridSize, cell % gridSize)) {
+                bits |= 1 << (cell % 8);
+            }
+            if (cell % 8 == 7 || cell == cellCount - 1) {
+                buffer.put((byte) bits);
+                bits = 0;
+            }
+        }
+        if (marked) {
+            writeMarks(board, buffer);
+        }
+    }
+
+    private static void writeMarks(BoardSnapshot board, ByteBuffer buffer) {
+        SudokuSize size = board.getSize();
+        int gridSize = size.getGridSize();
+        int cellCount = size.getCellCount();
+        int bits = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (board.getMarks(cell / gridSize, cell % gridSize) != 0) {
+                bits |= 1 << (cell % 8);
+            }
+            if (cell % 8 == 7 || cell == cellCount - 1) {
+                buffer.put((byte) bits);
+                bits = 0;
+            }
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            int marks = board.getMarks(cell / gridSize, cell % gridSize);
+            if (marks != 0) {
+                for (int i = bytesPerMask(size) - 1; i >= 0; i--) {
+                    buffer.put((byte) (marks >>> (8 * i)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a game in the binary save format.
+     *
+     * @param buffer The buffer to read from, positioned at the start of a saved game.
+     * @return The restored game.
+     * @throws IOException If the buffer does not hold a saved game this version can read.
+     */
+    public static SudokuGrid read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a saved Sudoku game");
+        }
+        int version = buffer.get();
+        if (version != VERSION && version != SIZED_VERSION) {
+            throw new IOException("Unsupported save format version " + version);
+        }
+        int levelIndex = buffer.get();
+        int gridSize = buffer.get();
+        int flags = buffer.get();
+        SudokuUtilities.SudokuLevel[] levels = SudokuUtilities.SudokuLevel.values();
+        SudokuSize size = sizeOf(gridSize);
+        if (levelIndex < 0 || levelIndex >= levels.length || size == null
+                || (version == VERSION) != (size == SudokuSize.CLASSIC)) {
+            throw new IOException("Corrupt saved game header");
+        }
+        if (buffer.remaining() < recordSize(size) - HEADER_SIZE) {
+            throw new IOException("Saved game is truncated");
+        }
+
+        int cellCount = size.getCellCount();
+        int[] values = new int[cellCount];
+        int[] solution = new int[cellCount];
+        int[] givens = new int[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (version == VERSION) {
+                int packed = buffer.get() & 0xFF;
+                solution[cell] = packed >>> 4;
+                values[cell] = packed & 0xF;
+            } else {
+                solution[cell] = buffer.get() & 0xFF;
+                values[cell] = buffer.get() & 0xFF;
+            }
+            if (solution[cell] < 1 || solution[cell] > gridSize || values[cell] > gridSize) {
+                throw new IOException("Corrupt saved game");
+            }
+        }
+        int bits = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cell % 8 == 0) {
+                bits = buffer.get();
+            }
+            if ((bits & 1 << (cell % 8)) != 0) {
+                givens[cell] = solution[cell];
+            }
+        }
+        int[] marks = (flags & MARKS_FLAG) != 0 ? readMarks(buffer, size) : null;
+        return restore(new Puzzle(levels[levelIndex], givens, solution), values, marks);
+    }
+
+    /**
+     * Reads the pencil marks that follow a game whose marks flag is set.
+     */
+    private static int[] readMarks(ByteBuffer buffer, SudokuSize size) throws IOException {
+        int cellCount = size.getCellCount();
+        if (buffer.remaining() < (cellCount + 7) / 8) {
+            throw new IOException("Saved game is truncated");
+        }
+        int[] marks = new int[cellCount];
+        int bits = 0;
+        int marked = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cell % 8 == 0) {
+                bits = buffer.get();
+            }
+            if ((bits & 1 << (cell % 8)) != 0) {
+                marks[cell] = -1; // the mask is read below
+                marked++;
+            }
+        }
+        if (buffer.remaining() < marked * bytesPerMask(size)) {
+            throw new IOException("Saved game is truncated");
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (marks[cell] != 0) {
+                int mask = 0;
+                for (int i = 0; i < bytesPerMask(size); i++) {
+                    mask = mask << 8 | buffer.get() & 0xFF;
+                }
+                if (mask == 0 || (mask & ~size.getAllValues()) != 0) {
+                    throw new IOException("Corrupt saved game");
+                }
+                marks[cell] = mask;
+            }
+        }
+        return marks;
+    }
+
+    /**
+     * Finds the board size with the given number of rows and columns.
+     *
+     * @return The size, or null if no supported size has that many rows.
+     */
+    private static SudokuSize sizeOf(int gridSize) {
+        for (int boxSize = SudokuSize.MIN_BOX_SIZE; boxSize <= SudokuSize.MAX_BOX_SIZE; boxSize++) {
+            if (boxSize * boxSize == gridSize) {
+                return SudokuSize.of(boxSize);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a game for a puzzle and fills in the values and pencil marks the player had entered.
+     *
+     * @param marks The marks of each cell, or null if the game has none.
+     */
+    private static SudokuGrid restore(Puzzle puzzle, int[] values, int[] marks) {
+        SudokuGrid grid = new SudokuGrid(puzzle);
+        int gridSize = puzzle.getSize().getGridSize();
+        for (int cell = 0; cell < values.length; cell++) {
+            grid.setCellValue(cell / gridSize, cell % gridSize, values[cell]);
+        }
+        // After the values, so that placing them does not remove any of the marks
+        for (int cell = 0; marks != null && cell < marks.length; cell++) {
+            grid.setMarks(cell / gridSize, cell % gridSize, marks[cell]);
+        }
+        grid.getJournal().clear(); // a restored game starts without moves to undo
+        return grid;
+    }
+
+    /**
+     * Reads a game saved by an older release with Java serialization. The stream is read
+     * into the frozen copies of the old classes in the legacy package, never into the
+     * current model classes.
+     */
+    private static SudokuGrid readLegacy(InputStream stream) throws IOException, ClassNotFoundException {
+        Sudoku.Game.Solver.model.legacy.SudokuGrid saved;
+        try (ObjectInputStream in = new LegacyObjectInputStream(stream)) {
+            saved = (Sudoku.Game.Solver.model.legacy.SudokuGrid) in.readObject();
+        } catch (ClassCastException e) {
+            throw new IOException("Not a saved Sudoku game", e);
+        }
+        int[] values = new int[CELL_COUNT];
+        int[] solution = new int[CELL_COUNT];
+        int[] givens = new int[CELL_COUNT];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            Sudoku.Game.Solver.model.legacy.Tile tile = saved.getTile(cell / GRID_SIZE, cell % GRID_SIZE);
+            solution[cell] = tile.getCorrectValue();
+            values[cell] = tile.getUserValue();
+            if (tile.isFromStart()) {
+                givens[cell] = tile.getCorrectValue();
+            }
+        }
+        return restore(new Puzzle(saved.getLevel(), givens, solution), values, null);
+    }
+
+    /**
+     * Maps the class names found in old save files to the classes in the legacy package.
+     */
+    private static class LegacyObjectInputStream extends ObjectInputStream {
+        LegacyObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            switch (desc.getName()) {
+                case "Sudoku.Game.Solver.model.SudokuGrid":
+                    return Sudoku.Game.Solver.model.legacy.SudokuGrid.class;
+                case "Sudoku.Game.Solver.model.Tile":
+                    return Sudoku.Game.Solver.model.legacy.Tile.class;
+                case "[[LSudoku.Game.Solver.model.Tile;":
+                    return Sudoku.Game.Solver.model.legacy.Tile[][].class;
+                case "[LSudoku.Game.Solver.model.Tile;":
+                    return Sudoku.Game.Solver.model.legacy.Tile[].class;
+                case "Sudoku.Game.Solver.model.SudokuUtilities$SudokuLevel":
+                case "java.lang.Enum":
+                case "[[Z":
+                case "[Z":
+                    return super.resolveClass(desc);
+                default:
+                    throw new InvalidClassException(desc.getName(), "Unexpected class in saved game");
+            }
+        }
+    }
+}
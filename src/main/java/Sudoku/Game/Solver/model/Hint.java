@@ -0,0 +1,126 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * The next step towards solving a game: a value for a cell, the technique that finds it and
+ * the cells it follows from. A hint can also be a correction, when a cell holds a wrong value.
+ *
+ * A hint is filled in by {@link SudokuGrid#getHint(Hint)} and can be reused for any number of
+ * hints, so asking for a hint allocates nothing. It is not thread-safe.
+ */
+public final class Hint {
+    /** The largest number of justifying cells a hint keeps. */
+    public static final int MAX_REASONS = 3 * SudokuSize.of(SudokuSize.MAX_BOX_SIZE).getGridSize();
+
+    private int gridSize;
+    private int row = -1;
+    private int col = -1;
+    private int value;
+    private boolean correction;
+    private Technique technique;
+    private final int[] reasons = new int[MAX_REASONS];
+    private int reasonCount;
+
+    /**
+     * Gets the row of the cell.
+     *
+     * @return The row (zero-based index), or -1 if there is no hint.
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Gets the column of the cell.
+     *
+     * @return The column (zero-based index), or -1 if there is no hint.
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Gets the value that belongs in the cell.
+     *
+     * @return The value, or 0 if there is no hint.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Checks if the hint corrects a wrong value rather than filling an empty cell.
+     *
+     * @return true if the cell holds a wrong value; false otherwise.
+     */
+    public boolean isCorrection() {
+        return correction;
+    }
+
+    /**
+     * Gets the technique that finds the value. When candidates had to be removed before the
+     * value could be found, this is the hardest technique used on the way.
+     *
+     * @return The technique, or null for a correction.
+     */
+    public Technique getTechnique() {
+        return technique;
+    }
+
+    /**
+     * Gets the number of cells the hint follows from.
+     *
+     * @return The number of justifying cells, at most {@link #MAX_REASONS}.
+     */
+    public int getReasonCount() {
+        return reasonCount;
+    }
+
+    /**
+     * Gets the row of a justifying cell.
+     *
+     * @param index The index of the cell, less than {@link #getReasonCount()}.
+     * @return The row (zero-based index).
+     */
+    public int getReasonRow(int index) {
+        return reasons[index] / gridSize;
+    }
+
+    /**
+     * Gets the column of a justifying cell.
+     *
+     * @param index The index of the cell, less than {@link #getReasonCount()}.
+     * @return The column (zero-based index).
+     */
+    public int getReasonCol(int index) {
+        return reasons[index] % gridSize;
+    }
+
+    void clear(int gridSize) {
+        this.gridSize = gridSize;
+        row = -1;
+        col = -1;
+        value = 0;
+        correction = false;
+        technique = null;
+        reasonCount = 0;
+    }
+
+    void set(int cell, int value, Technique technique, boolean correction) {
+        row = cell / gridSize;
+        col = cell % gridSize;
+        this.value = value;
+        this.technique = technique;
+        this.correction = correction;
+    }
+
+    void addReason(int cell) {
+        for (int i = 0; i < reasonCount; i++) {
+            if (reasons[i] == cell) {
+                return;
+            }
+        }
+        if (reasonCount < MAX_REASONS) {
+            reasons[reasonCount++] = cell;
+        }
+    }
+}
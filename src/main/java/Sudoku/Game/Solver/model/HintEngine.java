@@ -0,0 +1,118 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * Finds the next step on a board for {@link SudokuGrid#getHint(Hint)}.
+ *
+ * A wrong value is corrected first, as no logical step can be trusted while one is on the
+ * board. Otherwise the board's candidates, which {@link SudokuBoard} keeps up to date on every
+ * change, are handed to a {@link LogicSolver} that takes steps until one of them places a
+ * value. If no technique applies, the empty cell with the fewest candidates is revealed.
+ *
+ * The grid copies its board into the scratch arrays of the engine with {@link #load}, so that
+ * the hint is found on a state no other thread changes. An engine keeps the arrays between
+ * calls, so finding a hint allocates nothing, and is not thread-safe.
+ */
+final class HintEngine {
+    private final SudokuSize size;
+    private final int gridSize;
+    private final int cellCount;
+    private final LogicSolver solver;
+    private final int[] values;
+    private final int[] candidates;
+    private final int[] solution;
+
+    HintEngine(SudokuSize size) {
+        this.size = size;
+        gridSize = size.getGridSize();
+        cellCount = size.getCellCount();
+        solver = new LogicSolver(size);
+        values = new int[cellCount];
+        candidates = new int[cellCount];
+        solution = new int[cellCount];
+    }
+
+    /**
+     * Copies the values, candidates and solution of a board into the engine.
+     *
+     * @param board The board, of the size of the engine.
+     */
+    void load(SudokuBoard board) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            int row = cell / gridSize;
+            int col = cell % gridSize;
+            values[cell] = board.getValue(row, col);
+            candidates[cell] = board.getCandidates(row, col);
+            solution[cell] = board.getSolution(row, col);
+        }
+    }
+
+    /**
+     * Fills in a hint for the board last loaded.
+     *
+     * @param hint The hint to fill in.
+     * @return true if a hint was found; false if the board is solved.
+     */
+    boolean findHint(Hint hint) {
+        hint.clear(gridSize);
+        int filled = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int value = values[cell];
+            if (value != 0 && value != solution[cell]) {
+                findCorrection(cell, hint);
+                return true;
+            }
+            if (value != 0) {
+                filled++;
+            }
+        }
+        if (filled == cellCount) {
+            return false;
+        }
+        solver.load(values, candidates);
+        Technique hardest = null;
+        while (solver.step()) {
+            Technique technique = solver.getTechnique();
+            if (hardest == null || technique.compareTo(hardest) > 0) {
+                hardest = technique;
+            }
+            // Removed candidates are part of the reason for the value found after them
+            for (int i = 0; i < solver.getReasonCount(); i++) {
+                hint.addReason(solver.getReason(i));
+            }
+            if (solver.getStepCell() >= 0) {
+                hint.set(solver.getStepCell(), solver.getStepValue(), hardest, false);
+                return true;
+            }
+        }
+        int best = -1;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (solver.getValue(cell) == 0 && (best < 0
+                    || Integer.bitCount(solver.getCandidates(cell)) < Integer.bitCount(solver.getCandidates(best)))) {
+                best = cell;
+            }
+        }
+        hint.set(best, solution[best], Technique.TRIAL_AND_ERROR, false);
+        return true;
+    }
+
+    /**
+     * Points out a wrong value, with the cells that hold the same value in its row, column or
+     * box as reasons.
+     */
+    private void findCorrection(int cell, Hint hint) {
+        int value = values[cell];
+        hint.set(cell, solution[cell], null, true);
+        addCellsWithValue(hint, size.rowUnit[cell], cell, value);
+        addCellsWithValue(hint, size.colUnit[cell], cell, value);
+        addCellsWithValue(hint, size.boxUnit[cell], cell, value);
+    }
+
+    private void addCellsWithValue(Hint hint, int unit, int cell, int value) {
+        for (int i = unit * gridSize; i < (unit + 1) * gridSize; i++) {
+            int peer = size.unitCells[i];
+            if (peer != cell && values[peer] == value) {
+                hint.addReason(peer);
+            }
+        }
+    }
+}
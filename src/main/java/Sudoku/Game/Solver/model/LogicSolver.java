@@ -0,0 +1,602 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * Solves a board one step at a time with the techniques of {@link Technique}, the way a
+ * person would: every step uses the easiest technique that makes progress, either placing a
+ * value or removing candidates. The candidates of a cell are kept as a bitmask where bit
+ * (value - 1) is set when the value may still go in the cell.
+ *
+ * After a step, its technique, the cell and value it placed, if any, and the cells that
+ * justify it can be read. Nothing is allocated after construction, so one solver can be
+ * reused for any number of boards of its size. A solver is not thread-safe.
+ */
+final class LogicSolver {
+    private final SudokuSize size;
+    private final int gridSize;
+    private final int cellCount;
+    private final int unitCount;
+    private final int allValues;
+    // Shared lookup tables of the size, see SudokuSize
+    private final int[] rowUnit;
+    private final int[] colUnit;
+    private final int[] boxUnit;
+    private final int[] unitCells;
+
+    private final int[] values;
+    private final int[] candidates;
+    private int emptyCells;
+
+    // The last step: what it used, what it placed and which cells it was based on
+    private Technique technique;
+    private int stepCell;
+    private int stepValue;
+    private int eliminated;
+    private final int[] reasons;
+    private int reasonCount;
+
+    // Scratch arrays for the unit and line scans
+    private final int[] positions;
+    private final int[] lines;
+    private final int[] lineMasks;
+
+    LogicSolver(SudokuSize size) {
+        this.size = size;
+        gridSize = size.getGridSize();
+        cellCount = size.getCellCount();
+        unitCount = size.getUnitCount();
+        allValues = size.getAllValues();
+        rowUnit = size.rowUnit;
+        colUnit = size.colUnit;
+        boxUnit = size.boxUnit;
+        unitCells = size.unitCells;
+        values = new int[cellCount];
+        candidates = new int[cellCount];
+        reasons = new int[3 * gridSize];
+        positions = new int[gridSize];
+        lines = new int[gridSize];
+        lineMasks = new int[gridSize];
+    }
+
+    SudokuSize getSize() {
+        return size;
+    }
+
+    /**
+     * Starts on a new board. The candidates of every empty cell are the values that do not
+     * occur in its row, column or box.
+     *
+     * @param board One value per cell in row-major order, zero representing an empty cell.
+     */
+    void load(int[] board) {
+        emptyCells = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            values[cell] = board[cell];
+            candidates[cell] = board[cell] == 0 ? allValues : 0;
+            if (board[cell] == 0) {
+                emptyCells++;
+            }
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (values[cell] != 0) {
+                removeFromPeers(cell, 1 << (values[cell] - 1));
+            }
+        }
+        technique = null;
+    }
+
+    /**
+     * Starts on a new board whose candidates are already known.
+     *
+     * @param board      One value per cell in row-major order, zero representing an empty cell.
+     * @param candidates The candidates of every cell, zero for filled cells.
+     */
+    void load(int[] board, int[] candidates) {
+        emptyCells = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            values[cell] = board[cell];
+            this.candidates[cell] = board[cell] == 0 ? candidates[cell] : 0;
+            if (board[cell] == 0) {
+                emptyCells++;
+            }
+        }
+        technique = null;
+    }
+
+    boolean isSolved() {
+        return emptyCells == 0;
+    }
+
+    int getValue(int cell) {
+        return values[cell];
+    }
+
+    int getCandidates(int cell) {
+        return candidates[cell];
+    }
+
+    /**
+     * Gets the technique of the last step.
+     *
+     * @return The technique, or null if no step has been taken on the board or the last one failed.
+     */
+    Technique getTechnique() {
+        return technique;
+    }
+
+    /**
+     * Gets the cell the last step filled.
+     *
+     * @return The cell index, or -1 if the step only removed candidates.
+     */
+    int getStepCell() {
+        return stepCell;
+    }
+
+    /**
+     * Gets the value the last step placed.
+     *
+     * @return The value, or 0 if the step only removed candidates.
+     */
+    int getStepValue() {
+        return stepValue;
+    }
+
+    /**
+     * Gets the number of candidates the last step removed, not counting those removed from
+     * the peers of a placed value.
+     */
+    int getEliminatedCount() {
+        return eliminated;
+    }
+
+    int getReasonCount() {
+        return reasonCount;
+    }
+
+    /**
+     * Gets one of the cells the last step was based on.
+     *
+     * @param index The index of the cell, less than {@link #getReasonCount()}.
+     * @return The cell index.
+     */
+    int getReason(int index) {
+        return reasons[index];
+    }
+
+    /**
+     * Takes one step with the easiest technique that makes progress.
+     *
+     * @return true if a value was placed or candidates were removed; false if the board is
+     *         solved or no technique applies.
+     */
+    boolean step() {
+        technique = null;
+        stepCell = -1;
+        stepValue = 0;
+        eliminated = 0;
+        reasonCount = 0;
+        if (emptyCells == 0) {
+            return false;
+        }
+        return findHiddenSingle()
+                || findNakedSingle()
+                || findPointing()
+                || findNakedPair()
+                || findHiddenPair()
+                || findFish(2, Technique.X_WING)
+                || findFish(3, Technique.SWORDFISH)
+                || findXyWing();
+    }
+
+    private boolean findHiddenSingle() {
+        // Boxes first, as that is where people look for them
+        for (int i = 0; i < unitCount; i++) {
+            int unit = (i + 2 * gridSize) % unitCount;
+            int base = unit * gridSize;
+            int once = 0;
+            int twice = 0;
+            for (int j = 0; j < gridSize; j++) {
+                int cellCandidates = candidates[unitCells[base + j]];
+                twice |= once & cellCandidates;
+                once |= cellCandidates;
+            }
+            int hidden = once & ~twice;
+            if (hidden == 0) {
+                continue;
+            }
+            int bit = hidden & -hidden;
+            for (int j = 0; j < gridSize; j++) {
+                int cell = unitCells[base + j];
+                if ((candidates[cell] & bit) != 0) {
+                    // The other empty cells of the unit are blocked by the value elsewhere
+                    for (int k = 0; k < gridSize; k++) {
+                        int other = unitCells[base + k];
+                        if (other != cell && values[other] == 0) {
+                            addPeerWithValue(other, bit);
+                        }
+                    }
+                    place(cell, bit, Technique.HIDDEN_SINGLE);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean findNakedSingle() {
+        for (int cell = 0; cell < cellCount; cell++) {
+            int cellCandidates = candidates[cell];
+            if (cellCandidates != 0 && (cellCandidates & (cellCandidates - 1)) == 0) {
+                // One filled peer for every other value
+                int seen = addPeersWithValues(rowUnit[cell], cellCandidates);
+                seen = addPeersWithValues(colUnit[cell], seen);
+                addPeersWithValues(boxUnit[cell], seen);
+                place(cell, cellCandidates, Technique.NAKED_SINGLE);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean findPointing() {
+        // A value confined to one line within a box is removed from the rest of the line
+        for (int box = 2 * gridSize; box < unitCount; box++) {
+            for (int bit = 1; bit <= allValues; bit <<= 1) {
+                int row = -1;
+                int col = -1;
+                int count = 0;
+                for (int j = 0; j < gridSize; j++) {
+                    int cell = unitCells[box * gridSize + j];
+                    if ((candidates[cell] & bit) != 0) {
+                        row = count == 0 || row == rowUnit[cell] ? rowUnit[cell] : -2;
+                        col = count == 0 || col == colUnit[cell] ? colUnit[cell] : -2;
+                        count++;
+                    }
+                }
+                if (count < 2) {
+                    continue;
+                }
+                int line = row >= 0 ? row : col;
+                if (line >= 0 && eliminateOutside(line, box, bit)) {
+                    addUnitCellsWith(box, bit);
+                    technique = Technique.POINTING;
+                    return true;
+                }
+            }
+        }
+        // A value confined to one box within a line is removed from the rest of the box
+        for (int line = 0; line < 2 * gridSize; line++) {
+            for (int bit = 1; bit <= allValues; bit <<= 1) {
+                int box = -1;
+                int count = 0;
+                for (int j = 0; j < gridSize; j++) {
+                    int cell = unitCells[line * gridSize + j];
+                    if ((candidates[cell] & bit) != 0) {
+                        box = count == 0 || box == boxUnit[cell] ? boxUnit[cell] : -2;
+                        count++;
+                    }
+                }
+                if (count >= 2 && box >= 0 && eliminateOutside(box, line, bit)) {
+                    addUnitCellsWith(line, bit);
+                    technique = Technique.POINTING;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean findNakedPair() {
+        for (int unit = 0; unit < unitCount; unit++) {
+            int base = unit * gridSize;
+            for (int i = 0; i < gridSize; i++) {
+                int first = unitCells[base + i];
+                int pair = candidates[first];
+                if (Integer.bitCount(pair) != 2) {
+                    continue;
+                }
+                for (int j = i + 1; j < gridSize; j++) {
+                    int second = unitCells[base + j];
+                    if (candidates[second] != pair) {
+                        continue;
+                    }
+                    for (int k = 0; k < gridSize; k++) {
+                        int cell = unitCells[base + k];
+                        if (cell != first && cell != second) {
+                            eliminate(cell, pair);
+                        }
+                    }
+                    if (eliminated > 0) {
+                        addReason(first);
+                        addReason(second);
+                        technique = Technique.NAKED_PAIR;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean findHiddenPair() {
+        for (int unit = 0; unit < unitCount; unit++) {
+            int base = unit * gridSize;
+            // The positions in the unit where each value can go
+            for (int value = 0; value < gridSize; value++) {
+                positions[value] = 0;
+            }
+            for (int j = 0; j < gridSize; j++) {
+                int cellCandidates = candidates[unitCells[base + j]];
+                while (cellCandidates != 0) {
+                    int bit = cellCandidates & -cellCandidates;
+                    cellCandidates ^= bit;
+                    positions[Integer.numberOfTrailingZeros(bit)] |= 1 << j;
+                }
+            }
+            for (int a = 0; a < gridSize; a++) {
+                if (Integer.bitCount(positions[a]) != 2) {
+                    continue;
+                }
+                for (int b = a + 1; b < gridSize; b++) {
+                    if (positions[b] != positions[a]) {
+                        continue;
+                    }
+                    int first = unitCells[base + Integer.numberOfTrailingZeros(positions[a])];
+                    int second = unitCells[base + 31 - Integer.numberOfLeadingZeros(positions[a])];
+                    int others = allValues & ~(1 << a | 1 << b);
+                    eliminate(first, others);
+                    eliminate(second, others);
+                    if (eliminated > 0) {
+                        addReason(first);
+                        addReason(second);
+                        technique = Technique.HIDDEN_PAIR;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds a fish of the given size: a value that can only go in the same k columns in k
+     * rows, so it is removed from the rest of those columns, or the same with rows and
+     * columns swapped.
+     */
+    private boolean findFish(int k, Technique fish) {
+        for (int bit = 1; bit <= allValues; bit <<= 1) {
+            for (int byColumn = 0; byColumn < 2; byColumn++) {
+                int count = 0;
+                for (int line = 0; line < gridSize; line++) {
+                    int mask = 0;
+                    for (int i = 0; i < gridSize; i++) {
+                        if ((candidates[cellAt(byColumn, line, i)] & bit) != 0) {
+                            mask |= 1 << i;
+                        }
+                    }
+                    int spots = Integer.bitCount(mask);
+                    if (spots >= 2 && spots <= k) {
+                        lines[count] = line;
+                        lineMasks[count] = mask;
+                        count++;
+                    }
+                }
+                for (int a = 0; a < count; a++) {
+                    for (int b = a + 1; b < count; b++) {
+                        if (k == 2) {
+                            if (removeFish(byColumn, bit, 1 << lines[a] | 1 << lines[b], lineMasks[a] | lineMasks[b], 2, fish)) {
+                                return true;
+                            }
+                            continue;
+                        }
+                        for (int c = b + 1; c < count; c++) {
+                            int baseLines = 1 << lines[a] | 1 << lines[b] | 1 << lines[c];
+                            if (removeFish(byColumn, bit, baseLines, lineMasks[a] | lineMasks[b] | lineMasks[c], 3, fish)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean removeFish(int byColumn, int bit, int baseLines, int coverLines, int k, Technique fish) {
+        if (Integer.bitCount(coverLines) != k) {
+            return false;
+        }
+        for (int line = 0; line < gridSize; line++) {
+            if ((baseLines & 1 << line) == 0) {
+                for (int cover = coverLines; cover != 0; cover &= cover - 1) {
+                    eliminate(cellAt(byColumn, line, Integer.numberOfTrailingZeros(cover)), bit);
+                }
+            }
+        }
+        if (eliminated == 0) {
+            return false;
+        }
+        for (int line = 0; line < gridSize; line++) {
+            if ((baseLines & 1 << line) != 0) {
+                for (int cover = coverLines; cover != 0; cover &= cover - 1) {
+                    int cell = cellAt(byColumn, line, Integer.numberOfTrailingZeros(cover));
+                    if ((candidates[cell] & bit) != 0) {
+                        addReason(cell);
+                    }
+                }
+            }
+        }
+        technique = fish;
+        return true;
+    }
+
+    /**
+     * Finds a pivot cell with candidates {a, b} that sees a cell with {a, c} and a cell with
+     * {b, c}: whichever value the pivot takes, one of the two holds c, so c is removed from
+     * every cell that sees both.
+     */
+    private boolean findXyWing() {
+        for (int pivot = 0; pivot < cellCount; pivot++) {
+            int pair = candidates[pivot];
+            if (Integer.bitCount(pair) != 2) {
+                continue;
+            }
+            for (int u = 0; u < 3; u++) {
+                int unit = u == 0 ? rowUnit[pivot] : u == 1 ? colUnit[pivot] : boxUnit[pivot];
+                for (int j = 0; j < gridSize; j++) {
+                    int first = unitCells[unit * gridSize + j];
+                    int firstCandidates = candidates[first];
+                    if (first == pivot || Integer.bitCount(firstCandidates) != 2
+                            || Integer.bitCount(firstCandidates & pair) != 1) {
+                        continue;
+                    }
+                    int c = firstCandidates & ~pair;
+                    int wanted = (pair & ~firstCandidates) | c;
+                    if (findSecondPincer(pivot, first, wanted, c)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean findSecondPincer(int pivot, int first, int wanted, int c) {
+        for (int u = 0; u < 3; u++) {
+            int unit = u == 0 ? rowUnit[pivot] : u == 1 ? colUnit[pivot] : boxUnit[pivot];
+            for (int j = 0; j < gridSize; j++) {
+                int second = unitCells[unit * gridSize + j];
+                if (candidates[second] != wanted || second == first) {
+                    continue;
+                }
+                for (int v = 0; v < 3; v++) {
+                    int firstUnit = v == 0 ? rowUnit[first] : v == 1 ? colUnit[first] : boxUnit[first];
+                    for (int k = 0; k < gridSize; k++) {
+                        int cell = unitCells[firstUnit * gridSize + k];
+                        if (cell != first && cell != second && sees(cell, second)) {
+                            eliminate(cell, c);
+                        }
+                    }
+                }
+                if (eliminated > 0) {
+                    addReason(pivot);
+                    addReason(first);
+                    addReason(second);
+                    technique = Technique.XY_WING;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean sees(int cell, int other) {
+        return cell != other && (rowUnit[cell] == rowUnit[other] || colUnit[cell] == colUnit[other]
+                || boxUnit[cell] == boxUnit[other]);
+    }
+
+    /**
+     * Gets the cell at a position along a row, or along a column if byColumn is 1.
+     */
+    private int cellAt(int byColumn, int line, int position) {
+        return byColumn == 0 ? line * gridSize + position : position * gridSize + line;
+    }
+
+    /**
+     * Removes a value from the cells of a unit that are not in another unit.
+     *
+     * @return true if any candidate was removed.
+     */
+    private boolean eliminateOutside(int unit, int keep, int bit) {
+        for (int j = 0; j < gridSize; j++) {
+            int cell = unitCells[unit * gridSize + j];
+            if (rowUnit[cell] != keep && colUnit[cell] != keep && boxUnit[cell] != keep) {
+                eliminate(cell, bit);
+            }
+        }
+        return eliminated > 0;
+    }
+
+    private void eliminate(int cell, int mask) {
+        int removed = candidates[cell] & mask;
+        if (removed != 0) {
+            candidates[cell] &= ~removed;
+            eliminated += Integer.bitCount(removed);
+        }
+    }
+
+    private void place(int cell, int bit, Technique used) {
+        values[cell] = Integer.numberOfTrailingZeros(bit) + 1;
+        candidates[cell] = 0;
+        emptyCells--;
+        removeFromPeers(cell, bit);
+        technique = used;
+        stepCell = cell;
+        stepValue = values[cell];
+    }
+
+    private void removeFromPeers(int cell, int bit) {
+        int rowBase = rowUnit[cell] * gridSize;
+        int colBase = colUnit[cell] * gridSize;
+        int boxBase = boxUnit[cell] * gridSize;
+        for (int j = 0; j < gridSize; j++) {
+            candidates[unitCells[rowBase + j]] &= ~bit;
+            candidates[unitCells[colBase + j]] &= ~bit;
+            candidates[unitCells[boxBase + j]] &= ~bit;
+        }
+    }
+
+    private void addUnitCellsWith(int unit, int bit) {
+        for (int j = 0; j < gridSize; j++) {
+            int cell = unitCells[unit * gridSize + j];
+            if ((candidates[cell] & bit) != 0) {
+                addReason(cell);
+            }
+        }
+    }
+
+    /**
+     * Adds a filled peer of a cell that holds the value, if there is one.
+     */
+    private void addPeerWithValue(int cell, int bit) {
+        int value = Integer.numberOfTrailingZeros(bit) + 1;
+        for (int u = 0; u < 3; u++) {
+            int unit = u == 0 ? rowUnit[cell] : u == 1 ? colUnit[cell] : boxUnit[cell];
+            for (int j = 0; j < gridSize; j++) {
+                int peer = unitCells[unit * gridSize + j];
+                if (values[peer] == value) {
+                    addReason(peer);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the filled cells of a unit whose values are not yet in the seen mask.
+     *
+     * @return The seen mask with the added values.
+     */
+    private int addPeersWithValues(int unit, int seen) {
+        for (int j = 0; j < gridSize; j++) {
+            int peer = unitCells[unit * gridSize + j];
+            int value = values[peer];
+            if (value != 0 && (seen & 1 << (value - 1)) == 0) {
+                seen |= 1 << (value - 1);
+                addReason(peer);
+            }
+        }
+        return seen;
+    }
+
+    private void addReason(int cell) {
+        for (int i = 0; i < reasonCount; i++) {
+            if (reasons[i] == cell) {
+                return;
+            }
+        }
+        if (reasonCount < reasons.length) {
+            reasons[reasonCount++] = cell;
+        }
+    }
+}
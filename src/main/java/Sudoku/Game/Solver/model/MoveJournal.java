@@ -0,0 +1,302 @@
+package Sudoku.Game.Solver.model;
+
+import java.util.Arrays;
+
+/**
+ * The history of the moves made on a {@link SudokuGrid}, used to undo and redo them.
+ *
+ * Every change is one int entry in a growable array:
+ * <pre>
+ * bits  0-9   cell index in row-major order
+ * bits 10-14  old value
+ * bits 15-19  new value
+ * bit  20     {@link #MARK_FLAG}: a pencil mark was toggled; both value fields hold the marked value
+ * bit  21     {@link #CHAINED_FLAG}: the entry belongs to the same move as the one before it
+ * bit  22     {@link #GAME_FLAG}: the whole game was replaced; bits 0-19 are an index into the kept games
+ * </pre>
+ * A move is its first entry and all chained entries after it, for example a placed value
+ * followed by the pencil marks it removed, so a move is undone in one step. The journal is
+ * cut off after the last applied entry when a new move is made, and it only grows when it
+ * is full, so recording a move allocates nothing. Undoing and redoing take time in
+ * proportion to the number of entries of the move.
+ *
+ * The boards of games replaced by a new game are kept beside the entries, so a new game can
+ * be undone too. Entries of values and marks can be read with {@link #getEntry} and applied to
+ * another grid with {@link SudokuGrid#applyEntry}, to replay a game or send only the changes.
+ *
+ * A journal is thread-safe. The entries of a move are added in one step with
+ * {@link #recordMove}, so moves made at the same time on different threads never interleave.
+ */
+public final class MoveJournal {
+    private static final int CELL_BITS = 10;
+    private static final int VALUE_BITS = 5;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    private static final int VALUE_MASK = (1 << VALUE_BITS) - 1;
+    /** Set in an entry that toggles a pencil mark. */
+    public static final int MARK_FLAG = 1 << 20;
+    /** Set in every entry of a move but the first. */
+    public static final int CHAINED_FLAG = 1 << 21;
+    /** Set in an entry that replaces the whole game. */
+    public static final int GAME_FLAG = 1 << 22;
+    private static final int GAME_INDEX_MASK = MARK_FLAG - 1;
+
+    private int[] entries = new int[64];
+    private int count;
+    private int position;
+    private boolean moveStarted;
+    private SudokuBoard[] games = new SudokuBoard[4];
+    private SudokuUtilities.SudokuLevel[] levels = new SudokuUtilities.SudokuLevel[4];
+    private int gameCount;
+    private int appliedGames;
+
+    MoveJournal() {
+    }
+
+    /**
+     * Gets the number of entries, including those that have been undone.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int getEntryCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of applied entries. The entries before this position have been made,
+     * those after it have been undone and can be redone.
+     *
+     * @return The position, from 0 to {@link #getEntryCount()}.
+     */
+    public synchronized int getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets an entry.
+     *
+     * @param index The index of the entry, less than {@link #getEntryCount()}.
+     * @return The packed entry.
+     * @throws IndexOutOfBoundsException If there is no entry at the index.
+     */
+    public synchronized int getEntry(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Entry " + index + " of " + count);
+        }
+        return entries[index];
+    }
+
+    /**
+     * Checks if there is a move to undo.
+     *
+     * @return true if at least one entry has been applied; false otherwise.
+     */
+    public synchronized boolean canUndo() {
+        return position > 0;
+    }
+
+    /**
+     * Checks if there is an undone move to redo.
+     *
+     * @return true if an entry has been undone and no new move made since; false otherwise.
+     */
+    public synchronized boolean canRedo() {
+        return position < count;
+    }
+
+    /**
+     * Gets the cell of an entry of a value or a mark.
+     *
+     * @param entry The packed entry.
+     * @return The cell index in row-major order.
+     */
+    public static int cellOf(int entry) {
+        return entry & CELL_MASK;
+    }
+
+    /**
+     * Gets the value before an entry of a value, or the marked value of an entry of a mark.
+     *
+     * @param entry The packed entry.
+     * @return The value, zero for an empty cell.
+     */
+    public static int oldValueOf(int entry) {
+        return entry >>> CELL_BITS & VALUE_MASK;
+    }
+
+    /**
+     * Gets the value after an entry of a value, or the marked value of an entry of a mark.
+     *
+     * @param entry The packed entry.
+     * @return The value, zero for an empty cell.
+     */
+    public static int newValueOf(int entry) {
+        return entry >>> (CELL_BITS + VALUE_BITS) & VALUE_MASK;
+    }
+
+    /**
+     * Checks if an entry toggles a pencil mark.
+     *
+     * @param entry The packed entry.
+     * @return true for an entry of a mark; false otherwise.
+     */
+    public static boolean isMark(int entry) {
+        return (entry & MARK_FLAG) != 0;
+    }
+
+    /**
+     * Checks if an entry belongs to the same move as the entry before it.
+     *
+     * @param entry The packed entry.
+     * @return true if the entry is not the first of its move; false otherwise.
+     */
+    public static boolean isChained(int entry) {
+        return (entry & CHAINED_FLAG) != 0;
+    }
+
+    /**
+     * Checks if an entry replaces the whole game.
+     *
+     * @param entry The packed entry.
+     * @return true for a new game; false for an entry of a value or a mark.
+     */
+    public static boolean isGame(int entry) {
+        return (entry & GAME_FLAG) != 0;
+    }
+
+    static int valueEntry(int cell, int oldValue, int newValue) {
+        return cell | oldValue << CELL_BITS | newValue << (CELL_BITS + VALUE_BITS);
+    }
+
+    static int markEntry(int cell, int value) {
+        return valueEntry(cell, value, value) | MARK_FLAG;
+    }
+
+    static int gameIndexOf(int entry) {
+        return entry & GAME_INDEX_MASK;
+    }
+
+    /**
+     * Makes the next recorded entry the first of a new move.
+     */
+    synchronized void startMove() {
+        moveStarted = true;
+    }
+
+    /**
+     * Adds an entry after the applied ones, dropping the undone entries. The chained flag of
+     * the entry is set unless it is the first entry since {@link #startMove()}.
+     */
+    synchronized void record(int entry) {
+        if (position < count) {
+            // Undone games are never coming back
+            Arrays.fill(games, appliedGames, gameCount, null);
+            Arrays.fill(levels, appliedGames, gameCount, null);
+            gameCount = appliedGames;
+            count = position;
+        }
+        if (count == entries.length) {
+            entries = Arrays.copyOf(entries, 2 * count);
+        }
+        entries[count++] = moveStarted ? entry & ~CHAINED_FLAG : entry | CHAINED_FLAG;
+        position = count;
+        moveStarted = false;
+    }
+
+    /**
+     * Adds the entries of a move after the applied ones, as {@link #record} does after
+     * {@link #startMove()}, without letting another move in between.
+     *
+     * @param move   The entries, the first of the move first.
+     * @param length The number of entries.
+     */
+    synchronized void recordMove(int[] move, int length) {
+        startMove();
+        for (int i = 0; i < length; i++) {
+            record(move[i]);
+        }
+    }
+
+    /**
+     * Records that the game was replaced, keeping the board and level of the replaced game.
+     */
+    synchronized void recordGame(SudokuBoard board, SudokuUtilities.SudokuLevel level) {
+        record(GAME_FLAG); // drops the undone games first
+        if (gameCount == games.length) {
+            games = Arrays.copyOf(games, 2 * gameCount);
+            levels = Arrays.copyOf(levels, 2 * gameCount);
+        }
+        games[gameCount] = board;
+        levels[gameCount] = level;
+        entries[count - 1] |= gameCount;
+        gameCount++;
+        appliedGames = gameCount;
+    }
+
+    /**
+     * Gets the kept board of a game entry.
+     */
+    synchronized SudokuBoard getGameBoard(int entry) {
+        return games[gameIndexOf(entry)];
+    }
+
+    /**
+     * Gets the kept level of a game entry.
+     */
+    synchronized SudokuUtilities.SudokuLevel getGameLevel(int entry) {
+        return levels[gameIndexOf(entry)];
+    }
+
+    /**
+     * Keeps another board and level for a game entry, when the game is swapped by undo or redo.
+     */
+    synchronized void setGame(int entry, SudokuBoard board, SudokuUtilities.SudokuLevel level) {
+        games[gameIndexOf(entry)] = board;
+        levels[gameIndexOf(entry)] = level;
+    }
+
+    /**
+     * Steps back over the last applied entry.
+     *
+     * @return The entry to undo.
+     */
+    synchronized int undoEntry() {
+        int entry = entries[--position];
+        if (isGame(entry)) {
+            appliedGames--;
+        }
+        return entry;
+    }
+
+    /**
+     * Steps forward over the first undone entry.
+     *
+     * @return The entry to redo.
+     */
+    synchronized int redoEntry() {
+        int entry = entries[position++];
+        if (isGame(entry)) {
+            appliedGames++;
+        }
+        return entry;
+    }
+
+    /**
+     * Checks if the next undone entry belongs to the move that is being redone.
+     */
+    synchronized boolean hasChainedRedo() {
+        return position < count && isChained(entries[position]);
+    }
+
+    /**
+     * Forgets all moves and kept games.
+     */
+    synchronized void clear() {
+        Arrays.fill(games, 0, gameCount, null);
+        Arrays.fill(levels, 0, gameCount, null);
+        gameCount = 0;
+        appliedGames = 0;
+        count = 0;
+        position = 0;
+        moveStarted = false;
+    }
+}
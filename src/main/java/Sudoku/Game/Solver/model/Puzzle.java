@@ -0,0 +1,89 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * A Sudoku puzzle with its solution, stored as flat arrays of values in row-major order,
+ * 81 of them for a classic puzzle. Instances are treated as immutable once created.
+ */
+public class Puzzle {
+    private final SudokuUtilities.SudokuLevel level;
+    private final SudokuSize size;
+    private final int[] givens;
+    private final int[] solution;
+
+    /**
+     * Creates a puzzle. The arrays are not copied and must not be changed afterwards.
+     * The size of the puzzle follows from the length of the arrays.
+     *
+     * @param level    The difficulty level of the puzzle.
+     * @param givens   The initial values, zero representing an empty cell.
+     * @param solution The solution.
+     * @throws IllegalArgumentException If the arrays differ in length or no board size has that many cells.
+     */
+    public Puzzle(SudokuUtilities.SudokuLevel level, int[] givens, int[] solution) {
+        if (givens.length != solution.length) {
+            throw new IllegalArgumentException("Givens and solution differ in length");
+        }
+        this.level = level;
+        this.size = SudokuSize.ofCellCount(givens.length);
+        this.givens = givens;
+        this.solution = solution;
+    }
+
+    /**
+     * Gets the difficulty level of the puzzle.
+     *
+     * @return The difficulty level.
+     */
+    public SudokuUtilities.SudokuLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the size of the puzzle.
+     *
+     * @return The board size.
+     */
+    public SudokuSize getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the initial value of a cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return The initial value, zero if the cell starts empty.
+     */
+    public int getGiven(int row, int col) {
+        return givens[row * size.getGridSize() + col];
+    }
+
+    /**
+     * Gets the solution value of a cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return The correct value of the cell.
+     */
+    public int getSolution(int row, int col) {
+        return solution[row * size.getGridSize() + col];
+    }
+
+    /**
+     * Copies the initial values into the given array in row-major order.
+     *
+     * @param out An array with at least one element per cell.
+     */
+    public void copyGivens(int[] out) {
+        System.arraycopy(givens, 0, out, 0, givens.length);
+    }
+
+    /**
+     * Copies the solution into the given array in row-major order.
+     *
+     * @param out An array with at least one element per cell.
+     */
+    public void copySolution(int[] out) {
+        System.arraycopy(solution, 0, out, 0, solution.length);
+    }
+}
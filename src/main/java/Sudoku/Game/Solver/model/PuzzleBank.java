@@ -0,0 +1,278 @@
+package Sudoku.Game.Solver.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * A read-only file of puzzle/solution pairs, opened with memory mapping so that any
+ * puzzle can be read in constant time without loading the file onto the heap.
+ *
+ * The file starts with a header followed by fixed-width records grouped by level:
+ * <pre>
+ *  0  int        magic "SDKB"
+ *  4  byte       format version
+ *  5  byte       number of levels
+ *  6  short      reserved, zero
+ *  8  long[n]    number of records for each level, in SudokuLevel order
+ * </pre>
+ * Each record holds the solution as 81 nibbles with the level in the last nibble (41
+ * bytes), a bitmap of the cells given from the start (11 bytes) and a rating (1 byte).
+ * Files larger than 2 GB are mapped as several segments.
+ */
+public class PuzzleBank implements Closeable {
+    private static final int MAGIC = 0x53444B42;
+    private static final byte VERSION = 1;
+    private static final int GRID_SIZE = SudokuUtilities.GRID_SIZE;
+    private static final int CELL_COUNT = GRID_SIZE * GRID_SIZE;
+    private static final int SOLUTION_BYTES = CELL_COUNT / 2 + 1;
+    private static final int GIVEN_BYTES = (CELL_COUNT + 7) / 8;
+    /** The size in bytes of one puzzle record. */
+    public static final int RECORD_SIZE = SOLUTION_BYTES + GIVEN_BYTES + 1;
+    private static final SudokuUtilities.SudokuLevel[] LEVELS = SudokuUtilities.SudokuLevel.values();
+    private static final int HEADER_SIZE = 8 + 8 * LEVELS.length;
+    private static final int RECORDS_PER_SEGMENT = Integer.MAX_VALUE / RECORD_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long[] counts = new long[LEVELS.length];
+    private final long[] firstRecord = new long[LEVELS.length];
+
+    private PuzzleBank(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Keep reading until the header is complete or the file ends
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not a puzzle bank");
+        }
+        if (header.get() != VERSION || header.get() != LEVELS.length) {
+            throw new IOException("Unsupported puzzle bank version");
+        }
+        header.getShort();
+        long total = 0;
+        for (int level = 0; level < LEVELS.length; level++) {
+            counts[level] = header.getLong();
+            firstRecord[level] = total;
+            total += counts[level];
+        }
+        if (HEADER_SIZE + total * RECORD_SIZE > channel.size()) {
+            throw new IOException("Puzzle bank is truncated");
+        }
+        int segmentCount = (int) ((total + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long records = Math.min(RECORDS_PER_SEGMENT, total - (long) i * RECORDS_PER_SEGMENT);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + (long) i * RECORDS_PER_SEGMENT * RECORD_SIZE, records * RECORD_SIZE);
+        }
+    }
+
+    /**
+     * Opens a puzzle bank file and maps it into memory.
+     *
+     * @param path The bank file.
+     * @return The opened bank.
+     * @throws IOException If the file cannot be read or is not a puzzle bank.
+     */
+    public static PuzzleBank open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PuzzleBank(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of puzzles of a level in the bank.
+     *
+     * @param level The difficulty level.
+     * @return The number of puzzles.
+     */
+    public long getCount(SudokuUtilities.SudokuLevel level) {
+        return counts[level.ordinal()];
+    }
+
+    /**
+     * Reads a puzzle from the bank.
+     *
+     * @param level The difficulty level.
+     * @param index The index of the puzzle among the puzzles of the level.
+     * @return The puzzle.
+     */
+    public Puzzle get(SudokuUtilities.SudokuLevel level, long index) {
+        int[] givens = new int[CELL_COUNT];
+        int[] solution = new int[CELL_COUNT];
+        read(level, index, givens, solution);
+        return new Puzzle(level, givens, solution);
+    }
+
+    /**
+     * Reads a puzzle from the bank into the given arrays.
+     *
+     * @param level    The difficulty level.
+     * @param index    The index of the puzzle among the puzzles of the level.
+     * @param givens   An array of 81 elements that receives the initial values, zero for an empty cell.
+     * @param solution An array of 81 elements that receives the solution.
+     * @return The rating stored with the puzzle, zero if it was not rated.
+     */
+    public int read(SudokuUtilities.SudokuLevel level, long index, int[] givens, int[] solution) {
+        if (index < 0 || index >= counts[level.ordinal()]) {
+            throw new IndexOutOfBoundsException("puzzle " + index + " of " + level);
+        }
+        long record = firstRecord[level.ordinal()] + index;
+        ByteBuffer segment = segments[(int) (record / RECORDS_PER_SEGMENT)];
+        int offset = (int) (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            int packed = segment.get(offset + cell / 2);
+            solution[cell] = (cell & 1) == 0 ? packed >>> 4 & 0xF : packed & 0xF;
+        }
+        int givenOffset = offset + SOLUTION_BYTES;
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            boolean given = (segment.get(givenOffset + cell / 8) & 1 << (cell % 8)) != 0;
+            givens[cell] = given ? solution[cell] : 0;
+        }
+        return segment.get(givenOffset + GIVEN_BYTES) & 0xFF;
+    }
+
+    /**
+     * Draws a random puzzle of a level from the bank.
+     *
+     * @param level  The difficulty level.
+     * @param random The source of randomness.
+     * @return A puzzle, or null if the bank holds no puzzles of the level.
+     */
+    public Puzzle random(SudokuUtilities.SudokuLevel level, Random random) {
+        long count = counts[level.ordinal()];
+        if (count == 0) {
+            return null;
+        }
+        long index = count <= Integer.MAX_VALUE ? random.nextInt((int) count)
+                : Math.floorMod(random.nextLong(), count);
+        return get(level, index);
+    }
+
+    /**
+     * Closes the file. The mapping stays valid until it is garbage collected, but the
+     * bank must not be used after it is closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes a puzzle bank. Records are appended to one temporary file per level, so any
+     * number of puzzles can be added in any order with constant memory; the bank itself
+     * is assembled when the writer is closed. A writer is not thread-safe.
+     */
+    public static class Writer implements Closeable {
+        private final Path path;
+        private final Path[] parts = new Path[LEVELS.length];
+        private final FileChannel[] channels = new FileChannel[LEVELS.length];
+        private final long[] counts = new long[LEVELS.length];
+        private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        private final int[] givens = new int[CELL_COUNT];
+        private final int[] solution = new int[CELL_COUNT];
+
+        /**
+         * Creates a writer for a new bank file.
+         *
+         * @param path The bank file to create; an existing file is replaced on close.
+         * @throws IOException If the temporary files cannot be created.
+         */
+        public Writer(Path path) throws IOException {
+            this.path = path;
+            Path directory = path.toAbsolutePath().getParent();
+            for (int level = 0; level < LEVELS.length; level++) {
+                parts[level] = Files.createTempFile(directory, "bank-" + LEVELS[level], ".part");
+                channels[level] = FileChannel.open(parts[level], StandardOpenOption.WRITE);
+            }
+        }
+
+        /**
+         * Adds a puzzle to the bank.
+         *
+         * @param puzzle The puzzle, stored under its own level.
+         * @param rating The rating of the puzzle, 0-255, zero if it is not rated.
+         * @throws IOException If the record cannot be written.
+         * @throws IllegalArgumentException If the puzzle is not a classic 9x9 puzzle.
+         */
+        public void add(Puzzle puzzle, int rating) throws IOException {
+            if (puzzle.getSize() != SudokuSize.CLASSIC) {
+                throw new IllegalArgumentException("A puzzle bank holds 9x9 puzzles, not " + puzzle.getSize());
+            }
+            int level = puzzle.getLevel().ordinal();
+            puzzle.copyGivens(givens);
+            puzzle.copySolution(solution);
+            record.clear();
+            for (int cell = 0; cell < CELL_COUNT; cell += 2) {
+                int low = cell + 1 < CELL_COUNT ? solution[cell + 1] : level;
+                record.put((byte) (solution[cell] << 4 | low));
+            }
+            int bits = 0;
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                if (givens[cell] != 0) {
+                    bits |= 1 << (cell % 8);
+                }
+                if (cell % 8 == 7 || cell == CELL_COUNT - 1) {
+                    record.put((byte) bits);
+                    bits = 0;
+                }
+            }
+            record.put((byte) rating);
+            record.flip();
+            while (record.hasRemaining()) {
+                channels[level].write(record);
+            }
+            counts[level]++;
+        }
+
+        /**
+         * Writes the header, joins the records of all levels into the bank file and
+         * removes the temporary files.
+         *
+         * @throws IOException If the bank file cannot be written.
+         */
+        @Override
+        public void close() throws IOException {
+            try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).put(VERSION).put((byte) LEVELS.length).putShort((short) 0);
+                for (long count : counts) {
+                    header.putLong(count);
+                }
+                header.flip();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                for (int level = 0; level < LEVELS.length; level++) {
+                    channels[level].close();
+                    try (FileChannel part = FileChannel.open(parts[level], StandardOpenOption.READ)) {
+                        long size = part.size();
+                        long done = 0;
+                        while (done < size) {
+                            done += part.transferTo(done, size - done, out);
+                        }
+                    }
+                }
+            } finally {
+                for (int level = 0; level < LEVELS.length; level++) {
+                    channels[level].close();
+                    Files.deleteIfExists(parts[level]);
+                }
+            }
+        }
+    }
+}
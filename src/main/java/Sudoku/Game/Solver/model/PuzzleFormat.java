@@ -0,0 +1,35 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * The text formats in which collections of puzzles are shared, read by {@link PuzzleReader}
+ * and written by {@link PuzzleWriter}.
+ *
+ * In every format a cell is one character: '.' or '0' for an empty cell, '1'-'9' for the
+ * values up to 9, and letters from 'A' (or 'a') for 10 upwards on larger boards.
+ */
+public enum PuzzleFormat {
+    /**
+     * One puzzle per line: the cells in row-major order, 81 characters on a classic board.
+     * The line may go on, after a space, tab, comma, semicolon or '|', with the solution in
+     * the same form and a numeric rating, in either order; other fields are ignored. A puzzle
+     * directly followed by its solution, as in the 162 characters of
+     * {@link SudokuUtilities#generateSudokuMatrix}, is read too. Empty lines and lines
+     * starting with '#' are skipped.
+     */
+    LINE,
+    /**
+     * The grid layout of .sdk files: one row of the board per line, puzzles separated by
+     * empty lines. Characters other than cells, such as '|', '-', '+' and spaces, are layout
+     * and ignored, so lines drawn between boxes are skipped. Lines starting with '#' are
+     * comments. The format has no solution or rating.
+     */
+    SDK,
+    /**
+     * Comma-separated values as in the published collections of rated puzzles, with a header
+     * line such as {@code id,puzzle,solution,clues,difficulty}. The puzzle is taken from the
+     * column named puzzle, quizzes or quiz, the solution from solution or solutions and the
+     * rating from difficulty or rating. Without a header, the first column is the puzzle and
+     * the second, if any, the solution.
+     */
+    CSV
+}
@@ -0,0 +1,235 @@
+package Sudoku.Game.Solver.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps bounded queues of ready-made puzzles, one per difficulty level, filled by a pool
+ * of background producer threads. Taking a puzzle is a queue poll. When the queue for the
+ * level is empty, the most recently produced puzzle of that level is used as a seed and a
+ * random variant of it is made with {@link SudokuTransformer}, which needs no solving.
+ * Only before the first puzzle of a level has been produced is one generated on the
+ * calling thread.
+ *
+ * Hit, miss and production counters are kept so that the queue capacity and the number of
+ * producers can be sized from real traffic.
+ */
+public class PuzzlePool {
+    private static final int DEFAULT_CAPACITY = 32;
+    private static PuzzlePool shared;
+
+    private final Map<SudokuUtilities.SudokuLevel, BlockingQueue<Puzzle>> queues =
+            new EnumMap<>(SudokuUtilities.SudokuLevel.class);
+    // The latest produced puzzle of each level, indexed by ordinal
+    private final AtomicReferenceArray<Puzzle> seeds =
+            new AtomicReferenceArray<>(SudokuUtilities.SudokuLevel.values().length);
+    private final ExecutorService producers;
+    private final Object refillSignal = new Object();
+    private volatile boolean running = true;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder transformed = new LongAdder();
+    private final LongAdder produced = new LongAdder();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Creates a pool and starts its producers.
+     *
+     * @param capacity      The number of ready puzzles to keep for each level.
+     * @param producerCount The number of background threads generating puzzles.
+     */
+    public PuzzlePool(int capacity, int producerCount) {
+        for (SudokuUtilities.SudokuLevel level : SudokuUtilities.SudokuLevel.values()) {
+            queues.put(level, new ArrayBlockingQueue<>(capacity));
+        }
+        producers = Executors.newFixedThreadPool(producerCount, runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-producer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        for (int i = 0; i < producerCount; i++) {
+            producers.execute(this::produce);
+        }
+    }
+
+    /**
+     * Gets the pool shared by all games in this JVM, creating it on first use with one
+     * producer per two available processors.
+     *
+     * @return The shared pool.
+     */
+    public static synchronized PuzzlePool getShared() {
+        if (shared == null) {
+            int producerCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            shared = new PuzzlePool(DEFAULT_CAPACITY, producerCount);
+        }
+        return shared;
+    }
+
+    /**
+     * Takes a ready puzzle of the given level. If none is queued, a variant of a recent
+     * puzzle is returned, or a new one is generated on the calling thread if there is no
+     * such puzzle yet.
+     *
+     * @param level The difficulty level.
+     * @return A puzzle with a unique solution.
+     */
+    public Puzzle take(SudokuUtilities.SudokuLevel level) {
+        Puzzle puzzle = queues.get(level).poll();
+        synchronized (refillSignal) {
+            refillSignal.notifyAll();
+        }
+        if (puzzle != null) {
+            hits.increment();
+            return puzzle;
+        }
+        misses.increment();
+        Puzzle seed = seeds.get(level.ordinal());
+        if (seed != null) {
+            transformed.increment();
+            return SudokuUtilities.transformer().transform(seed);
+        }
+        return SudokuUtilities.newPuzzle(level, SudokuUtilities.generator());
+    }
+
+    private void produce() {
+        SudokuGenerator generator = new SudokuGenerator();
+        while (running) {
+            SudokuUtilities.SudokuLevel level = mostNeededLevel();
+            if (level == null) {
+                awaitDemand();
+                continue;
+            }
+            Puzzle puzzle = SudokuUtilities.newPuzzle(level, generator);
+            seeds.set(level.ordinal(), puzzle);
+            if (queues.get(level).offer(puzzle)) {
+                produced.increment();
+            }
+        }
+    }
+
+    /**
+     * Finds the level with the most free space in its queue.
+     *
+     * @return The level to refill next, or null if every queue is full.
+     */
+    private SudokuUtilities.SudokuLevel mostNeededLevel() {
+        SudokuUtilities.SudokuLevel best = null;
+        int bestFree = 0;
+        for (Map.Entry<SudokuUtilities.SudokuLevel, BlockingQueue<Puzzle>> entry : queues.entrySet()) {
+            int free = entry.getValue().remainingCapacity();
+            if (free > bestFree) {
+                best = entry.getKey();
+                bestFree = free;
+            }
+        }
+        return best;
+    }
+
+    private void awaitDemand() {
+        synchronized (refillSignal) {
+            try {
+                // The timeout covers a take that happens between the check and the wait
+                refillSignal.wait(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * Stops the producers. Puzzles already queued can still be taken.
+     */
+    public void shutdown() {
+        running = false;
+        producers.shutdownNow();
+        try {
+            producers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the number of puzzles currently queued for a level.
+     *
+     * @param level The difficulty level.
+     * @return The number of ready puzzles.
+     */
+    public int getQueued(SudokuUtilities.SudokuLevel level) {
+        return queues.get(level).size();
+    }
+
+    /**
+     * Gets the number of takes that were served from a queue.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of takes that found the queue empty.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of misses that were served by transforming a seed puzzle.
+     *
+     * @return The number of transformed puzzles.
+     */
+    public long getTransformed() {
+        return transformed.sum();
+    }
+
+    /**
+     * Gets the number of puzzles the producers have added to the queues.
+     *
+     * @return The number of produced puzzles.
+     */
+    public long getProduced() {
+        return produced.sum();
+    }
+
+    /**
+     * Gets the average rate at which the producers have refilled the queues since the pool was created.
+     *
+     * @return Produced puzzles per second.
+     */
+    public double getRefillRate() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? produced.sum() / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PuzzlePool[hits=%d, misses=%d, transformed=%d, produced=%d, refill=%.1f/s, queued=%s]",
+                getHits(), getMisses(), getTransformed(), getProduced(), getRefillRate(), queueSizes());
+    }
+
+    private String queueSizes() {
+        StringBuilder sizes = new StringBuilder();
+        for (Map.Entry<SudokuUtilities.SudokuLevel, BlockingQueue<Puzzle>> entry : queues.entrySet()) {
+            if (sizes.length() > 0) {
+                sizes.append(", ");
+            }
+            sizes.append(entry.getKey()).append('=').append(entry.getValue().size());
+        }
+        return sizes.toString();
+    }
+}
@@ -0,0 +1,574 @@
+package Sudoku.Game.Solver.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads puzzles one at a time from a collection in one of the text formats of
+ * {@link PuzzleFormat}, so that files of any size can be read in constant memory.
+ *
+ * The input is read through one reusable buffer and parsed from its bytes: no String is made
+ * for a line or a puzzle, and the values go into arrays that {@link #next()} fills again for
+ * every puzzle. Records that do not hold a puzzle of the size of the reader are skipped and
+ * counted, see {@link #getInvalidCount()}. Lines may end with "\n" or "\r\n", and a UTF-8 byte
+ * order mark at the start is skipped. A reader is not thread-safe.
+ */
+public final class PuzzleReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int END = -1;
+    private static final int INVALID = 0;
+    private static final int FOUND = 1;
+    private static final int NO_COLUMN = -1;
+
+    private final ReadableByteChannel channel;
+    private final PuzzleFormat format;
+    private final SudokuSize size;
+    private final byte[] cellValues = new byte[256]; // The value of every byte, -1 if it is not a cell
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int position; // The first byte not yet read
+    private int limit; // The end of the bytes read from the channel
+    private boolean endOfInput;
+    private int lineStart;
+    private int lineEnd;
+    private long lineNumber;
+
+    private final int[] givens;
+    private final int[] solution;
+    private boolean hasSolution;
+    private double rating;
+    private long invalid;
+
+    // The columns of a CSV file, known once its first line has been read
+    private boolean headerRead;
+    private int puzzleColumn = 0;
+    private int solutionColumn = 1;
+    private int ratingColumn = NO_COLUMN;
+
+    /**
+     * Creates a reader of classic 9x9 puzzles.
+     *
+     * @param channel The input, closed with the reader.
+     * @param format  The format of the input.
+     */
+    public PuzzleReader(ReadableByteChannel channel, PuzzleFormat format) {
+        this(channel, format, SudokuSize.CLASSIC);
+    }
+
+    /**
+     * Creates a reader of puzzles of the given size.
+     *
+     * @param channel The input, closed with the reader.
+     * @param format  The format of the input.
+     * @param size    The size of the puzzles.
+     */
+    public PuzzleReader(ReadableByteChannel channel, PuzzleFormat format, SudokuSize size) {
+        this.channel = channel;
+        this.format = format;
+        this.size = size;
+        givens = new int[size.getCellCount()];
+        solution = new int[size.getCellCount()];
+        for (int b = 0; b < cellValues.length; b++) {
+            cellValues[b] = (byte) valueOf((char) b);
+        }
+    }
+
+    /**
+     * Opens a file of classic 9x9 puzzles.
+     *
+     * @param path   The file.
+     * @param format The format of the file.
+     * @return A reader positioned before the first puzzle.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static PuzzleReader open(Path path, PuzzleFormat format) throws IOException {
+        return new PuzzleReader(FileChannel.open(path, StandardOpenOption.READ), format);
+    }
+
+    /**
+     * Reads the next puzzle, skipping records that hold none.
+     *
+     * @return true if a puzzle was read; false at the end of the input.
+     * @throws IOException If the input cannot be read or a line does not fit in the buffer.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            hasSolution = false;
+            rating = Double.NaN;
+            int result;
+            switch (format) {
+                case SDK:
+                    result = readGrid();
+                    break;
+                case CSV:
+                    result = readRow();
+                    break;
+                default:
+                    result = readLinePuzzle();
+                    break;
+            }
+            if (result == FOUND) {
+                return true;
+            }
+            if (result == END) {
+                return false;
+            }
+            invalid++;
+        }
+    }
+
+    /**
+     * Gets the size of the puzzles.
+     *
+     * @return The board size.
+     */
+    public SudokuSize getSize() {
+        return size;
+    }
+
+    /**
+     * Copies the initial values of the puzzle.
+     *
+     * @param out An array with one element per cell that receives the values, zero for an
+     *            empty cell, in row-major order.
+     */
+    public void copyGivens(int[] out) {
+        System.arraycopy(givens, 0, out, 0, givens.length);
+    }
+
+    /**
+     * Gets the number of initial values of the puzzle.
+     *
+     * @return The number of cells that are not empty.
+     */
+    public int getClueCount() {
+        int clues = 0;
+        for (int value : givens) {
+            if (value != 0) {
+                clues++;
+            }
+        }
+        return clues;
+    }
+
+    /**
+     * Checks if the record of the puzzle holds its solution too.
+     *
+     * @return true if {@link #copySolution} can be called; false otherwise.
+     */
+    public boolean hasSolution() {
+        return hasSolution;
+    }
+
+    /**
+     * Copies the solution given with the puzzle.
+     *
+     * @param out An array with one element per cell that receives the solution.
+     * @throws IllegalStateException If the record has no solution.
+     */
+    public void copySolution(int[] out) {
+        if (!hasSolution) {
+            throw new IllegalStateException("The puzzle on line " + lineNumber + " has no solution");
+        }
+        System.arraycopy(solution, 0, out, 0, solution.length);
+    }
+
+    /**
+     * Gets the rating given with the puzzle.
+     *
+     * @return The rating, or NaN if the record has none.
+     */
+    public double getRating() {
+        return rating;
+    }
+
+    /**
+     * Gets the number of the line the puzzle ends on.
+     *
+     * @return The line number, starting from 1.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Gets the number of records skipped so far because they held no puzzle.
+     *
+     * @return The number of invalid records.
+     */
+    public long getInvalidCount() {
+        return invalid;
+    }
+
+    /**
+     * Makes a game puzzle of the puzzle that was read. The puzzle must have exactly one
+     * solution; if a solution was given, it must be that one. The level is the one the rater
+     * gives, whose score can be read afterwards.
+     *
+     * @param solver A solver for the size of the reader.
+     * @param rater  A rater for the size of the reader.
+     * @return A new puzzle, or null if the puzzle does not have exactly one solution or the
+     *         given solution is not it.
+     */
+    public Puzzle toPuzzle(SudokuSolver solver, DifficultyRater rater) {
+        int[] puzzleGivens = givens.clone();
+        int[] puzzleSolution = givens.clone();
+        if (solver.countSolutions(puzzleSolution, 2) != 1 || !solver.solve(puzzleSolution)) {
+            return null;
+        }
+        for (int cell = 0; hasSolution && cell < solution.length; cell++) {
+            if (solution[cell] != puzzleSolution[cell]) {
+                return null;
+            }
+        }
+        rater.rate(puzzleGivens);
+        return new Puzzle(rater.getLevel(), puzzleGivens, puzzleSolution);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads a puzzle of the line format.
+     */
+    private int readLinePuzzle() throws IOException {
+        while (readLine()) {
+            int start = skipSeparators(lineStart);
+            if (start == lineEnd || bytes[start] == '#') {
+                continue;
+            }
+            int cellCount = givens.length;
+            int end = endsAt(start + cellCount) ? start + cellCount : fieldEnd(start);
+            if (end - start == 2 * cellCount && parseCells(start, givens) && parseCells(start + cellCount, solution)) {
+                hasSolution = true;
+            } else if (end - start != cellCount || !parseCells(start, givens)) {
+                return INVALID;
+            }
+            for (start = skipSeparators(end); start < lineEnd; start = skipSeparators(end)) {
+                end = fieldEnd(start);
+                if (!hasSolution && end - start == cellCount && parseCells(start, solution)) {
+                    hasSolution = true;
+                } else if (Double.isNaN(rating)) {
+                    rating = parseNumber(start, end);
+                }
+            }
+            return FOUND;
+        }
+        return END;
+    }
+
+    /**
+     * Reads a puzzle of the grid layout: as many lines with cells as the board has rows.
+     */
+    private int readGrid() throws IOException {
+        int gridSize = size.getGridSize();
+        int cells = 0;
+        boolean valid = true;
+        while (readLine()) {
+            if (lineStart < lineEnd && bytes[lineStart] == '#') {
+                continue;
+            }
+            int rowCells = 0;
+            for (int i = lineStart; i < lineEnd; i++) {
+                int value = cellValue(bytes[i]);
+                if (value >= 0) {
+                    if (cells + rowCells < givens.length) {
+                        givens[cells + rowCells] = value;
+                    }
+                    rowCells++;
+                }
+            }
+            if (rowCells == 0) {
+                continue; // an empty line or a line drawn between boxes
+            }
+            valid &= rowCells == gridSize;
+            cells += rowCells;
+            if (cells >= givens.length) {
+                return valid && cells == givens.length ? FOUND : INVALID;
+            }
+        }
+        return cells == 0 ? END : INVALID;
+    }
+
+    /**
+     * Reads a puzzle from a line of comma-separated values, after the header if there is one.
+     */
+    private int readRow() throws IOException {
+        while (readLine()) {
+            if (lineStart == lineEnd) {
+                continue;
+            }
+            if (!headerRead) {
+                headerRead = true;
+                if (readHeader()) {
+                    continue;
+                }
+            }
+            boolean puzzleFound = false;
+            int column = 0;
+            for (int start = lineStart; start <= lineEnd; column++) {
+                int end = start;
+                while (end < lineEnd && bytes[end] != ',') {
+                    end++;
+                }
+                int from = trimStart(start, end);
+                int to = trimEnd(from, end);
+                int length = to - from;
+                if (column == puzzleColumn) {
+                    if (length != givens.length || !parseCells(from, givens)) {
+                        return INVALID;
+                    }
+                    puzzleFound = true;
+                } else if (column == solutionColumn && length > 0) {
+                    if (length != solution.length || !parseCells(from, solution)) {
+                        return INVALID;
+                    }
+                    hasSolution = true;
+                } else if (column == ratingColumn) {
+                    rating = parseNumber(from, to);
+                }
+                start = end + 1;
+            }
+            return puzzleFound ? FOUND : INVALID;
+        }
+        return END;
+    }
+
+    /**
+     * Finds the columns of a CSV file in its first line.
+     *
+     * @return true if the line is a header; false if it holds a puzzle.
+     */
+    private boolean readHeader() {
+        int puzzle = NO_COLUMN;
+        int solutionIndex = NO_COLUMN;
+        int ratingIndex = NO_COLUMN;
+        int column = 0;
+        for (int start = lineStart; start <= lineEnd; column++) {
+            int end = start;
+            while (end < lineEnd && bytes[end] != ',') {
+                end++;
+            }
+            int from = trimStart(start, end);
+            int to = trimEnd(from, end);
+            if (nameIs(from, to, "puzzle") || nameIs(from, to, "quizzes") || nameIs(from, to, "quiz")) {
+                puzzle = column;
+            } else if (nameIs(from, to, "solution") || nameIs(from, to, "solutions")) {
+                solutionIndex = column;
+            } else if (nameIs(from, to, "difficulty") || nameIs(from, to, "rating")) {
+                ratingIndex = column;
+            }
+            start = end + 1;
+        }
+        if (puzzle == NO_COLUMN) {
+            return false;
+        }
+        puzzleColumn = puzzle;
+        solutionColumn = solutionIndex;
+        ratingColumn = ratingIndex;
+        return true;
+    }
+
+    private boolean nameIs(int from, int to, String name) {
+        if (to - from != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.toLowerCase((char) bytes[from + i]) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skips spaces and a quote at the start of a CSV field.
+     */
+    private int trimStart(int from, int to) {
+        while (from < to && (bytes[from] == ' ' || bytes[from] == '"')) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Skips spaces and a quote at the end of a CSV field.
+     */
+    private int trimEnd(int from, int to) {
+        while (to > from && (bytes[to - 1] == ' ' || bytes[to - 1] == '"')) {
+            to--;
+        }
+        return to;
+    }
+
+    private int skipSeparators(int from) {
+        while (from < lineEnd && isSeparator(bytes[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    private int fieldEnd(int from) {
+        while (from < lineEnd && !isSeparator(bytes[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Checks if a field ends at an index, as the puzzle usually does, without scanning the field.
+     */
+    private boolean endsAt(int index) {
+        return index == lineEnd || index < lineEnd && isSeparator(bytes[index]);
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == ',' || b == ';' || b == '|';
+    }
+
+    /**
+     * Parses one character per cell.
+     *
+     * @return false if one of them is not a value of the board.
+     */
+    private boolean parseCells(int from, int[] out) {
+        for (int cell = 0; cell < out.length; cell++) {
+            int value = cellValue(bytes[from + cell]);
+            if (value < 0) {
+                return false;
+            }
+            out[cell] = value;
+        }
+        return true;
+    }
+
+    private int cellValue(byte b) {
+        return cellValues[b & 0xFF];
+    }
+
+    /**
+     * Gets the value of a cell character.
+     *
+     * @return The value, zero for an empty cell, or -1 if the character is not a value of the board.
+     */
+    private int valueOf(char ch) {
+        int value;
+        if (ch == '.') {
+            return 0;
+        } else if (ch >= '0' && ch <= '9') {
+            value = ch - '0';
+        } else if (ch >= 'A' && ch <= 'Z') {
+            value = ch - 'A' + 10;
+        } else if (ch >= 'a' && ch <= 'z') {
+            value = ch - 'a' + 10;
+        } else {
+            return -1;
+        }
+        return value <= size.getGridSize() ? value : -1;
+    }
+
+    /**
+     * Parses a decimal number such as 2.5 or -1.
+     *
+     * @return The number, or NaN if the field is not one.
+     */
+    private double parseNumber(int from, int to) {
+        boolean negative = from < to && bytes[from] == '-';
+        int i = negative ? from + 1 : from;
+        long digits = 0;
+        long scale = 1;
+        boolean point = false;
+        boolean any = false;
+        for (; i < to; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9' && digits < Long.MAX_VALUE / 10 - 9) {
+                digits = digits * 10 + (b - '0');
+                if (point) {
+                    scale *= 10;
+                }
+                any = true;
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!any) {
+            return Double.NaN;
+        }
+        double number = (double) digits / scale;
+        return negative ? -number : number;
+    }
+
+    /**
+     * Finds the next line in the buffer, reading more of the input when needed.
+     *
+     * @return false at the end of the input.
+     */
+    private boolean readLine() throws IOException {
+        int scanned = 0;
+        while (true) {
+            int i = position + scanned;
+            while (i < limit && bytes[i] != '\n') {
+                i++;
+            }
+            scanned = i - position;
+            if (i < limit) {
+                lineStart = position;
+                lineEnd = i;
+                position = i + 1;
+                break;
+            }
+            if (endOfInput) {
+                if (position == limit) {
+                    return false;
+                }
+                lineStart = position;
+                lineEnd = limit;
+                position = limit;
+                break;
+            }
+            fill();
+        }
+        if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+        if (lineNumber == 0 && lineEnd - lineStart >= 3
+                && bytes[lineStart] == (byte) 0xEF && bytes[lineStart + 1] == (byte) 0xBB && bytes[lineStart + 2] == (byte) 0xBF) {
+            lineStart += 3;
+        }
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer and reads more after them.
+     */
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(bytes, position, bytes, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == bytes.length) {
+            throw new IOException("Line " + (lineNumber + 1) + " is longer than " + bytes.length + " bytes");
+        }
+        buffer.limit(bytes.length).position(limit);
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package Sudoku.Game.Solver.model;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes puzzles to a collection in one of the text formats of {@link PuzzleFormat}, in the
+ * form {@link PuzzleReader} reads back.
+ *
+ * Puzzles are encoded straight into one reusable buffer, which is written to the channel when
+ * it runs full and on {@link #flush()} and {@link #close()}; no String is made per puzzle.
+ * A CSV file starts with the header {@code id,puzzle,solution,clues,difficulty}, the id
+ * counting from 0. A writer is not thread-safe.
+ */
+public final class PuzzleWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String CSV_HEADER = "id,puzzle,solution,clues,difficulty\n";
+
+    private final WritableByteChannel channel;
+    private final PuzzleFormat format;
+    private final SudokuSize size;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] cellCharacters; // The character of every value
+    private final byte[] digits = new byte[20];
+    private final int[] givens;
+    private final int[] solution;
+    private long count;
+
+    /**
+     * Creates a writer of classic 9x9 puzzles with '.' for empty cells.
+     *
+     * @param channel The output, closed with the writer.
+     * @param format  The format of the output.
+     */
+    public PuzzleWriter(WritableByteChannel channel, PuzzleFormat format) {
+        this(channel, format, SudokuSize.CLASSIC, '.');
+    }
+
+    /**
+     * Creates a writer of puzzles of the given size.
+     *
+     * @param channel The output, closed with the writer.
+     * @param format  The format of the output.
+     * @param size    The size of the puzzles.
+     * @param empty   The character written for an empty cell, '.' or '0'.
+     * @throws IllegalArgumentException If empty is neither '.' nor '0'.
+     */
+    public PuzzleWriter(WritableByteChannel channel, PuzzleFormat format, SudokuSize size, char empty) {
+        if (empty != '.' && empty != '0') {
+            throw new IllegalArgumentException("Empty cell character " + empty);
+        }
+        this.channel = channel;
+        this.format = format;
+        this.size = size;
+        cellCharacters = new byte[size.getGridSize() + 1];
+        cellCharacters[0] = (byte) empty;
+        for (int value = 1; value < cellCharacters.length; value++) {
+            cellCharacters[value] = (byte) SudokuUtilities.convertIntToSudokuChar(value);
+        }
+        givens = new int[size.getCellCount()];
+        solution = new int[size.getCellCount()];
+        if (format == PuzzleFormat.CSV) {
+            for (int i = 0; i < CSV_HEADER.length(); i++) {
+                buffer.put((byte) CSV_HEADER.charAt(i));
+            }
+        }
+    }
+
+    /**
+     * Creates a file of classic 9x9 puzzles, replacing any file at the path.
+     *
+     * @param path   The file.
+     * @param format The format of the file.
+     * @return A writer of the file.
+     * @throws IOException If the file cannot be created.
+     */
+    public static PuzzleWriter create(Path path, PuzzleFormat format) throws IOException {
+        return new PuzzleWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), format);
+    }
+
+    /**
+     * Writes a puzzle. The SDK format has no room for the solution and rating, which are left out.
+     *
+     * @param puzzleGivens   The initial values, one per cell, zero for an empty cell.
+     * @param puzzleSolution The solution, or null if it is not known.
+     * @param rating         The rating, or NaN if it is not known; written with one decimal.
+     * @throws IOException If the output cannot be written.
+     */
+    public void write(int[] puzzleGivens, int[] puzzleSolution, double rating) throws IOException {
+        int cellCount = size.getCellCount();
+        if (buffer.remaining() < 2 * cellCount + size.getGridSize() + 64) {
+            flushBuffer();
+        }
+        switch (format) {
+            case SDK:
+                if (count > 0) {
+                    buffer.put((byte) '\n');
+                }
+                for (int row = 0; row < size.getGridSize(); row++) {
+                    putCells(puzzleGivens, row * size.getGridSize(), size.getGridSize());
+                    buffer.put((byte) '\n');
+                }
+                break;
+            case CSV:
+                putNumber(count);
+                buffer.put((byte) ',');
+                putCells(puzzleGivens, 0, cellCount);
+                buffer.put((byte) ',');
+                if (puzzleSolution != null) {
+                    putCells(puzzleSolution, 0, cellCount);
+                }
+                buffer.put((byte) ',');
+                int clues = 0;
+                for (int cell = 0; cell < cellCount; cell++) {
+                    if (puzzleGivens[cell] != 0) {
+                        clues++;
+                    }
+                }
+                putNumber(clues);
+                buffer.put((byte) ',');
+                putRating(rating);
+                buffer.put((byte) '\n');
+                break;
+            default:
+                putCells(puzzleGivens, 0, cellCount);
+                if (puzzleSolution != null) {
+                    buffer.put((byte) ' ');
+                    putCells(puzzleSolution, 0, cellCount);
+                }
+                if (!Double.isNaN(rating)) {
+                    buffer.put((byte) ' ');
+                    putRating(rating);
+                }
+                buffer.put((byte) '\n');
+                break;
+        }
+        count++;
+    }
+
+    /**
+     * Writes a puzzle with its solution.
+     *
+     * @param puzzle The puzzle, of the size of the writer.
+     * @param rating The rating, or NaN if it is not known.
+     * @throws IOException If the output cannot be written.
+     */
+    public void write(Puzzle puzzle, double rating) throws IOException {
+        puzzle.copyGivens(givens);
+        puzzle.copySolution(solution);
+        write(givens, solution, rating);
+    }
+
+    /**
+     * Gets the number of puzzles written.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void putCells(int[] values, int from, int length) {
+        // Straight into the backing array, as a put per byte costs a bounds check each
+        byte[] out = buffer.array();
+        int position = buffer.position();
+        for (int cell = from; cell < from + length; cell++) {
+            out[position++] = cellCharacters[values[cell]];
+        }
+        buffer.position(position);
+    }
+
+    /**
+     * Writes a rating rounded to one decimal, such as 2.5 or 7.0.
+     */
+    private void putRating(double rating) {
+        if (Double.isNaN(rating)) {
+            return;
+        }
+        long tenths = Math.round(Math.abs(rating) * 10);
+        if (rating < 0 && tenths != 0) {
+            buffer.put((byte) '-');
+        }
+        putNumber(tenths / 10);
+        buffer.put((byte) '.');
+        buffer.put((byte) ('0' + tenths % 10));
+    }
+
+    private void putNumber(long number) {
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while (number > 0);
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,123 @@
+package Sudoku.Game.Solver.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The lock of a {@link SudokuGrid}, kept in a single long so that a game costs no more memory
+ * for it than a field, however many games a server holds.
+ *
+ * A move locks the stripes of the row, column and box of its cell, one bit each among
+ * {@link #STRIPES}, in a single compare-and-set, so it can never deadlock. Moves whose units
+ * map to different stripes run at the same time; moves that share a unit, and so could both
+ * change its mask or count its conflicts, wait for each other. An operation on the whole board
+ * takes the lock exclusively: it stops new moves from starting, then waits for those under way.
+ *
+ * Hints read the whole board without locking: like the optimistic reads of
+ * {@link java.util.concurrent.locks.StampedLock}, they take a stamp, copy what they need and
+ * check that nothing was locked or unlocked in between. Every unlock adds one to a version
+ * kept in the upper bits, so any change is seen. Snapshots take the lock exclusively only to
+ * share the words of the board, which copies nothing.
+ *
+ * Waiting threads spin briefly and then yield; the lock is held for the time of a move, a
+ * fraction of a microsecond, never across blocking calls. It is not reentrant.
+ */
+final class StripedLock {
+    /** The number of stripes; unit u maps to stripe (u % STRIPES). */
+    static final int STRIPES = 32;
+    private static final long ALL_STRIPES = (1L << STRIPES) - 1;
+    private static final long EXCLUSIVE = 1L << STRIPES;
+    private static final long LOCKED = ALL_STRIPES | EXCLUSIVE;
+    private static final long VERSION = EXCLUSIVE << 1;
+    private static final int SPINS = 64;
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(StripedLock.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long state;
+
+    /**
+     * Gets the stripes a move on a cell locks: those of its row, column and box.
+     */
+    static long stripesOf(SudokuSize size, int cell) {
+        return 1L << (size.rowUnit[cell] % STRIPES)
+                | 1L << (size.colUnit[cell] % STRIPES)
+                | 1L << (size.boxUnit[cell] % STRIPES);
+    }
+
+    /**
+     * Locks stripes for a move, waiting while any of them is locked or the board is locked
+     * exclusively.
+     */
+    void lockStripes(long stripes) {
+        for (int spins = 0; ; spins++) {
+            long current = state;
+            if ((current & (stripes | EXCLUSIVE)) == 0 && STATE.compareAndSet(this, current, current | stripes)) {
+                return;
+            }
+            backOff(spins);
+        }
+    }
+
+    /**
+     * Unlocks the stripes locked by {@link #lockStripes}.
+     */
+    void unlockStripes(long stripes) {
+        // The stripe bits are set, so subtracting them clears them without touching the rest
+        STATE.getAndAdd(this, VERSION - stripes);
+    }
+
+    /**
+     * Locks the whole board. Moves that have started are finished first.
+     */
+    void lockExclusive() {
+        for (int spins = 0; ; spins++) {
+            long current = state;
+            if ((current & EXCLUSIVE) == 0 && STATE.compareAndSet(this, current, current | EXCLUSIVE)) {
+                break;
+            }
+            backOff(spins);
+        }
+        for (int spins = 0; (state & ALL_STRIPES) != 0; spins++) {
+            backOff(spins);
+        }
+    }
+
+    /**
+     * Unlocks the board locked by {@link #lockExclusive}.
+     */
+    void unlockExclusive() {
+        STATE.getAndAdd(this, VERSION - EXCLUSIVE);
+    }
+
+    /**
+     * Takes a stamp before an optimistic read.
+     */
+    long stamp() {
+        return state;
+    }
+
+    /**
+     * Checks that nothing was locked when the stamp was taken and nothing has changed since,
+     * so that what was read after taking it is consistent.
+     */
+    boolean validate(long stamp) {
+        // The reads made before must not be moved after the check
+        VarHandle.acquireFence();
+        return (stamp & LOCKED) == 0 && state == stamp;
+    }
+
+    private static void backOff(int spins) {
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+}
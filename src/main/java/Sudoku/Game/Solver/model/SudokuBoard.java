@@ -0,0 +1,543 @@
+package Sudoku.Game.Solver.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A compact Sudoku board holding the user values, the solution and the given flags of
+ * all cells in a single long array.
+ *
+ * Every cell takes a fixed number of bits: the user value, then the solution, then the
+ * given flag. A value takes 4 bits on a 9x9 board, so a cell takes 9 bits and seven cells
+ * fit in a word; larger boards use 5 bits per value. The contents of the rows, columns and
+ * boxes are kept the same way as masks after the cells, where bit (value - 1) is set when
+ * the value is present in the unit, so a legality check is a constant-time mask test. The
+ * pencil marks of the cells follow as masks of the same form, one per cell.
+ * Fields never cross a word boundary. The number of filled, wrong and conflicting cells is
+ * updated on every change. A 9x9 board takes 304 bytes of heap, against several kilobytes
+ * for a grid of Tile objects: 96 bytes of cells, which alone meet the aim of about 100 bytes
+ * per game, 128 bytes of unit masks and pencil marks, and 80 bytes of array and object headers
+ * and fields.
+ *
+ * Words are only changed with compare-and-set, so threads that change fields sharing a word
+ * never lose each other's changes, and the three counts are packed in one long that a change
+ * of a cell updates in a single atomic step, so they always agree with each other. A mask bit
+ * is set or cleared atomically too. What a board cannot do on its own is keep the unit masks
+ * right when two threads change cells of the same row, column or box at once, since finding
+ * a repeated value takes a scan of the unit: such changes must not overlap, which
+ * {@link SudokuGrid} ensures with its striped lock. Operations on the whole board, such as
+ * {@link #load} and {@link #copyFrom}, must not overlap with any other change.
+ *
+ * A board is copied in constant time by {@link #copy()}: the copy shares the words, and each
+ * of the two boards copies them the first time it is changed, since neither knows whether the
+ * other still uses them. A copy that is only read, such as a snapshot, never costs more than a
+ * few fields, and the board that is played on copies its words once per copy taken.
+ */
+public final class SudokuBoard {
+    private static final VarHandle WORD = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle WORDS;
+    private static final VarHandle COUNTS;
+    // The counts are packed as 16 bits of filled cells, 16 bits of wrong cells and 32 bits of conflicts
+    private static final long FILLED = 1;
+    private static final long WRONG = 1L << 16;
+    private static final long CONFLICT = 1L << 32;
+
+    static {
+        try {
+            WORDS = MethodHandles.lookup().findVarHandle(SudokuBoard.class, "words", long[].class);
+            COUNTS = MethodHandles.lookup().findVarHandle(SudokuBoard.class, "counts", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final SudokuSize size;
+    private final int gridSize;
+    private final int valueBits;
+    private final int valueMask;
+    private final int givenBit;
+    private final int cellBits;
+    private final int cellsPerWord;
+    private final int masksPerWord;
+    private final int maskStart;
+    private volatile long[] words;
+    // Words handed to a copy of the board as well; they are never changed again
+    private volatile long[] sharedWords;
+    private volatile long counts;
+
+    /**
+     * Creates an empty 9x9 board.
+     */
+    public SudokuBoard() {
+        this(SudokuSize.CLASSIC);
+    }
+
+    /**
+     * Creates an empty board of the given size.
+     *
+     * @param size The size of the board.
+     */
+    public SudokuBoard(SudokuSize size) {
+        this(size, null);
+    }
+
+    /**
+     * Creates a board of the given size on shared words, or on new words if there are none.
+     */
+    private SudokuBoard(SudokuSize size, long[] shared) {
+        this.size = size;
+        gridSize = size.getGridSize();
+        valueBits = 32 - Integer.numberOfLeadingZeros(gridSize);
+        valueMask = (1 << valueBits) - 1;
+        givenBit = 1 << (2 * valueBits);
+        cellBits = 2 * valueBits + 1;
+        cellsPerWord = 64 / cellBits;
+        masksPerWord = 64 / gridSize;
+        maskStart = (size.getCellCount() + cellsPerWord - 1) / cellsPerWord;
+        int masks = size.getUnitCount() + size.getCellCount();
+        words = shared != null ? shared : new long[maskStart + (masks + masksPerWord - 1) / masksPerWord];
+        sharedWords = shared;
+    }
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return The board size.
+     */
+    public SudokuSize getSize() {
+        return size;
+    }
+
+    /**
+     * Replaces the board with a puzzle: the initial values are filled in and marked as
+     * given, all other cells are empty and have no pencil marks.
+     *
+     * @param puzzle The puzzle with the initial values and the solution, of the same size as the board.
+     * @throws IllegalArgumentException If the puzzle has another size.
+     */
+    public void load(Puzzle puzzle) {
+        if (puzzle.getSize() != size) {
+            throw new IllegalArgumentException("Puzzle of size " + puzzle.getSize() + " on a " + size + " board");
+        }
+        long[] current = words;
+        if (current == sharedWords) {
+            words = new long[current.length];
+        } else {
+            Arrays.fill(current, 0);
+        }
+        counts = 0;
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                int given = puzzle.getGiven(row, col);
+                setCell(row, col, puzzle.getSolution(row, col), given != 0, given);
+            }
+        }
+    }
+
+    /**
+     * Makes this board a copy of another one, in constant time: the two share their words until
+     * one of them is changed. Neither board may be changed meanwhile.
+     *
+     * @param other The board to copy, of the same size.
+     * @throws IllegalArgumentException If the other board has another size.
+     */
+    public void copyFrom(SudokuBoard other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Cannot copy a " + other.size + " board to a " + size + " board");
+        }
+        long[] shared = other.words;
+        other.sharedWords = shared;
+        sharedWords = shared;
+        words = shared;
+        counts = other.counts;
+    }
+
+    /**
+     * Makes a copy of the board in constant time. The copy shares the words of this board, and
+     * each of the two copies them the first time it is changed, so later changes of either are
+     * not seen by the other. The board may not be changed while it is copied.
+     *
+     * @return A new board with the same contents.
+     */
+    public SudokuBoard copy() {
+        long[] shared = words;
+        sharedWords = shared;
+        SudokuBoard copy = new SudokuBoard(size, shared);
+        copy.counts = counts;
+        return copy;
+    }
+
+    /**
+     * Checks if two boards still share their words, so that neither has changed since one was
+     * copied from the other.
+     */
+    boolean sharesWordsWith(SudokuBoard other) {
+        return words == other.words;
+    }
+
+    /**
+     * Empties every cell that was not given from the start and removes all pencil marks.
+     */
+    public void clearValues() {
+        for (int cell = 0; cell < size.getCellCount(); cell++) {
+            if ((cellField(cell) & givenBit) == 0) {
+                setValue(cell, 0);
+            }
+            setMask(size.getUnitCount() + cell, 0);
+        }
+    }
+
+    /**
+     * Gets the user value of a cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return The value of the cell, zero if it is empty.
+     */
+    public int getValue(int row, int col) {
+        return cellField(row * gridSize + col) & valueMask;
+    }
+
+    /**
+     * Gets the correct value of a cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return The value of the cell in the solution.
+     */
+    public int getSolution(int row, int col) {
+        return cellField(row * gridSize + col) >>> valueBits & valueMask;
+    }
+
+    /**
+     * Checks if a cell was given from the start.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return true if the cell is an initial cell; false if the player may change it.
+     */
+    public boolean isGiven(int row, int col) {
+        return (cellField(row * gridSize + col) & givenBit) != 0;
+    }
+
+    /**
+     * Sets the user value of a cell, given or not. Values that break the rules are
+     * accepted and counted as conflicts.
+     *
+     * @param row   The row of the cell (zero-based index).
+     * @param col   The column of the cell (zero-based index).
+     * @param value The new value, zero to empty the cell.
+     * @throws IllegalArgumentException If the value is larger than the grid size or negative.
+     */
+    public void setValue(int row, int col, int value) {
+        checkValue(value);
+        setValue(row * gridSize + col, value);
+    }
+
+    /**
+     * Sets the correct value of a cell.
+     *
+     * @param row      The row of the cell (zero-based index).
+     * @param col      The column of the cell (zero-based index).
+     * @param solution The value of the cell in the solution.
+     * @throws IllegalArgumentException If the value is larger than the grid size or negative.
+     */
+    public void setSolution(int row, int col, int solution) {
+        checkValue(solution);
+        int cell = row * gridSize + col;
+        int field = cellField(cell);
+        int value = field & valueMask;
+        long delta = 0;
+        if (value != 0 && value != (field >>> valueBits & valueMask)) {
+            delta -= WRONG;
+        }
+        setCellField(cell, field & ~(valueMask << valueBits) | solution << valueBits);
+        if (value != 0 && value != solution) {
+            delta += WRONG;
+        }
+        COUNTS.getAndAdd(this, delta);
+    }
+
+    /**
+     * Replaces everything stored for a cell.
+     *
+     * @param row      The row of the cell (zero-based index).
+     * @param col      The column of the cell (zero-based index).
+     * @param solution The value of the cell in the solution.
+     * @param given    Whether the cell is an initial cell.
+     * @param value    The user value, zero for an empty cell.
+     * @throws IllegalArgumentException If a value is larger than the grid size or negative.
+     */
+    public void setCell(int row, int col, int solution, boolean given, int value) {
+        checkValue(value);
+        setSolution(row, col, solution);
+        int cell = row * gridSize + col;
+        setCellField(cell, given ? cellField(cell) | givenBit : cellField(cell) & ~givenBit);
+        setValue(cell, value);
+    }
+
+    /**
+     * Checks if a value can be placed in a cell without repeating it in the cell's
+     * row, column or box.
+     *
+     * @param row   The row of the cell (zero-based index).
+     * @param col   The column of the cell (zero-based index).
+     * @param value The value to check, from 1 to the grid size.
+     * @return true if the value is not present in the row, column or box; false otherwise.
+     */
+    public boolean isLegal(int row, int col, int value) {
+        if (value < 1 || value > gridSize) {
+            return false;
+        }
+        int cell = row * gridSize + col;
+        int used = mask(size.rowUnit[cell]) | mask(size.colUnit[cell]) | mask(size.boxUnit[cell]);
+        return (used & 1 << (value - 1)) == 0;
+    }
+
+    /**
+     * Gets the values that can still be placed in an empty cell. The unit masks are kept up
+     * to date on every change, so this takes constant time.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return A bitmask where bit (value - 1) is set for every value that is not present in
+     *         the row, column or box, zero if the cell is filled.
+     */
+    public int getCandidates(int row, int col) {
+        int cell = row * gridSize + col;
+        if ((cellField(cell) & valueMask) != 0) {
+            return 0;
+        }
+        int used = mask(size.rowUnit[cell]) | mask(size.colUnit[cell]) | mask(size.boxUnit[cell]);
+        return size.getAllValues() & ~used;
+    }
+
+    /**
+     * Gets the pencil marks of a cell: the values the player has noted as possible. Marks are
+     * kept when a value is placed in the cell, so they are back if the value is removed.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return A bitmask where bit (value - 1) is set for every marked value.
+     */
+    public int getMarks(int row, int col) {
+        return mask(size.getUnitCount() + row * gridSize + col);
+    }
+
+    /**
+     * Sets the pencil marks of a cell.
+     *
+     * @param row   The row of the cell (zero-based index).
+     * @param col   The column of the cell (zero-based index).
+     * @param marks A bitmask where bit (value - 1) is set for every marked value.
+     * @throws IllegalArgumentException If a bit above the grid size is set.
+     */
+    public void setMarks(int row, int col, int marks) {
+        if ((marks & ~size.getAllValues()) != 0) {
+            throw new IllegalArgumentException("Invalid pencil marks " + Integer.toBinaryString(marks));
+        }
+        setMask(size.getUnitCount() + row * gridSize + col, marks);
+    }
+
+    /**
+     * Removes a value from the pencil marks of a cell in one atomic step, so that marks removed
+     * from the same cell by several threads at once are all removed.
+     *
+     * @param row   The row of the cell (zero-based index).
+     * @param col   The column of the cell (zero-based index).
+     * @param value The value, from 1 to the grid size.
+     * @return true if the value was marked; false if it was not.
+     * @throws IllegalArgumentException If the value is out of range.
+     */
+    public boolean removeMark(int row, int col, int value) {
+        if (value < 1 || value > gridSize) {
+            throw new IllegalArgumentException("Invalid cell value " + value);
+        }
+        int bit = 1 << (value - 1);
+        return (updateMask(size.getUnitCount() + row * gridSize + col, 0, bit) & bit) != 0;
+    }
+
+    /**
+     * Gets the number of filled cells, including the initial ones.
+     *
+     * @return The number of cells with a value.
+     */
+    public int getFilledCount() {
+        return (int) counts & 0xFFFF;
+    }
+
+    /**
+     * Checks if every cell is filled with its correct value. The counts are read at once, so
+     * the answer is right even while other threads change the board.
+     *
+     * @return true if the board is solved; false otherwise.
+     */
+    public boolean isSolved() {
+        long current = counts;
+        return ((int) current & 0xFFFF) == size.getCellCount() && ((int) (current >>> 16) & 0xFFFF) == 0;
+    }
+
+    /**
+     * Gets the number of filled cells whose value differs from the solution.
+     *
+     * @return The number of wrong cells.
+     */
+    public int getWrongCount() {
+        return (int) (counts >>> 16) & 0xFFFF;
+    }
+
+    /**
+     * Gets the number of repeated values on the board, counted as in
+     * {@link SudokuEngine#getConflictCount()}.
+     *
+     * @return The total number of conflicts in all rows, columns and boxes.
+     */
+    public int getConflictCount() {
+        return (int) (counts >>> 32);
+    }
+
+    private void checkValue(int value) {
+        if (value < 0 || value > gridSize) {
+            throw new IllegalArgumentException("Invalid cell value " + value);
+        }
+    }
+
+    private void setValue(int cell, int value) {
+        int field = cellField(cell);
+        int old = field & valueMask;
+        if (old == value) {
+            return;
+        }
+        int solution = field >>> valueBits & valueMask;
+        // Applied to the counts at the end in one step, so that readers never see half a change
+        long delta = 0;
+        if (old != 0) {
+            delta -= FILLED;
+            if (old != solution) {
+                delta -= WRONG;
+            }
+            delta -= CONFLICT * (removeFromUnit(size.rowUnit[cell], cell, old)
+                    + removeFromUnit(size.colUnit[cell], cell, old)
+                    + removeFromUnit(size.boxUnit[cell], cell, old));
+        }
+        setCellField(cell, field & ~valueMask | value);
+        if (value != 0) {
+            delta += FILLED;
+            if (value != solution) {
+                delta += WRONG;
+            }
+            delta += CONFLICT * (addToUnit(size.rowUnit[cell], cell, value)
+                    + addToUnit(size.colUnit[cell], cell, value)
+                    + addToUnit(size.boxUnit[cell], cell, value));
+        }
+        COUNTS.getAndAdd(this, delta);
+    }
+
+    /**
+     * Adds a value to a unit. Masks have no room for counts, so a value repeated in a unit is
+     * found by scanning its cells.
+     *
+     * @return 1 if the value was already in the unit, which is a new conflict; 0 otherwise.
+     */
+    private int addToUnit(int unit, int cell, int value) {
+        if (countInUnit(unit, cell, value) > 0) {
+            return 1;
+        }
+        updateMask(unit, 1 << (value - 1), 0);
+        return 0;
+    }
+
+    /**
+     * Removes a value from a unit.
+     *
+     * @return 1 if the value is still in the unit, which is one conflict less; 0 otherwise.
+     */
+    private int removeFromUnit(int unit, int cell, int value) {
+        if (countInUnit(unit, cell, value) > 0) {
+            return 1;
+        }
+        updateMask(unit, 0, 1 << (value - 1));
+        return 0;
+    }
+
+    /**
+     * Counts the cells of a unit other than the given one that hold a value.
+     */
+    private int countInUnit(int unit, int cell, int value) {
+        int count = 0;
+        for (int i = unit * gridSize; i < (unit + 1) * gridSize; i++) {
+            int other = size.unitCells[i];
+            if (other != cell && (cellField(other) & valueMask) == value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int cellField(int cell) {
+        return (int) (word(cell / cellsPerWord) >>> (cell % cellsPerWord * cellBits)) & ((1 << cellBits) - 1);
+    }
+
+    private void setCellField(int cell, int value) {
+        setBits(cell / cellsPerWord, cell % cellsPerWord * cellBits, cellBits, value);
+    }
+
+    /**
+     * Reads a mask: the mask of a unit, or the pencil marks of a cell after the unit masks.
+     */
+    private int mask(int index) {
+        return (int) (word(maskStart + index / masksPerWord) >>> (index % masksPerWord * gridSize)) & size.getAllValues();
+    }
+
+    private void setMask(int index, int mask) {
+        setBits(maskStart + index / masksPerWord, index % masksPerWord * gridSize, gridSize, mask);
+    }
+
+    /**
+     * Sets and clears bits of a mask in one atomic step.
+     *
+     * @return The mask before the change.
+     */
+    private int updateMask(int index, int set, int clear) {
+        int word = maskStart + index / masksPerWord;
+        int shift = index % masksPerWord * gridSize;
+        long[] owned = ownWords();
+        long old;
+        do {
+            old = (long) WORD.getAcquire(owned, word);
+        } while (!WORD.compareAndSet(owned, word, old, old & ~((long) clear << shift) | (long) set << shift));
+        return (int) (old >>> shift) & size.getAllValues();
+    }
+
+    private long word(int word) {
+        return (long) WORD.getAcquire(words, word);
+    }
+
+    /**
+     * Gets the words to change, copying them first if a copy of the board shares them. Threads
+     * changing different cells may get here at once, so only one of them installs its copy.
+     * No copy of the board is made while cells are changed, so the shared words stay as they are
+     * while they are copied.
+     */
+    private long[] ownWords() {
+        long[] current = words;
+        while (current == sharedWords) {
+            long[] owned = current.clone();
+            if (WORDS.compareAndSet(this, current, owned)) {
+                return owned;
+            }
+            current = words;
+        }
+        return current;
+    }
+
+    private void setBits(int word, int shift, int bits, int value) {
+        long mask = ((1L << bits) - 1) << shift;
+        long[] owned = ownWords();
+        long old;
+        do {
+            old = (long) WORD.getAcquire(owned, word);
+        } while (!WORD.compareAndSet(owned, word, old, old & ~mask | (long) value << shift & mask));
+    }
+}
@@ -0,0 +1,444 @@
+package Sudoku.Game.Solver.model;
+
+import java.util.Arrays;
+
+/**
+ * A primitive Sudoku engine that keeps the board as a flat int array and the
+ * contents of every row, column and box as int bitmasks, where bit (value - 1)
+ * is set when the value is present in the unit.
+ *
+ * Checking whether a value is legal in a cell is a constant-time mask test, and
+ * the solver uses constraint propagation (naked and hidden singles) plus
+ * backtracking on the cell with the fewest candidates. No objects are allocated
+ * after construction, so one engine can be reused for any number of boards of its
+ * {@link SudokuSize}. As a {@link SudokuSolver}, the engine loads each board it is
+ * given, replacing its current board.
+ */
+public class SudokuEngine implements SudokuSolver {
+    private final SudokuSize size;
+    private final int gridSize;
+    private final int cellCount;
+    private final int unitCount;
+    private final int allValues;
+    // Shared lookup tables of the size, see SudokuSize
+    private final int[] rowUnit;
+    private final int[] colUnit;
+    private final int[] boxUnit;
+    private final int[] unitCells;
+
+    private final int[] cells;
+    private final int[] unitMasks;
+    // How many times each value occurs in each unit, so user entries that break the rules can be undone
+    private final byte[] unitCounts;
+    // Repeated values per unit, and in total
+    private final byte[] unitConflicts;
+    private int conflicts;
+
+    // Solver state: cells placed by the search, in order, so they can be taken back
+    private final int[] trail;
+    private int trailSize;
+    private boolean keepSolution;
+    private SolutionHandler handler;
+    private final int[] solution;
+    // Searches left before the current search gives up, see countSolutions(int, long)
+    private long searchesLeft;
+
+    /**
+     * Creates an engine for classic 9x9 boards.
+     */
+    public SudokuEngine() {
+        this(SudokuSize.CLASSIC);
+    }
+
+    /**
+     * Creates an engine for boards of the given size.
+     *
+     * @param size The size of the boards.
+     */
+    public SudokuEngine(SudokuSize size) {
+        this.size = size;
+        gridSize = size.getGridSize();
+        cellCount = size.getCellCount();
+        unitCount = size.getUnitCount();
+        allValues = size.getAllValues();
+        rowUnit = size.rowUnit;
+        colUnit = size.colUnit;
+        boxUnit = size.boxUnit;
+        unitCells = size.unitCells;
+        cells = new int[cellCount];
+        unitMasks = new int[unitCount];
+        unitCounts = new byte[unitCount * gridSize];
+        unitConflicts = new byte[unitCount];
+        trail = new int[cellCount];
+        solution = new int[cellCount];
+    }
+
+    /**
+     * Gets the size of the boards this engine works on.
+     *
+     * @return The board size.
+     */
+    @Override
+    public SudokuSize getSize() {
+        return size;
+    }
+
+    /**
+     * Removes all values from the board.
+     */
+    public void clear() {
+        Arrays.fill(cells, 0);
+        Arrays.fill(unitMasks, 0);
+        Arrays.fill(unitCounts, (byte) 0);
+        Arrays.fill(unitConflicts, (byte) 0);
+        conflicts = 0;
+    }
+
+    /**
+     * Replaces the board with the given values.
+     *
+     * @param values One value per cell in row-major order, zero representing an empty cell.
+     */
+    public void load(int[] values) {
+        clear();
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (values[cell] != 0) {
+                set(cell, values[cell]);
+            }
+        }
+    }
+
+    /**
+     * Copies the current board into the given array in row-major order.
+     *
+     * @param out An array with at least one element per cell.
+     */
+    public void copyTo(int[] out) {
+        System.arraycopy(cells, 0, out, 0, cellCount);
+    }
+
+    /**
+     * Gets the value of a cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return The value of the cell, zero if it is empty.
+     */
+    public int get(int row, int col) {
+        return cells[row * gridSize + col];
+    }
+
+    /**
+     * Sets the value of a cell, replacing any value already there. Values that break
+     * the rules are accepted and counted as conflicts.
+     *
+     * @param row   The row of the cell (zero-based index).
+     * @param col   The column of the cell (zero-based index).
+     * @param value The new value, zero to empty the cell.
+     */
+    public void set(int row, int col, int value) {
+        set(row * gridSize + col, value);
+    }
+
+    private void set(int cell, int value) {
+        int old = cells[cell];
+        if (old == value) {
+            return;
+        }
+        if (old != 0) {
+            removeFromUnit(rowUnit[cell], old);
+            removeFromUnit(colUnit[cell], old);
+            removeFromUnit(boxUnit[cell], old);
+        }
+        if (value != 0) {
+            addToUnit(rowUnit[cell], value);
+            addToUnit(colUnit[cell], value);
+            addToUnit(boxUnit[cell], value);
+        }
+        cells[cell] = value;
+    }
+
+    private void addToUnit(int unit, int value) {
+        int count = ++unitCounts[unit * gridSize + value - 1];
+        if (count == 1) {
+            unitMasks[unit] |= 1 << (value - 1);
+        } else {
+            unitConflicts[unit]++;
+            conflicts++;
+        }
+    }
+
+    private void removeFromUnit(int unit, int value) {
+        int count = --unitCounts[unit * gridSize + value - 1];
+        if (count == 0) {
+            unitMasks[unit] &= ~(1 << (value - 1));
+        } else {
+            unitConflicts[unit]--;
+            conflicts--;
+        }
+    }
+
+    /**
+     * Checks if a value can be placed in a cell without repeating it in the cell's
+     * row, column or box.
+     *
+     * @param row   The row of the cell (zero-based index).
+     * @param col   The column of the cell (zero-based index).
+     * @param value The value to check, from 1 to the grid size.
+     * @return true if the value is not present in the row, column or box; false otherwise.
+     */
+    public boolean isLegal(int row, int col, int value) {
+        if (value < 1 || value > gridSize) {
+            return false;
+        }
+        int cell = row * gridSize + col;
+        return (usedMask(cell) & (1 << (value - 1))) == 0;
+    }
+
+    /**
+     * Gets the values that can still be placed in an empty cell.
+     *
+     * @param row The row of the cell (zero-based index).
+     * @param col The column of the cell (zero-based index).
+     * @return A bitmask where bit (value - 1) is set for every legal value, zero if the cell is filled.
+     */
+    public int getCandidates(int row, int col) {
+        return candidates(row * gridSize + col);
+    }
+
+    private int usedMask(int cell) {
+        return unitMasks[rowUnit[cell]] | unitMasks[colUnit[cell]] | unitMasks[boxUnit[cell]];
+    }
+
+    private int candidates(int cell) {
+        return cells[cell] != 0 ? 0 : allValues & ~usedMask(cell);
+    }
+
+    /**
+     * Checks if any value is repeated in a row, column or box.
+     *
+     * @return true if the board breaks the rules; false otherwise.
+     */
+    public boolean hasConflicts() {
+        return conflicts > 0;
+    }
+
+    /**
+     * Gets the number of repeated values on the board. A value that occurs n times in a
+     * unit counts as n - 1 conflicts in that unit, and a cell can conflict in its row,
+     * column and box at the same time.
+     *
+     * @return The total number of conflicts in all rows, columns and boxes.
+     */
+    public int getConflictCount() {
+        return conflicts;
+    }
+
+    /**
+     * Gets the number of repeated values in one row, column or box.
+     *
+     * @param unit The unit, numbered as in {@link SudokuSize}: 0-8 for the rows, 9-17 for the columns and 18-26 for the boxes of a 9x9 board.
+     * @return The number of conflicts in the unit.
+     */
+    public int getUnitConflicts(int unit) {
+        return unitConflicts[unit];
+    }
+
+    /**
+     * Solves the board in place. If the board has more than one solution the first
+     * one found is kept.
+     *
+     * @return true if a solution was found; false if the board cannot be solved,
+     *         in which case the board is left unchanged.
+     */
+    public boolean solve() {
+        if (conflicts > 0) {
+            return false;
+        }
+        keepSolution = true;
+        trailSize = 0;
+        searchesLeft = Long.MAX_VALUE;
+        return search(1) > 0;
+    }
+
+    /**
+     * Counts the solutions of the board, stopping once the limit is reached.
+     * The board is left unchanged.
+     *
+     * @param limit The largest count of interest, for example 2 to check that a solution is unique.
+     * @return The number of solutions found, at most limit.
+     */
+    public int countSolutions(int limit) {
+        return countSolutions(limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Counts the solutions of the board like {@link #countSolutions(int)}, but gives up after
+     * a number of search steps. Used where a board may be too hard to decide in reasonable time,
+     * as can happen on large boards.
+     *
+     * @param limit       The largest count of interest.
+     * @param maxSearches The number of search steps after which to give up.
+     * @return The number of solutions found, at most limit, or -1 if the search gave up.
+     */
+    int countSolutions(int limit, long maxSearches) {
+        if (conflicts > 0) {
+            return 0;
+        }
+        keepSolution = false;
+        trailSize = 0;
+        searchesLeft = maxSearches;
+        int found = search(limit);
+        return searchesLeft < 0 ? -1 : found;
+    }
+
+    @Override
+    public boolean solve(int[] values) {
+        checkValues(values);
+        load(values);
+        if (!solve()) {
+            return false;
+        }
+        copyTo(values);
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[] values, int limit, long maxSearches) {
+        checkValues(values);
+        load(values);
+        return countSolutions(limit, maxSearches);
+    }
+
+    @Override
+    public int findSolutions(int[] values, int limit, SolutionHandler handler) {
+        checkValues(values);
+        load(values);
+        this.handler = handler;
+        try {
+            return countSolutions(limit);
+        } finally {
+            this.handler = null;
+        }
+    }
+
+    private void checkValues(int[] values) {
+        if (values.length != cellCount) {
+            throw new IllegalArgumentException("Expected " + cellCount + " values, got " + values.length);
+        }
+        for (int value : values) {
+            if (value < 0 || value > gridSize) {
+                throw new IllegalArgumentException("Invalid cell value " + value);
+            }
+        }
+    }
+
+    private int search(int limit) {
+        int mark = trailSize;
+        int found = 0;
+        if (--searchesLeft >= 0 && propagate()) {
+            int best = -1;
+            int bestCount = gridSize + 1;
+            for (int cell = 0; cell < cellCount && bestCount > 2; cell++) {
+                if (cells[cell] == 0) {
+                    int count = Integer.bitCount(candidates(cell));
+                    if (count < bestCount) {
+                        best = cell;
+                        bestCount = count;
+                    }
+                }
+            }
+            if (best < 0) {
+                found = 1;
+                if (keepSolution) {
+                    return found;
+                }
+                if (handler != null) {
+                    copyTo(solution);
+                    handler.solutionFound(solution);
+                }
+            } else {
+                int candidates = candidates(best);
+                while (candidates != 0 && found < limit) {
+                    int bit = candidates & -candidates;
+                    candidates ^= bit;
+                    place(best, Integer.numberOfTrailingZeros(bit) + 1);
+                    found += search(limit - found);
+                    if (keepSolution && found > 0) {
+                        return found;
+                    }
+                    undoTo(trailSize - 1);
+                    if (searchesLeft < 0) {
+                        break;
+                    }
+                }
+            }
+        }
+        undoTo(mark);
+        return found;
+    }
+
+    /**
+     * Places every naked and hidden single until none is left.
+     *
+     * @return false if a contradiction was found; true otherwise.
+     */
+    private boolean propagate() {
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (cells[cell] == 0) {
+                    int candidates = candidates(cell);
+                    if (candidates == 0) {
+                        return false;
+                    }
+                    if ((candidates & (candidates - 1)) == 0) {
+                        place(cell, Integer.numberOfTrailingZeros(candidates) + 1);
+                        progress = true;
+                    }
+                }
+            }
+            for (int unit = 0; unit < unitCount; unit++) {
+                int once = 0;
+                int twice = 0;
+                int base = unit * gridSize;
+                for (int i = 0; i < gridSize; i++) {
+                    int candidates = candidates(unitCells[base + i]);
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+                if ((once | unitMasks[unit]) != allValues) {
+                    return false;
+                }
+                int hidden = once & ~twice;
+                if (hidden == 0) {
+                    continue;
+                }
+                for (int i = 0; i < gridSize; i++) {
+                    int cell = unitCells[base + i];
+                    int single = candidates(cell) & hidden;
+                    if (single != 0) {
+                        if ((single & (single - 1)) != 0) {
+                            return false;
+                        }
+                        place(cell, Integer.numberOfTrailingZeros(single) + 1);
+                        progress = true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void place(int cell, int value) {
+        set(cell, value);
+        trail[trailSize++] = cell;
+    }
+
+    private void undoTo(int mark) {
+        while (trailSize > mark) {
+            set(trail[--trailSize], 0);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package Sudoku.Game.Solver.model;
+
+import java.util.Random;
+
+/**
+ * Generates random Sudoku puzzles with exactly one solution.
+ *
+ * A full grid is built by filling the independent diagonal boxes with random
+ * permutations and solving the rest. Boards with boxes of 4x4 or more are too slow to
+ * fill that way, so they start from a fixed valid pattern that is shuffled with
+ * {@link SudokuTransformer}. Clues are then removed in random order, and a removal is
+ * only kept if the puzzle still has a unique solution. Removal stops when the number of
+ * clues reaches the target for the requested level. On large boards a uniqueness check
+ * that takes too long counts as a failed removal; the first of those removals are tried
+ * once more with a larger budget when the target has not been reached.
+ *
+ * Removal in random order cannot get a 16x16 board much below 95 clues, or a 25x25 board
+ * below 280, so these sizes have their own targets, with medium above that floor and easy
+ * above medium. A hard puzzle of those sizes keeps as few clues as removal can reach.
+ *
+ * A generator reuses its engine and scratch arrays and is therefore not thread-safe;
+ * use one instance per thread.
+ */
+public class SudokuGenerator {
+    // Search steps after which a uniqueness check gives up; far more than a 9x9 puzzle ever needs
+    private static final long MAX_SEARCHES = 200;
+    // Budget of a second try at a removal that gave up, and how many such removals are tried again
+    private static final long RETRY_SEARCHES = 2000;
+    private static final int MAX_RETRIES = 16;
+
+    private final SudokuSize size;
+    private final int gridSize;
+    private final int boxSize;
+    private final int cellCount;
+    private final Random random;
+    private final SudokuEngine engine;
+    private final int[] order;
+    private final int[] skipped;
+    private final int[] digits;
+    private final SudokuTransformer transformer;
+    private final int[] pattern;
+
+    /**
+     * Creates a generator of classic 9x9 puzzles with its own source of randomness.
+     */
+    public SudokuGenerator() {
+        this(new Random());
+    }
+
+    /**
+     * Creates a generator of classic 9x9 puzzles that draws from the given random source,
+     * which makes the generated puzzles reproducible when the source is seeded.
+     *
+     * @param random The source of randomness.
+     */
+    public SudokuGenerator(Random random) {
+        this(SudokuSize.CLASSIC, random);
+    }
+
+    /**
+     * Creates a generator of puzzles of the given size that draws from the given random source.
+     *
+     * @param size   The size of the puzzles.
+     * @param random The source of randomness.
+     */
+    public SudokuGenerator(SudokuSize size, Random random) {
+        this.size = size;
+        gridSize = size.getGridSize();
+        boxSize = size.getBoxSize();
+        cellCount = size.getCellCount();
+        this.random = random;
+        engine = new SudokuEngine(size);
+        order = new int[cellCount];
+        skipped = new int[MAX_RETRIES];
+        digits = new int[gridSize];
+        transformer = new SudokuTransformer(size, random);
+        pattern = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            order[i] = i;
+            int row = i / gridSize;
+            int col = i % gridSize;
+            // Shifting each row of a band by one box, and each band by one, gives a valid grid
+            pattern[i] = (row % boxSize * boxSize + row / boxSize + col) % gridSize + 1;
+        }
+    }
+
+    /**
+     * Gets the size of the puzzles this generator makes.
+     *
+     * @return The board size.
+     */
+    public SudokuSize getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of clues a puzzle of the given level should be reduced to.
+     *
+     * @param level The difficulty level.
+     * @return The target number of clues.
+     */
+    public static int targetClues(SudokuUtilities.SudokuLevel level) {
+        switch (level) {
+            case EASY: return 38;
+            case HARD: return 24;
+            case MEDIUM:
+            default: return 30;
+        }
+    }
+
+    /**
+     * Gets the number of clues a puzzle of the given level and size should be reduced to.
+     * Up to 9x9 this is the same share of the cells as for a classic puzzle; 16x16 and 25x25
+     * boards have targets that removal can reach, see the class description.
+     *
+     * @param level The difficulty level.
+     * @param size  The size of the puzzle.
+     * @return The target number of clues.
+     */
+    public static int targetClues(SudokuUtilities.SudokuLevel level, SudokuSize size) {
+        if (size.getBoxSize() == 4) {
+            switch (level) {
+                case EASY: return 120;
+                case HARD: return 76;
+                case MEDIUM:
+                default: return 105;
+            }
+        } else if (size.getBoxSize() == 5) {
+            switch (level) {
+                case EASY: return 330;
+                case HARD: return 185;
+                case MEDIUM:
+                default: return 300;
+            }
+        }
+        int classicCells = SudokuSize.CLASSIC.getCellCount();
+        return (targetClues(level) * size.getCellCount() + classicCells / 2) / classicCells;
+    }
+
+    /**
+     * Generates a puzzle with a unique solution for the given level.
+     *
+     * @param level    The difficulty level, which decides how many clues are removed.
+     * @param givens   An array with one element per cell that receives the initial values, zero for an empty cell.
+     * @param solution An array with one element per cell that receives the solution.
+     * @return The number of clues in the generated puzzle.
+     */
+    public int generate(SudokuUtilities.SudokuLevel level, int[] givens, int[] solution) {
+        if (boxSize <= 3) {
+            fillRandomGrid(solution);
+        } else {
+            transformer.randomize();
+            transformer.apply(pattern, solution);
+            engine.load(solution);
+        }
+        return removeClues(targetClues(level, size), givens);
+    }
+
+    private void fillRandomGrid(int[] solution) {
+        // The diagonal boxes share no row or column, so on a 9x9 board any filling of them can
+        // be completed; on a 4x4 board some cannot, and the boxes are then filled again
+        do {
+            engine.clear();
+            for (int box = 0; box < boxSize; box++) {
+                for (int i = 0; i < gridSize; i++) {
+                    digits[i] = i + 1;
+                }
+                shuffle(digits);
+                int start = box * boxSize;
+                for (int i = 0; i < gridSize; i++) {
+                    engine.set(start + i / boxSize, start + i % boxSize, digits[i]);
+                }
+            }
+        } while (!engine.solve());
+        engine.copyTo(solution);
+    }
+
+    private int removeClues(int target, int[] givens) {
+        int clues = cellCount;
+        int skippedCount = 0;
+        shuffle(order);
+        for (int i = 0; i < cellCount && clues > target; i++) {
+            int result = tryRemove(order[i], MAX_SEARCHES);
+            if (result == 1) {
+                clues--;
+            } else if (result < 0 && skippedCount < MAX_RETRIES) {
+                skipped[skippedCount++] = order[i];
+            }
+        }
+        for (int i = 0; i < skippedCount && clues > target; i++) {
+            if (tryRemove(skipped[i], RETRY_SEARCHES) == 1) {
+                clues--;
+            }
+        }
+        engine.copyTo(givens);
+        return clues;
+    }
+
+    /**
+     * Removes the clue of a cell if the puzzle keeps a unique solution.
+     *
+     * @return 1 if the clue was removed, otherwise the solution count, -1 if the check gave up.
+     */
+    private int tryRemove(int cell, long maxSearches) {
+        int row = cell / gridSize;
+        int col = cell % gridSize;
+        int value = engine.get(row, col);
+        engine.set(row, col, 0);
+        int result = engine.countSolutions(2, maxSearches);
+        if (result != 1) {
+            engine.set(row, col, value);
+        }
+        return result;
+    }
+
+    private void shuffle(int[] values) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temporary = values[i];
+            values[i] = values[j];
+            values[j] = temporary;
+        }
+    }
+}
@@ -1,20 +1,59 @@
 package Sudoku.Game.Solver.model;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
 /**
  * Represents the grid of a Sudoku game. This class includes the game grid, solution grid, current game level,
  * and the editability status of each tile in the grid.
+ *
+ * The values are kept in a packed {@link SudokuBoard}; {@link Tile} objects are only views of it,
+ * made when the grid is shown.
+ *
+ * A grid can be shared by many threads. A move on one cell locks only the stripes of its row,
+ * column and box in a {@link StripedLock} and changes the packed words of the board with
+ * compare-and-set, so moves on cells that share no unit are made at the same time. Operations
+ * on the whole board, such as clearing it, a new game, copying a state, undo and redo, lock the
+ * whole board. Reads of one cell or of the counts never lock, and {@link #getHint(Hint)} copies
+ * the board into its scratch arrays without locking it unless moves keep coming.
+ * {@link #snapshot()} locks the board just long enough to share its words with an immutable
+ * {@link BoardSnapshot}, without copying them, so saving and checks read the whole board as it
+ * was at one moment while the players go on. Listeners are called while the changed cells are locked, so they may read
+ * cells but must not change the grid or read it as a whole.
  */
-public class SudokuGrid implements Serializable {
-    private static final int GRID_SIZE = 9;
-    private Tile[][] grid;
-    private Tile[][] solutionGrid;
-    private SudokuUtilities.SudokuLevel currentLevel;
+public class SudokuGrid {
+    /** The search budget of {@link #checkPuzzle} for puzzles from outside the program. */
+    public static final long PUZZLE_CHECK_SEARCHES = 100_000;
+    private static final CellChangeListener[] NO_LISTENERS = new CellChangeListener[0];
+    // Hint engines keep scratch arrays, so every thread gets its own, one per box size
+    private static final ThreadLocal<HintEngine[]> hintEngines =
+            ThreadLocal.withInitial(() -> new HintEngine[SudokuSize.MAX_BOX_SIZE + 1]);
+    // The entries of a move are gathered here and added to the journal at once: a value and the
+    // marks it removes from the cells of its three units, or the toggled marks of one cell
+    private static final ThreadLocal<int[]> moveEntries =
+            ThreadLocal.withInitial(() -> new int[1 + 3 * SudokuSize.of(SudokuSize.MAX_BOX_SIZE).getGridSize()]);
+    // Hints read the board this many times without locking before they hold off the moves
+    private static final int OPTIMISTIC_READS = 4;
+    private volatile SudokuBoard board; // Användarvärden, lösning och startrutor
+    private volatile SudokuUtilities.SudokuLevel currentLevel;
+    private volatile Tile[][] views; // Skapas först när rutnätet visas
+    // The last snapshot, handed out again for as long as the board still shares its words
+    private volatile BoardSnapshot lastSnapshot;
+    // Replaced, never changed, when a listener is added or removed, so events can be sent without copying
+    private volatile CellChangeListener[] listeners = NO_LISTENERS;
+    private SudokuBoard beforeBatch; // Skapas när den första lyssnaren läggs till
+    private final MoveJournal journal = new MoveJournal();
+    private final StripedLock lock = new StripedLock();
 
-    private boolean[][] editableTiles; // Håller reda på om en ruta är redigerbar eller inte
+    /**
+     * The outcome of {@link #checkPuzzle}.
+     */
+    public enum PuzzleCheck {
+        /** The initial values have exactly one solution, the stored one. */
+        VALID,
+        /** The initial values have no solution, more than one, or one other than the stored one. */
+        INVALID,
+        /** The solver gave up before it could tell. */
+        UNDECIDED
+    }
 
     /**
      * Constructs a new SudokuGrid with a specified difficulty level.
@@ -24,19 +63,109 @@ public class SudokuGrid implements Serializable {
      */
 
     public SudokuGrid(SudokuUtilities.SudokuLevel level) {
-        this.currentLevel = level;
-        this.grid = new Tile[GRID_SIZE][GRID_SIZE];
-        initializeGrid(level);
+        this(level, SudokuSize.CLASSIC);
+    }
 
+    /**
+     * Constructs a new SudokuGrid of a given size with a specified difficulty level.
+     *
+     * @param level The difficulty level for the Sudoku game.
+     * @param size  The size of the board, for example {@code SudokuSize.of(4)} for 16x16.
+     */
+    public SudokuGrid(SudokuUtilities.SudokuLevel level, SudokuSize size) {
+        this(takePuzzle(level, size));
     }
+
     /**
-     * Retrieves the solution grid for the Sudoku game.
-     * This grid contains the correct values for each cell in the Sudoku puzzle, against which the player's inputs are checked.
+     * Constructs a SudokuGrid for a given puzzle, with all editable cells empty.
+     * Used when a game is restored from a file.
      *
-     * @return A 2D array of Tile objects representing the solution grid of the Sudoku game.
+     * @param puzzle The puzzle to play.
      */
-    public Tile[][] getSolutionGrid() {
-        return solutionGrid;
+    SudokuGrid(Puzzle puzzle) {
+        this.currentLevel = puzzle.getLevel();
+        initializeGrid(puzzle);
+    }
+
+    /**
+     * Takes a classic puzzle from the shared {@link PuzzlePool}, or generates a puzzle of another size.
+     */
+    private static Puzzle takePuzzle(SudokuUtilities.SudokuLevel level, SudokuSize size) {
+        if (size == SudokuSize.CLASSIC) {
+            return PuzzlePool.getShared().take(level);
+        }
+        return SudokuUtilities.newPuzzle(level, size);
+    }
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return The board size; its grid size is the number of rows and columns.
+     */
+    public SudokuSize getSize() {
+        return board.getSize();
+    }
+    /**
+     * Retrieves the correct value of a cell in the Sudoku game, against which the player's input is checked.
+     *
+     * @param row The row number of the cell (zero-based index).
+     * @param col The column number of the cell (zero-based index).
+     * @return The value of the cell in the solution.
+     */
+    public int getSolutionValue(int row, int col) {
+        return board.getSolution(row, col);
+    }
+
+    /**
+     * Retrieves the value the player has entered in a cell, or the initial value of an initial cell.
+     *
+     * @param row The row number of the cell (zero-based index).
+     * @param col The column number of the cell (zero-based index).
+     * @return The value of the cell, zero if it is empty.
+     */
+    public int getUserValue(int row, int col) {
+        return board.getValue(row, col);
+    }
+
+    /**
+     * Adds a listener that is told about every change to the cells.
+     *
+     * @param listener The listener to add.
+     */
+    public void addChangeListener(CellChangeListener listener) {
+        lock.lockExclusive();
+        try {
+            if (beforeBatch == null) {
+                beforeBatch = new SudokuBoard(board.getSize());
+            }
+            CellChangeListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+            added[listeners.length] = listener;
+            listeners = added;
+        } finally {
+            lock.unlockExclusive();
+        }
+    }
+
+    /**
+     * Removes a listener added with {@link #addChangeListener}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeChangeListener(CellChangeListener listener) {
+        lock.lockExclusive();
+        try {
+            for (int i = 0; i < listeners.length; i++) {
+                if (listeners[i] == listener) {
+                    CellChangeListener[] removed = new CellChangeListener[listeners.length - 1];
+                    System.arraycopy(listeners, 0, removed, 0, i);
+                    System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+                    listeners = removed;
+                    return;
+                }
+            }
+        } finally {
+            lock.unlockExclusive();
+        }
     }
     /**
      * Starts a new game of Sudoku at the  difficulty level.
@@ -46,35 +175,66 @@ public class SudokuGrid implements Serializable {
      */
 
     public void startNewGame(SudokuUtilities.SudokuLevel level) {
-        this.currentLevel = level;
-        initializeGrid(level);
+        startNewGame(level, board.getSize());
     }
+
     /**
-     * Initializes the Sudoku grid based on the specified difficulty level.
-     * It sets up the grid with initial values, marks editable tiles, and prepares the solution grid.
+     * Starts a new game of Sudoku at the difficulty level on a board of the given size.
      *
-     * @param level The difficulty level of the Sudoku game.
+     * @param level The new difficulty level for the Sudoku game.
+     * @param size  The size of the new board.
      */
+    public void startNewGame(SudokuUtilities.SudokuLevel level, SudokuSize size) {
+        startNewGame(takePuzzle(level, size));
+    }
 
-    private void initializeGrid(SudokuUtilities.SudokuLevel level) {
-        int[][][] sudokuMatrix = SudokuUtilities.generateSudokuMatrix(level);
-        editableTiles = new boolean[GRID_SIZE][GRID_SIZE];
-        solutionGrid = new Tile[GRID_SIZE][GRID_SIZE]; // Skapar en ny matris för lösningen
+    /**
+     * Starts a new game of a given puzzle, for example one imported with a {@link PuzzleReader}.
+     * The level of the game is the level of the puzzle.
+     *
+     * @param puzzle The puzzle to play.
+     */
+    public void startNewGame(Puzzle puzzle) {
+        lock.lockExclusive();
+        try {
+            startBatch(CellChangeListener.Batch.NEW_GAME);
+            keepGame();
+            this.currentLevel = puzzle.getLevel();
+            initializeGrid(puzzle);
+            endBatch(CellChangeListener.Batch.NEW_GAME);
+        } finally {
+            lock.unlockExclusive();
+        }
+    }
 
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                int fromsStartValue = sudokuMatrix[row][col][0];
-                int correctValue = sudokuMatrix[row][col][1];
-                boolean isfromStart = fromsStartValue != 0;
+    /**
+     * Hands the board over to the journal, so that the new game can be undone, and starts on a new board.
+     */
+    private void keepGame() {
+        journal.startMove();
+        journal.recordGame(board, currentLevel);
+        board = new SudokuBoard(board.getSize());
+    }
+    /**
+     * Initializes the Sudoku grid from a puzzle.
+     * It sets up the grid with initial values, marks editable tiles, and prepares the solution grid.
+     * New puzzles are taken from the shared {@link PuzzlePool}, so they are usually ready without any generation work.
+     *
+     * @param puzzle The puzzle with the initial values and the solution.
+     */
 
-                grid[row][col] = new Tile(correctValue,isfromStart);
-                solutionGrid[row][col] = new Tile(correctValue, true); // Spara lösningen
+    private void initializeGrid(Puzzle puzzle) {
+        resize(puzzle.getSize());
+        board.load(puzzle);
+    }
 
-                if (isfromStart) {
-                    grid[row][col].setUserValue(fromsStartValue);
-                }
-                editableTiles[row][col] = !isfromStart;
-            }
+    /**
+     * Replaces the board with an empty one if it has another size.
+     */
+    private void resize(SudokuSize size) {
+        if (board == null || board.getSize() != size) {
+            board = new SudokuBoard(size);
+            views = null;
         }
     }
     /**
@@ -86,36 +246,279 @@ public class SudokuGrid implements Serializable {
      */
 
     public void setCellValue(int row, int col, int value) {
-        if(isTileEditable(row, col)) {
-            grid[row][col].setUserValue(value);
+        changeValue(row, col, value, true);
+    }
+
+    /**
+     * Changes the user value of a cell, editable or not, and tells the listeners.
+     */
+    void changeValue(int row, int col, int value) {
+        changeValue(row, col, value, false);
+    }
+
+    /**
+     * Changes the user value of a cell and tells the listeners. A placed value is removed from
+     * the pencil marks of the other cells in its row, column and box, and the value and the
+     * removed marks are recorded as one move.
+     *
+     * @param editableOnly true to leave an initial cell as it is.
+     */
+    private void changeValue(int row, int col, int value, boolean editableOnly) {
+        SudokuBoard current = lockCell(row, col);
+        int[] entries = null;
+        try {
+            int old = current.getValue(row, col);
+            if (old == value || editableOnly && current.isGiven(row, col)) {
+                return;
+            }
+            current.setValue(row, col, value);
+            SudokuSize size = current.getSize();
+            int cell = row * size.getGridSize() + col;
+            entries = moveBuffer();
+            entries[0] = MoveJournal.valueEntry(cell, old, value);
+            int count = 1;
+            fireCellChanged(row, col, old, value);
+            if (value != 0) {
+                count = removeMark(current, size.rowUnit[cell], cell, value, entries, count);
+                count = removeMark(current, size.colUnit[cell], cell, value, entries, count);
+                count = removeMark(current, size.boxUnit[cell], cell, value, entries, count);
+            }
+            journal.recordMove(entries, count);
+        } finally {
+            if (entries != null) {
+                entries[0] = 0;
+            }
+            unlockCell(current, row, col);
         }
     }
 
     /**
-     * Checks if the Sudoku board is completely filled with non-zero values.
+     * Removes a value from the pencil marks of the cells of a unit other than the given one.
+     * Another move may remove marks from the same cells through another unit at the same time,
+     * so each mark is removed atomically.
      *
-     * @return true if the board is completely filled; false if there are any empty cells.
+     * @return The number of entries of the move after adding those of the removed marks.
      */
-    public boolean isBoardComplete() {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (grid[row][col].getUserValue() == 0) {
-                    return false; // Hittade en tom cell, brädet är inte fullständigt
+    private int removeMark(SudokuBoard current, int unit, int cell, int value, int[] entries, int count) {
+        SudokuSize size = current.getSize();
+        int gridSize = size.getGridSize();
+        int bit = 1 << (value - 1);
+        for (int i = unit * gridSize; i < (unit + 1) * gridSize; i++) {
+            int peer = size.unitCells[i];
+            if (peer != cell && current.removeMark(peer / gridSize, peer % gridSize, value)) {
+                entries[count++] = MoveJournal.markEntry(peer, value);
+                int marks = current.getMarks(peer / gridSize, peer % gridSize);
+                fireMarksChanged(peer / gridSize, peer % gridSize, marks | bit, marks);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the buffer of this thread for the entries of a move, or a new one if a listener
+     * makes a move on another grid while it is in use. The first entry of a move is never zero,
+     * so the buffer is free while its first entry is zero; the move sets it back when it is done.
+     */
+    private static int[] moveBuffer() {
+        int[] entries = moveEntries.get();
+        return entries[0] == 0 ? entries : new int[entries.length];
+    }
+
+    /**
+     * Locks the stripes of the row, column and box of a cell for a move.
+     *
+     * @return The board to make the move on, which is not replaced until the cell is unlocked.
+     */
+    private SudokuBoard lockCell(int row, int col) {
+        while (true) {
+            SudokuBoard current = board;
+            long stripes = StripedLock.stripesOf(current.getSize(), row * current.getSize().getGridSize() + col);
+            lock.lockStripes(stripes);
+            if (board == current) {
+                return current;
+            }
+            // A new game came in between, maybe of another size
+            lock.unlockStripes(stripes);
+        }
+    }
+
+    private void unlockCell(SudokuBoard current, int row, int col) {
+        lock.unlockStripes(StripedLock.stripesOf(current.getSize(), row * current.getSize().getGridSize() + col));
+    }
+
+    /**
+     * Gets the pencil marks of a cell.
+     *
+     * @param row The row number of the cell (zero-based index).
+     * @param col The column number of the cell (zero-based index).
+     * @return A bitmask where bit (value - 1) is set for every value the player has marked.
+     */
+    public int getMarks(int row, int col) {
+        return board.getMarks(row, col);
+    }
+
+    /**
+     * Sets the pencil marks of a cell if the cell is editable.
+     *
+     * @param row   The row number of the cell (zero-based index).
+     * @param col   The column number of the cell (zero-based index).
+     * @param marks A bitmask where bit (value - 1) is set for every marked value, zero to remove all marks.
+     * @throws IllegalArgumentException If a bit above the grid size is set.
+     */
+    public void setMarks(int row, int col, int marks) {
+        changeMarks(row, col, marks, false);
+    }
+
+    /**
+     * Sets or toggles pencil marks of an editable cell, and records the toggled marks as one move.
+     *
+     * @param toggle true to toggle the given marks; false to replace the marks with them.
+     */
+    private void changeMarks(int row, int col, int marks, boolean toggle) {
+        SudokuBoard current = lockCell(row, col);
+        int[] entries = null;
+        try {
+            int old = current.getMarks(row, col);
+            int changed = toggle ? old ^ marks : marks;
+            if (current.isGiven(row, col) || old == changed) {
+                return;
+            }
+            current.setMarks(row, col, changed);
+            int cell = row * current.getSize().getGridSize() + col;
+            entries = moveBuffer();
+            int count = 0;
+            for (int bits = old ^ changed; bits != 0; bits &= bits - 1) {
+                entries[count++] = MoveJournal.markEntry(cell, Integer.numberOfTrailingZeros(bits) + 1);
+            }
+            journal.recordMove(entries, count);
+            fireMarksChanged(row, col, old, changed);
+        } finally {
+            if (entries != null) {
+                entries[0] = 0;
+            }
+            unlockCell(current, row, col);
+        }
+    }
+
+    /**
+     * Records an entry for every toggled mark of a cell.
+     */
+    private void recordMarks(int cell, int toggled) {
+        for (int bits = toggled; bits != 0; bits &= bits - 1) {
+            journal.record(MoveJournal.markEntry(cell, Integer.numberOfTrailingZeros(bits) + 1));
+        }
+    }
+
+    /**
+     * Adds a value to the pencil marks of an editable cell, or removes it if it is marked.
+     *
+     * @param row   The row number of the cell (zero-based index).
+     * @param col   The column number of the cell (zero-based index).
+     * @param value The value, from 1 to the grid size.
+     * @throws IllegalArgumentException If the value is out of range.
+     */
+    public void toggleMark(int row, int col, int value) {
+        if (value < 1 || value > board.getSize().getGridSize()) {
+            throw new IllegalArgumentException("Invalid cell value " + value);
+        }
+        changeMarks(row, col, 1 << (value - 1), true);
+    }
+
+    /**
+     * Changes the correct value of a cell.
+     */
+    void setSolutionValue(int row, int col, int value) {
+        SudokuBoard current = lockCell(row, col);
+        try {
+            current.setSolution(row, col, value);
+        } finally {
+            unlockCell(current, row, col);
+        }
+    }
+
+    private void fireCellChanged(int row, int col, int oldValue, int newValue) {
+        for (CellChangeListener listener : listeners) {
+            listener.cellChanged(row, col, oldValue, newValue);
+        }
+    }
+
+    private void fireMarksChanged(int row, int col, int oldMarks, int newMarks) {
+        for (CellChangeListener listener : listeners) {
+            listener.marksChanged(row, col, oldMarks, newMarks);
+        }
+    }
+
+    /**
+     * Tells the listeners that a batch starts and remembers the values, so that the changed
+     * cells can be reported when the batch ends.
+     */
+    private void startBatch(CellChangeListener.Batch batch) {
+        if (listeners.length == 0) {
+            return;
+        }
+        if (beforeBatch.getSize() != board.getSize()) {
+            beforeBatch = new SudokuBoard(board.getSize());
+        }
+        beforeBatch.copyFrom(board);
+        for (CellChangeListener listener : listeners) {
+            listener.batchStarted(batch);
+        }
+    }
+
+    private void endBatch(CellChangeListener.Batch batch) {
+        if (listeners.length == 0) {
+            return;
+        }
+        // After a change of size there are no matching cells to compare, only the end of the batch is reported
+        int gridSize = beforeBatch.getSize() == board.getSize() ? board.getSize().getGridSize() : 0;
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                int old = beforeBatch.getValue(row, col);
+                int value = board.getValue(row, col);
+                if (old != value) {
+                    fireCellChanged(row, col, old, value);
+                }
+                int oldMarks = beforeBatch.getMarks(row, col);
+                int marks = board.getMarks(row, col);
+                if (oldMarks != marks) {
+                    fireMarksChanged(row, col, oldMarks, marks);
                 }
             }
         }
-        return true; // Inga tomma celler, brädet är fullständigt
+        for (CellChangeListener listener : listeners) {
+            listener.batchEnded(batch);
+        }
+    }
+
+    /**
+     * Checks if the Sudoku board is completely filled with non-zero values.
+     *
+     * @return true if the board is completely filled; false if there are any empty cells.
+     */
+    public boolean isBoardComplete() {
+        return board.getFilledCount() == board.getSize().getCellCount();
     }
     /**
      * Clears all editable cells on the Sudoku board, resetting them to their initial state (empty or zero).
+     * All pencil marks are removed as well.
      */
     public void clearBoard() {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (editableTiles[row][col]) {
-                    grid[row][col].setUserValue(0);
+        lock.lockExclusive();
+        try {
+            startBatch(CellChangeListener.Batch.CLEAR);
+            journal.startMove();
+            int gridSize = board.getSize().getGridSize();
+            for (int cell = 0; cell < board.getSize().getCellCount(); cell++) {
+                int value = board.getValue(cell / gridSize, cell % gridSize);
+                if (value != 0 && !board.isGiven(cell / gridSize, cell % gridSize)) {
+                    journal.record(MoveJournal.valueEntry(cell, value, 0));
                 }
+                recordMarks(cell, board.getMarks(cell / gridSize, cell % gridSize));
             }
+            board.clearValues();
+            endBatch(CellChangeListener.Batch.CLEAR);
+        } finally {
+            lock.unlockExclusive();
         }
     }
     /**
@@ -126,48 +529,234 @@ public class SudokuGrid implements Serializable {
      * This can be useful for features like loading a saved game, restoring the game to a previous state,
      * or copying the state for testing and debugging purposes.
      *
+     * The copied state starts a new history: the moves made before cannot be undone.
+     *
      * @param otherGrid The SudokuGrid instance whose state is to be copied.
      */
     public void copyState(SudokuGrid otherGrid) {
-        // Copy grid values
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                this.grid[row][col].setUserValue(otherGrid.grid[row][col].getUserValue());
+        // The board holds the correct values too, since the other grid may hold another puzzle.
+        // The snapshot is taken before locking, so that two grids copying each other cannot wait on each other.
+        BoardSnapshot other = otherGrid.snapshot();
+        SudokuBoard copy = other.toBoard();
+        lock.lockExclusive();
+        try {
+            journal.clear();
+            startBatch(CellChangeListener.Batch.COPY_STATE);
+            this.currentLevel = other.getLevel();
+            if (copy.getSize() != board.getSize()) {
+                views = null;
             }
+            board = copy;
+            endBatch(CellChangeListener.Batch.COPY_STATE);
+        } finally {
+            lock.unlockExclusive();
         }
+    }
 
-        // Copy editable status
-        for (int row = 0; row < GRID_SIZE; row++) {
-            System.arraycopy(otherGrid.editableTiles[row], 0, this.editableTiles[row], 0, GRID_SIZE);
+    /**
+     * Takes a snapshot of the game as it is at one moment, even while other threads make moves:
+     * the values, the solution, the initial cells, the pencil marks and the level. Later moves
+     * do not change the snapshot, so it can be saved, checked or sent at leisure.
+     *
+     * The snapshot shares the words of the board, so taking one costs no copy; the next move
+     * copies them instead. Moves are held off only while the words are handed over, and as long
+     * as nothing changes, the same snapshot is returned again without locking.
+     *
+     * @return An immutable snapshot of the game.
+     */
+    public BoardSnapshot snapshot() {
+        BoardSnapshot last = lastSnapshot;
+        if (last != null && last.board().sharesWordsWith(board) && last.getLevel() == currentLevel) {
+            return last;
+        }
+        lock.lockExclusive();
+        try {
+            // No move is under way, so the words are not changed while they are shared
+            BoardSnapshot snapshot = new BoardSnapshot(board.copy(), currentLevel);
+            lastSnapshot = snapshot;
+            return snapshot;
+        } finally {
+            lock.unlockExclusive();
         }
     }
 
     /**
-     * Provides a hint by selecting a random empty cell and revealing its correct value.
-     * If there are no empty cells, no hint can be provided.
+     * Gets the history of the moves made in this game.
      *
-     * @return An array containing the row and column of the empty cell and its correct value,
+     * @return The journal of the grid, read-only outside the model.
+     */
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Undoes the last move: a value with the pencil marks it removed, a change of marks, a
+     * clearing of the board or a new game.
+     *
+     * @return true if a move was undone; false if there is nothing to undo.
+     */
+    public boolean undo() {
+        lock.lockExclusive();
+        try {
+            if (!journal.canUndo()) {
+                return false;
+            }
+            int entry;
+            do {
+                entry = journal.undoEntry();
+                apply(entry, true);
+            } while (MoveJournal.isChained(entry));
+            return true;
+        } finally {
+            lock.unlockExclusive();
+        }
+    }
+
+    /**
+     * Makes the last undone move again.
+     *
+     * @return true if a move was redone; false if there is nothing to redo.
+     */
+    public boolean redo() {
+        lock.lockExclusive();
+        try {
+            if (!journal.canRedo()) {
+                return false;
+            }
+            apply(journal.redoEntry(), false);
+            while (journal.hasChainedRedo()) {
+                apply(journal.redoEntry(), false);
+            }
+            return true;
+        } finally {
+            lock.unlockExclusive();
+        }
+    }
+
+    /**
+     * Applies an entry of a value or a mark read from the journal of another grid, and records
+     * it in the journal of this one. A game replayed entry by entry on a grid with the same
+     * puzzle ends up in the same state, which is how changes can be sent instead of whole boards.
+     *
+     * @param entry An entry from {@link MoveJournal#getEntry}.
+     * @throws IllegalArgumentException If the entry replaces the game, is for a cell outside
+     *                                  the board, or does not start from the value of the cell.
+     */
+    public void applyEntry(int entry) {
+        // The whole board is locked, since a chained entry must follow the one before it
+        lock.lockExclusive();
+        try {
+            int cell = MoveJournal.cellOf(entry);
+            SudokuSize size = board.getSize();
+            if (MoveJournal.isGame(entry) || cell >= size.getCellCount()
+                    || MoveJournal.newValueOf(entry) > size.getGridSize()
+                    || MoveJournal.oldValueOf(entry) != (MoveJournal.isMark(entry)
+                            ? MoveJournal.newValueOf(entry) : board.getValue(cell / size.getGridSize(), cell % size.getGridSize()))) {
+                throw new IllegalArgumentException("Entry " + Integer.toHexString(entry) + " does not apply to this board");
+            }
+            if (!MoveJournal.isChained(entry)) {
+                journal.startMove();
+            }
+            journal.record(entry);
+            apply(entry, false);
+        } finally {
+            lock.unlockExclusive();
+        }
+    }
+
+    /**
+     * Applies an entry of the journal forwards or backwards, without recording it, and tells the
+     * listeners. The caller holds the whole board locked.
+     */
+    private void apply(int entry, boolean backwards) {
+        if (MoveJournal.isGame(entry)) {
+            startBatch(CellChangeListener.Batch.NEW_GAME);
+            SudokuBoard kept = journal.getGameBoard(entry);
+            SudokuUtilities.SudokuLevel keptLevel = journal.getGameLevel(entry);
+            journal.setGame(entry, board, currentLevel);
+            if (kept.getSize() != board.getSize()) {
+                views = null;
+            }
+            board = kept;
+            currentLevel = keptLevel;
+            endBatch(CellChangeListener.Batch.NEW_GAME);
+            return;
+        }
+        int gridSize = board.getSize().getGridSize();
+        int cell = MoveJournal.cellOf(entry);
+        int row = cell / gridSize;
+        int col = cell % gridSize;
+        if (MoveJournal.isMark(entry)) {
+            int old = board.getMarks(row, col);
+            int marks = old ^ 1 << (MoveJournal.newValueOf(entry) - 1);
+            board.setMarks(row, col, marks);
+            fireMarksChanged(row, col, old, marks);
+        } else {
+            int old = backwards ? MoveJournal.newValueOf(entry) : MoveJournal.oldValueOf(entry);
+            int value = backwards ? MoveJournal.oldValueOf(entry) : MoveJournal.newValueOf(entry);
+            board.setValue(row, col, value);
+            fireCellChanged(row, col, old, value);
+        }
+    }
+
+    /**
+     * Provides a hint: the next value that can be found by logic, or the correct value of a
+     * cell that holds a wrong one. See {@link #getHint(Hint)}, which also tells how the value
+     * is found and allocates nothing.
+     *
+     * @return An array containing the row and column of the cell and its correct value,
      *         or null if no hint is available.
      */
     public int[] getHint() {
-        List<int[]> emptyCells = new ArrayList<>();
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (grid[row][col].getUserValue() == 0) {
-                    emptyCells.add(new int[]{row, col});
-                }
+        Hint hint = new Hint();
+        if (!getHint(hint)) {
+            return null; // No available hints
+        }
+        return new int[]{hint.getRow(), hint.getCol(), hint.getValue()};
+    }
+
+    /**
+     * Finds the next step for the player. A wrong value is pointed out first; otherwise the
+     * hint is the next value the techniques of {@link Technique} find from the values on the
+     * board, with the cells that lead to it.
+     *
+     * @param hint The hint to fill in, reused between calls.
+     * @return true if a hint was found; false if the board is solved.
+     */
+    public boolean getHint(Hint hint) {
+        // The engine works on a copy, so moves made meanwhile cannot lead it astray. A snapshot
+        // would make the next move copy the words of the board, so the copy is read optimistically.
+        for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+            long stamp = lock.stamp();
+            HintEngine engine = loadHintEngine(board);
+            if (lock.validate(stamp)) {
+                return engine.findHint(hint);
             }
+            Thread.onSpinWait();
         }
-        if (emptyCells.isEmpty()) {
-            return null; // No available hints
+        HintEngine engine;
+        lock.lockExclusive();
+        try {
+            engine = loadHintEngine(board);
+        } finally {
+            lock.unlockExclusive();
+        }
+        return engine.findHint(hint);
+    }
+
+    /**
+     * Copies a board into the hint engine of this thread for its size.
+     */
+    private static HintEngine loadHintEngine(SudokuBoard current) {
+        SudokuSize size = current.getSize();
+        HintEngine[] engines = hintEngines.get();
+        HintEngine engine = engines[size.getBoxSize()];
+        if (engine == null) {
+            engine = new HintEngine(size);
+            engines[size.getBoxSize()] = engine;
         }
-        // Randomly select an empty cell for a hint
-        Random random = new Random();
-        int[] selectedCell = emptyCells.get(random.nextInt(emptyCells.size()));
-        int row = selectedCell[0];
-        int col = selectedCell[1];
-        int correctValue = solutionGrid[row][col].getCorrectValue();
-        return new int[]{row, col, correctValue};
+        engine.load(current);
+        return engine;
     }
     /**
      * Checks if the current state of the Sudoku board is correct.
@@ -176,29 +765,75 @@ public class SudokuGrid implements Serializable {
      * @return true if all entered values are correct; false if any entered value is incorrect.
      */
     public boolean isCurrentStateCorrect() {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                Tile tile = grid[row][col];
+        return board.getWrongCount() == 0;
+    }
 
-                if (tile.getUserValue() != 0 && !tile.isUserInputCorrect()) {
-                    return false; // Found an incorrect value
-                }
+
+    /**
+     * Checks the puzzle of this game with a solver: the initial values must have exactly one
+     * solution, and it must be the stored one. Games read by {@link FileHandler} are taken as
+     * they are, so this is how a loaded game can be checked.
+     *
+     * The search is given a budget, as a board made up by hand, for example a 25x25 board with
+     * a little under half of a solution given, can take the solver minutes to decide.
+     * {@link #PUZZLE_CHECK_SEARCHES} bounds a check with {@link DancingLinksSolver} to about a
+     * tenth of a second, while generated puzzles of every size are decided in a few milliseconds.
+     *
+     * @param solver      A solver for boards of the size of this game.
+     * @param maxSearches The number of search steps after which the solver gives up.
+     * @return VALID if the puzzle has a unique solution equal to the stored one, INVALID if it
+     *         has not, and UNDECIDED if the solver gave up.
+     * @throws IllegalArgumentException If the solver is for another size.
+     */
+    public PuzzleCheck checkPuzzle(SudokuSolver solver, long maxSearches) {
+        BoardSnapshot board = snapshot();
+        SudokuSize size = board.getSize();
+        if (solver.getSize() != size) {
+            throw new IllegalArgumentException("Cannot check a " + size + " board with a " + solver.getSize() + " solver");
+        }
+        int gridSize = size.getGridSize();
+        int[] values = new int[size.getCellCount()];
+        for (int cell = 0; cell < values.length; cell++) {
+            if (board.isGiven(cell / gridSize, cell % gridSize)) {
+                values[cell] = board.getValue(cell / gridSize, cell % gridSize);
+            }
+        }
+        int solutions = solver.countSolutions(values, 2, maxSearches);
+        if (solutions < 0) {
+            return PuzzleCheck.UNDECIDED;
+        }
+        // With one solution the solver finds it without searching more than it did to count it
+        if (solutions != 1 || !solver.solve(values)) {
+            return PuzzleCheck.INVALID;
+        }
+        for (int cell = 0; cell < values.length; cell++) {
+            if (values[cell] != board.getSolution(cell / gridSize, cell % gridSize)) {
+                return PuzzleCheck.INVALID;
             }
         }
-        return true; // All entered values are correct
+        return PuzzleCheck.VALID;
     }
 
-
     /**
      * Restarts the Sudoku game by reinitializing the grid based on the current difficulty level.
      * This method is typically called to start a new game or reset the current game.
      */
     public void restartGame() {
-        initializeGrid(this.currentLevel);
+        Puzzle puzzle = takePuzzle(this.currentLevel, board.getSize());
+        lock.lockExclusive();
+        try {
+            startBatch(CellChangeListener.Batch.NEW_GAME);
+            keepGame();
+            initializeGrid(puzzle);
+            endBatch(CellChangeListener.Batch.NEW_GAME);
+        } finally {
+            lock.unlockExclusive();
+        }
     }
 
     /**
      * Retrieves the Tile object located at the specified row and column in the Sudoku grid.
+     * The tile is a view of the cell and always shows its current values.
      *
      * @param row The row number of the tile (zero-based index).
      * @param col The column number of the tile (zero-based index).
@@ -206,33 +841,38 @@ public class SudokuGrid implements Serializable {
      */
 
     public Tile getTile(int row, int col) {
-        return grid[row][col];
+        return getGrid()[row][col];
     }
     /**
      * Sets a specific Tile at the specified row and column in the Sudoku grid.
+     * The values of the tile are copied into the cell; the tile itself is not kept.
      *
      * @param row  The row number where the tile will be placed (zero-based index).
      * @param col  The column number where the tile will be placed (zero-based index).
-     * @param tile The Tile object to be placed at the specified location.
+     * @param tile The Tile object whose values are copied to the specified location, a tile made
+     *             with {@link Tile#Tile(int, boolean)} or a view of a cell of any grid.
+     *             As the puzzle changes, the moves made before cannot be undone.
      */
     public void setTile(int row, int col, Tile tile) {
-        grid[row][col] = tile;
+        lock.lockExclusive();
+        try {
+            journal.clear(); // the moves were made on another puzzle
+            int old = board.getValue(row, col);
+            board.setCell(row, col, tile.getCorrectValue(), tile.isFromStart(), tile.getUserValue());
+            // Reported even if the value is the same, since the cell may have become an initial cell
+            fireCellChanged(row, col, old, board.getValue(row, col));
+        } finally {
+            lock.unlockExclusive();
+        }
     }
     /**
      * Checks whether the current state of the Sudoku grid matches the solution.
-     * This method iterates through the entire grid, comparing each user input with the solution.
+     * The grid is solved when every cell is filled and no filled cell is wrong, which is read from the running counts.
      *
      * @return true if the current grid configuration matches the solution; false otherwise.
      */
     public boolean checkSolution() {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (grid[row][col].getUserValue() != solutionGrid[row][col].getUserValue()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return board.isSolved();
     }
     /**
      * Determines if a specific tile in the Sudoku grid is editable.
@@ -243,7 +883,7 @@ public class SudokuGrid implements Serializable {
      * @return true if the tile is editable; false otherwise.
      */
     public boolean isTileEditable(int row, int col) {
-        return editableTiles[row][col];
+        return !board.isGiven(row, col);
 
     }
 
@@ -251,6 +891,7 @@ public class SudokuGrid implements Serializable {
     /**
      * Validates if a move is valid in the Sudoku grid. It checks the specified row, column, and section
      * to ensure that the same value does not  exist already .
+     * The check is a constant-time lookup in the bitmasks kept by the {@link SudokuBoard}.
      *
      * @param row   The row number where the move is being made.
      * @param col   The column number where the move is being made.
@@ -258,31 +899,7 @@ public class SudokuGrid implements Serializable {
      * @return true if the move is valid; false otherwise.
      */
     public boolean isValidMove(int row, int col, int value) {
-        System.out.println("isValidMove called with row=" + row + ", col=" + col + ", value=" + value);
-        for (int i = 0; i < GRID_SIZE; i++) {
-            if (grid[row][i].getUserValue() == value) {
-                return false;
-            }
-        }
-
-        // Kontrollera kolumnen
-        for (int i = 0; i < GRID_SIZE; i++) {
-            if (grid[i][col].getUserValue() == value) {
-                return false; // Värdet finns redan i kolumnen
-            }
-        }
-
-        int startRow = row / 3 * 3;
-        int startCol = col / 3 * 3;
-        for (int i = startRow; i < startRow + 3; i++) {
-            for (int j = startCol; j < startCol + 3; j++) {
-                if (grid[i][j].getUserValue() == value) {
-                    return false;
-                }
-            }
-        }
-        // Om inget fel hittades, är draget giltigt
-        return true;
+        return board.isLegal(row, col, value);
     }
 
     /**
@@ -293,9 +910,7 @@ public class SudokuGrid implements Serializable {
      * @param value The value to set in the specified tile.
      */
     public void setTileValue(int row, int col, int value) {
-        if(isTileEditable(row, col)) {
-            grid[row][col].setUserValue(value);
-        }
+        changeValue(row, col, value, true);
     }
     /**
      * Get  current level of the Sudoku game.
@@ -308,11 +923,52 @@ public class SudokuGrid implements Serializable {
 
     /**
      * Retrieves the current state of the Sudoku grid.
+     * The tiles are views of the cells, made on the first call and reused after that.
      *
      * @return A 2D array of Tile objects representing the current state of the Sudoku grid.
      */
     public Tile[][] getGrid() {
-        return grid;
+        Tile[][] tiles = views;
+        int gridSize = board.getSize().getGridSize();
+        // Checked against the size too, in case the views of the old board were made during a change of size
+        if (tiles == null || tiles.length != gridSize) {
+            tiles = new Tile[gridSize][gridSize];
+            for (int row = 0; row < gridSize; row++) {
+                for (int col = 0; col < gridSize; col++) {
+                    tiles[row][col] = new Tile(this, row, col);
+                }
+            }
+            views = tiles;
+        }
+        return tiles;
+    }
+
+    /**
+     * Gets the number of filled cells, including the initial ones.
+     *
+     * @return The number of cells with a value.
+     */
+    public int getFilledCount() {
+        return board.getFilledCount();
+    }
+
+    /**
+     * Gets the number of cells whose value differs from the solution.
+     *
+     * @return The number of wrong cells.
+     */
+    public int getWrongCount() {
+        return board.getWrongCount();
+    }
+
+    /**
+     * Gets the number of repeated values in the rows, columns and boxes.
+     *
+     * @return The number of conflicts, zero if no value breaks the rules.
+     * @see SudokuBoard#getConflictCount()
+     */
+    public int getConflictCount() {
+        return board.getConflictCount();
     }
 
 
@@ -0,0 +1,145 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * The dimensions of a Sudoku board with boxes of b x b cells: the board has n = b * b rows,
+ * columns, boxes and values, and n * n cells. Classic Sudoku has b = 3.
+ *
+ * Besides the dimensions, a size holds the lookup tables shared by the engine, the board and
+ * the generator. There are 3 * n units: units 0 to n - 1 are the rows, n to 2n - 1 the columns
+ * and 2n to 3n - 1 the boxes. Values are kept in int bitmasks where bit (value - 1) stands for
+ * the value, so the box size is limited to 5 (25 values).
+ *
+ * There is one instance per box size, so sizes can be compared with ==.
+ */
+public final class SudokuSize {
+    /** The smallest supported box size. */
+    public static final int MIN_BOX_SIZE = 2;
+    /** The largest supported box size. */
+    public static final int MAX_BOX_SIZE = 5;
+    /** The classic 9x9 board. */
+    public static final SudokuSize CLASSIC;
+
+    private static final SudokuSize[] SIZES = new SudokuSize[MAX_BOX_SIZE + 1];
+
+    static {
+        for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            SIZES[boxSize] = new SudokuSize(boxSize);
+        }
+        CLASSIC = SIZES[3];
+    }
+
+    private final int boxSize;
+    private final int gridSize;
+    private final int cellCount;
+    private final int unitCount;
+    private final int allValues;
+    // Tables from cell to its row, column and box unit, and from unit to its cells in order
+    final int[] rowUnit;
+    final int[] colUnit;
+    final int[] boxUnit;
+    final int[] unitCells;
+
+    private SudokuSize(int boxSize) {
+        this.boxSize = boxSize;
+        gridSize = boxSize * boxSize;
+        cellCount = gridSize * gridSize;
+        unitCount = gridSize * 3;
+        allValues = (1 << gridSize) - 1;
+        rowUnit = new int[cellCount];
+        colUnit = new int[cellCount];
+        boxUnit = new int[cellCount];
+        unitCells = new int[unitCount * gridSize];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int row = cell / gridSize;
+            int col = cell % gridSize;
+            int box = row / boxSize * boxSize + col / boxSize;
+            int boxPos = row % boxSize * boxSize + col % boxSize;
+            rowUnit[cell] = row;
+            colUnit[cell] = gridSize + col;
+            boxUnit[cell] = 2 * gridSize + box;
+            unitCells[row * gridSize + col] = cell;
+            unitCells[(gridSize + col) * gridSize + row] = cell;
+            unitCells[(2 * gridSize + box) * gridSize + boxPos] = cell;
+        }
+    }
+
+    /**
+     * Gets the size with boxes of the given width.
+     *
+     * @param boxSize The number of rows and columns in a box, 2-5.
+     * @return The size.
+     * @throws IllegalArgumentException If the box size is not supported.
+     */
+    public static SudokuSize of(int boxSize) {
+        if (boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Unsupported box size " + boxSize);
+        }
+        return SIZES[boxSize];
+    }
+
+    /**
+     * Gets the size of a board with the given number of cells.
+     *
+     * @param cellCount The number of cells, for example 81.
+     * @return The size.
+     * @throws IllegalArgumentException If no supported size has that many cells.
+     */
+    public static SudokuSize ofCellCount(int cellCount) {
+        for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            if (SIZES[boxSize].cellCount == cellCount) {
+                return SIZES[boxSize];
+            }
+        }
+        throw new IllegalArgumentException("No board has " + cellCount + " cells");
+    }
+
+    /**
+     * Gets the number of rows and columns in a box.
+     *
+     * @return The box size, 3 for classic Sudoku.
+     */
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    /**
+     * Gets the number of rows and columns of the board, which is also the largest value.
+     *
+     * @return The grid size, 9 for classic Sudoku.
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Gets the number of cells on the board.
+     *
+     * @return The number of cells, 81 for classic Sudoku.
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Gets the number of rows, columns and boxes together.
+     *
+     * @return The number of units, 27 for classic Sudoku.
+     */
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    /**
+     * Gets the bitmask with the bits of all values set.
+     *
+     * @return The mask of all values.
+     */
+    public int getAllValues() {
+        return allValues;
+    }
+
+    @Override
+    public String toString() {
+        return gridSize + "x" + gridSize;
+    }
+}
@@ -0,0 +1,83 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * Solves Sudoku boards of one {@link SudokuSize}. Boards are passed as one value per cell in
+ * row-major order, zero representing an empty cell.
+ *
+ * There are two implementations: {@link SudokuEngine}, which propagates singles and
+ * backtracks, and {@link DancingLinksSolver}, which solves the board as an exact cover
+ * problem. Solvers keep their working state between calls and are not thread-safe; use one
+ * instance per thread.
+ */
+public interface SudokuSolver {
+
+    /**
+     * Receives the solutions found by {@link #findSolutions}.
+     */
+    interface SolutionHandler {
+
+        /**
+         * Called for every solution found.
+         *
+         * @param solution The solved board, one value per cell. The array is reused for the
+         *                 next solution, so it must be copied to be kept.
+         */
+        void solutionFound(int[] solution);
+    }
+
+    /**
+     * Gets the size of the boards this solver works on.
+     *
+     * @return The board size.
+     */
+    SudokuSize getSize();
+
+    /**
+     * Solves a board in place. If the board has more than one solution the first one found
+     * is kept.
+     *
+     * @param values The board, one value per cell; filled in if a solution is found.
+     * @return true if a solution was found; false if the board cannot be solved, in which
+     *         case the values are left unchanged.
+     * @throws IllegalArgumentException If the array does not match the size or holds an invalid value.
+     */
+    boolean solve(int[] values);
+
+    /**
+     * Finds the solutions of a board, stopping once the limit is reached. The board is left
+     * unchanged.
+     *
+     * @param values  The board, one value per cell.
+     * @param limit   The largest number of solutions of interest.
+     * @param handler Receives every solution found, or null if only the count is wanted.
+     * @return The number of solutions found, at most limit.
+     * @throws IllegalArgumentException If the array does not match the size or holds an invalid value.
+     */
+    int findSolutions(int[] values, int limit, SolutionHandler handler);
+
+    /**
+     * Counts the solutions of a board, stopping once the limit is reached.
+     *
+     * @param values The board, one value per cell.
+     * @param limit  The largest count of interest, for example 2 to check that a solution is unique.
+     * @return The number of solutions found, at most limit.
+     * @throws IllegalArgumentException If the array does not match the size or holds an invalid value.
+     */
+    default int countSolutions(int[] values, int limit) {
+        return findSolutions(values, limit, null);
+    }
+
+    /**
+     * Counts the solutions of a board like {@link #countSolutions(int[], int)}, but gives up
+     * after a number of search steps. Some boards, such as a large board with a little under
+     * half of its values given, take a very long time to decide; boards that come from outside
+     * the program should be checked with a budget.
+     *
+     * @param values      The board, one value per cell.
+     * @param limit       The largest count of interest.
+     * @param maxSearches The number of search steps after which to give up.
+     * @return The number of solutions found, at most limit, or -1 if the search gave up.
+     * @throws IllegalArgumentException If the array does not match the size or holds an invalid value.
+     */
+    int countSolutions(int[] values, int limit, long maxSearches);
+}
@@ -0,0 +1,167 @@
+package Sudoku.Game.Solver.model;
+
+import java.util.Random;
+
+/**
+ * Applies random validity-preserving transformations to Sudoku boards.
+ *
+ * A transformation combines a relabeling of the digits, a permutation of the bands
+ * (groups of box-height rows) and of the rows inside each band, the same for stacks and
+ * columns, and an optional transposition. Reflections and rotations are included, as
+ * they are combinations of these. Together they give about 1.2 * 10^12 variants of
+ * every classic puzzle, each with a unique solution if the original has one. Boards of
+ * any {@link SudokuSize} can be transformed.
+ *
+ * The chosen transformation is kept as a cell map and a digit map, so applying it
+ * is a single pass over a flat array. A transformer is not thread-safe.
+ */
+public class SudokuTransformer {
+    private final SudokuSize size;
+    private final int gridSize;
+    private final int boxSize;
+    private final int cellCount;
+
+    private final Random random;
+    // Cell i of the result takes its value from cell cellMap[i] of the source
+    private final int[] cellMap;
+    private final int[] digitMap;
+    private final int[] rowOrder;
+    private final int[] colOrder;
+    private final int[] sectionOrder;
+    private final int[] givens;
+    private final int[] solution;
+
+    /**
+     * Creates a transformer for classic 9x9 boards with its own source of randomness, set to a random transformation.
+     */
+    public SudokuTransformer() {
+        this(new Random());
+    }
+
+    /**
+     * Creates a transformer for classic 9x9 boards that draws from the given random source, set to a random transformation.
+     *
+     * @param random The source of randomness.
+     */
+    public SudokuTransformer(Random random) {
+        this(SudokuSize.CLASSIC, random);
+    }
+
+    /**
+     * Creates a transformer for boards of the given size that draws from the given random source,
+     * set to a random transformation.
+     *
+     * @param size   The size of the boards.
+     * @param random The source of randomness.
+     */
+    public SudokuTransformer(SudokuSize size, Random random) {
+        this.size = size;
+        gridSize = size.getGridSize();
+        boxSize = size.getBoxSize();
+        cellCount = size.getCellCount();
+        this.random = random;
+        cellMap = new int[cellCount];
+        digitMap = new int[gridSize + 1];
+        rowOrder = new int[gridSize];
+        colOrder = new int[gridSize];
+        sectionOrder = new int[boxSize];
+        givens = new int[cellCount];
+        solution = new int[cellCount];
+        randomize();
+    }
+
+    /**
+     * Chooses a new random transformation.
+     */
+    public void randomize() {
+        for (int i = 0; i <= gridSize; i++) {
+            digitMap[i] = i;
+        }
+        // Zero stays zero so that empty cells remain empty
+        for (int i = gridSize; i > 1; i--) {
+            int j = 1 + random.nextInt(i);
+            int temporary = digitMap[i];
+            digitMap[i] = digitMap[j];
+            digitMap[j] = temporary;
+        }
+        shuffleLines(rowOrder);
+        shuffleLines(colOrder);
+        boolean transpose = random.nextBoolean();
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                cellMap[row * gridSize + col] = transpose
+                        ? colOrder[col] * gridSize + rowOrder[row]
+                        : rowOrder[row] * gridSize + colOrder[col];
+            }
+        }
+    }
+
+    /**
+     * Fills the array with an order of rows (or columns) that keeps every band together:
+     * the bands are permuted, and so are the lines inside each band.
+     */
+    private void shuffleLines(int[] order) {
+        shuffleSections();
+        int i = 0;
+        for (int section = 0; section < boxSize; section++) {
+            int start = sectionOrder[section] * boxSize;
+            for (int line = 0; line < boxSize; line++) {
+                order[i++] = start + line;
+            }
+        }
+        for (int start = 0; start < gridSize; start += boxSize) {
+            for (int line = boxSize - 1; line > 0; line--) {
+                int j = random.nextInt(line + 1);
+                int temporary = order[start + line];
+                order[start + line] = order[start + j];
+                order[start + j] = temporary;
+            }
+        }
+    }
+
+    private void shuffleSections() {
+        for (int i = 0; i < boxSize; i++) {
+            sectionOrder[i] = i;
+        }
+        for (int i = boxSize - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temporary = sectionOrder[i];
+            sectionOrder[i] = sectionOrder[j];
+            sectionOrder[j] = temporary;
+        }
+    }
+
+    /**
+     * Applies the current transformation to a board.
+     *
+     * @param source One value per cell in row-major order, zero representing an empty cell.
+     * @param target An array with one element per cell that receives the transformed board; must not be the source.
+     */
+    public void apply(int[] source, int[] target) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            target[cell] = digitMap[source[cellMap[cell]]];
+        }
+    }
+
+    /**
+     * Creates a new random variant of a puzzle. The same transformation is applied to
+     * the initial values and the solution.
+     *
+     * @param puzzle The puzzle to transform, of the size of the transformer.
+     * @return A new puzzle of the same level.
+     * @throws IllegalArgumentException If the puzzle has another size.
+     */
+    public Puzzle transform(Puzzle puzzle) {
+        if (puzzle.getSize() != size) {
+            throw new IllegalArgumentException("Cannot transform a " + puzzle.getSize() + " puzzle");
+        }
+        randomize();
+        puzzle.copyGivens(givens);
+        puzzle.copySolution(solution);
+        int[] newGivens = new int[cellCount];
+        int[] newSolution = new int[cellCount];
+        apply(givens, newGivens);
+        apply(solution, newSolution);
+        return new Puzzle(puzzle.getLevel(), newGivens, newSolution);
+    }
+}
@@ -1,36 +1,124 @@
 package Sudoku.Game.Solver.model;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class SudokuUtilities {
+    // The levels of rated puzzles, such as those in a puzzle bank, follow DifficultyRater.levelOf
     public enum SudokuLevel {EASY, MEDIUM, HARD}
+    // The dimensions of the classic board; other sizes are described by SudokuSize
     public static final int GRID_SIZE = 9;
     public static final int SECTIONS_PER_ROW = 3;
     public static final int SECTION_SIZE = 3;
+    // Generators reuse their scratch arrays, so every thread gets its own
+    private static final ThreadLocal<SudokuGenerator> generators =
+            ThreadLocal.withInitial(SudokuGenerator::new);
+    // Generators for the other sizes, indexed by box size and created when first needed
+    private static final ThreadLocal<SudokuGenerator[]> sizedGenerators =
+            ThreadLocal.withInitial(() -> new SudokuGenerator[SudokuSize.MAX_BOX_SIZE + 1]);
+    private static final ThreadLocal<SudokuTransformer> transformers =
+            ThreadLocal.withInitial(SudokuTransformer::new);
+    private static volatile PuzzleBank puzzleBank;
     /**
      * Create a 3-dimensional matrix with initial values and solution in Sudoku.
+     * Every call returns a random puzzle with exactly one solution, drawn from the puzzle
+     * bank if one is set and holds puzzles of the level, and generated otherwise.
      *
      * @param level The level, i.e. the difficulty, of the initial standing.
      * @return A 3-dimensional int matrix.
      * [row][col][0] represents the initial values, zero representing an empty
     cell.
      * [row][col][1] represents the solution.
-     * @throws IllegalArgumentException if the length of stringRepresentation is
-    not 2*81 characters and
-     * for characters other than '0'-'9'.
      */
     public static int[][][] generateSudokuMatrix(SudokuLevel level) {
-        String representationString;
-        switch (level) {
-            case EASY: representationString = easy; break;
-            case MEDIUM: representationString = medium; break;
-            case HARD: representationString = hard; break;
-            default: representationString = medium;
+        Puzzle puzzle = newPuzzle(level, generator());
+        int[] givens = new int[GRID_SIZE * GRID_SIZE];
+        int[] solution = new int[GRID_SIZE * GRID_SIZE];
+        puzzle.copyGivens(givens);
+        puzzle.copySolution(solution);
+        return convertArraysToIntMatrix(givens, solution);
+    }
+    /**
+     * Creates a random puzzle, drawn from the puzzle bank if one is set and holds
+     * puzzles of the level, and generated otherwise.
+     *
+     * @param level     The level of the puzzle.
+     * @param generator The generator to use if the bank cannot be used; must belong to the calling thread.
+     * @return A puzzle with exactly one solution.
+     */
+    static Puzzle newPuzzle(SudokuLevel level, SudokuGenerator generator) {
+        PuzzleBank bank = puzzleBank;
+        if (bank != null && bank.getCount(level) > 0) {
+            return bank.random(level, ThreadLocalRandom.current());
         }
-        int[][][] matrix = convertStringToIntMatrix(representationString);
-        RandomTransform(matrix);
-
-        return matrix;
+        int[] givens = new int[GRID_SIZE * GRID_SIZE];
+        int[] solution = new int[GRID_SIZE * GRID_SIZE];
+        generator.generate(level, givens, solution);
+        return new Puzzle(level, givens, solution);
+    }
+    /**
+     * Creates a random puzzle of any size. Classic puzzles are made as by
+     * {@link #newPuzzle(SudokuLevel, SudokuGenerator)}; other sizes are always generated.
+     *
+     * @param level The level of the puzzle.
+     * @param size  The size of the puzzle.
+     * @return A puzzle with exactly one solution.
+     */
+    static Puzzle newPuzzle(SudokuLevel level, SudokuSize size) {
+        if (size == SudokuSize.CLASSIC) {
+            return newPuzzle(level, generator());
+        }
+        SudokuGenerator[] sized = sizedGenerators.get();
+        SudokuGenerator generator = sized[size.getBoxSize()];
+        if (generator == null) {
+            generator = new SudokuGenerator(size, new Random());
+            sized[size.getBoxSize()] = generator;
+        }
+        int[] givens = new int[size.getCellCount()];
+        int[] solution = new int[size.getCellCount()];
+        generator.generate(level, givens, solution);
+        return new Puzzle(level, givens, solution);
+    }
+    /**
+     * Sets the puzzle bank that new puzzles are drawn from.
+     *
+     * @param bank The puzzle bank, or null to generate every puzzle.
+     */
+    public static void setPuzzleBank(PuzzleBank bank) {
+        puzzleBank = bank;
+    }
+    /**
+     * Gets the puzzle generator belonging to the calling thread.
+     *
+     * @return A generator that must only be used by the calling thread.
+     */
+    static SudokuGenerator generator() {
+        return generators.get();
+    }
+    /**
+     * Gets the puzzle transformer belonging to the calling thread.
+     *
+     * @return A transformer that must only be used by the calling thread.
+     */
+    static SudokuTransformer transformer() {
+        return transformers.get();
+    }
+    /**
+     * Create a 3-dimensional matrix from flat arrays of initial values and solution.
+     *
+     * @param givens   81 initial values in row-major order, zero representing an empty cell.
+     * @param solution 81 solution values in row-major order.
+     * @return A 3-dimensional int matrix in the same layout as {@link #generateSudokuMatrix}.
+     */
+    static int[][][] convertArraysToIntMatrix(int[] givens, int[] solution) {
+        int[][][] values = new int[GRID_SIZE][GRID_SIZE][2];
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                values[row][col][0] = givens[row * GRID_SIZE + col];
+                values[row][col][1] = solution[row * GRID_SIZE + col];
+            }
+        }
+        return values;
     }
     /**
      * Create a 3-dimensional matrix with initial values and solution in Sudoku.
@@ -60,156 +148,64 @@ public class SudokuUtilities {
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
                 values[row][col][0] =
-                convertCharToSudokuInt(charRepresentation[charIndex++]);
+                convertCharToSudokuInt(charRepresentation[charIndex++], SudokuSize.CLASSIC);
             }
         }
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
                 values[row][col][1] =
-                        convertCharToSudokuInt(charRepresentation[charIndex++]);
+                        convertCharToSudokuInt(charRepresentation[charIndex++], SudokuSize.CLASSIC);
             }
         }
         return values;
     }
-    private static int convertCharToSudokuInt(char ch) {
-        if (ch < '0' || ch > '9') throw new IllegalArgumentException("character " +
-                ch);
-        return ch - '0';
-    }
-    private static final String easy =
-            "000914070" +
-                    "010000054" +
-                    "040002000" +
-                    "007569001" +
-                    "401000500" +
-                    "300100000" +
-                    "039000408" +
-                    "650800030" +
-                    "000403260" +
-                    "583914672" +
-                    "712386954" +
-                    "946752183" +
-                    "827569341" +
-                    "461238597" +
-                    "395147826" +
-                    "239675418" +
-                    "654821739" +
-                    "178493265";
-    private static final String medium =
-            "300000010" +
-                    "000050906" +
-                    "050401200" +
-                    "030000080" +
-                    "002069400" +
-                    "000000002" +
-                    "900610000" +
-                    "200300058" +
-                    "100800090" +
-                    "324976815" +
-                    "718253946" +
-                    "659481273" +
-                    "536142789" +
-                    "872569431" +
-                    "491738562" +
-                    "985617324" +
-                    "267394158" +
-                    "143825697";
-    private static final String hard =
-            "030600000" +
-                    "000010070" +
-                    "080000000" +
-                    "000020000" +
-                    "340000800" +
-                    "500030094" +
-                    "000400000" +
-                    "150800200" +
-                    "700006050" +
-                    "931687542" +
-                    "465219378" +
-                    "287345916" +
-                    "876924135" +
-                    "349561827" +
-                    "512738694" +
-                    "693452781" +
-                    "154873269" +
-                    "728196453";
-
-
-    private static void RandomTransform(int[][][] matrix) {
-        Random random = new Random();
-        int transformation = random.nextInt(3); // Välj en av tre transformationer
-        switch (transformation) {
-            case 0:
-                swapThreesAndFives(matrix);
-                break;
-            case 1:
-                reflectBoardHorizontal(matrix);
-                break;
-            case 2:
-                reflectBoardVertical(matrix);
-                break;
-        }
-    }
-
     /**
-     * Reflects the board horizontally. It swaps the left and right halves of the board.
+     * Parse one board of 81 characters, 0-9, into a flat array.
      *
-     * @param matrix A 3D matrix representing the game board. The first two dimensions represent the board's grid,
-     *               and the third dimension holds two values (initial values and solutions).
+     * @param representation A sequence of 81 characters in row-major order, '0' or '.' representing an empty cell.
+     * @param values         An array of at least 81 elements that receives the values.
+     * @throws IllegalArgumentException if the length of representation is not 81
+     * characters and for characters other than '0'-'9' and '.'.
      */
-    private static void reflectBoardHorizontal(int[][][] matrix) {
-        int N = matrix.length;
-        for (int row = 0; row < N; row++)
-        {
-            for (int col = 0; col < N / 2; col++)
-            {
-                for (int z = 0; z < 2; z++)
-                {
-                 int temporary = matrix[row][col][z];
-                matrix[row][col][z] = matrix[row][N - 1 - col][z];
-                matrix[row][N - 1 - col][z] = temporary;
-                }
-            }
-        }
+    public static void convertStringToIntArray(CharSequence representation, int[] values) {
+        convertStringToIntArray(representation, values, SudokuSize.CLASSIC);
     }
-
     /**
-     * Reflects the board vertically. It swaps the top and bottom halves of the board.
+     * Parse one board of any size into a flat array. Values above 9 are written as letters,
+     * 'A' (or 'a') for 10, 'B' for 11 and so on, as on 16x16 and 25x25 boards.
      *
-     * @param matrix A 3D matrix representing the game board. The first two dimensions represent the board's grid,
-     *               and the third dimension holds two values (initial values and solutions).
+     * @param representation A sequence of one character per cell in row-major order, '0' or '.' representing an empty cell.
+     * @param values         An array with at least one element per cell that receives the values.
+     * @param size           The size of the board.
+     * @throws IllegalArgumentException if the length of representation is not the number of
+     * cells and for characters that are not a value of the board.
      */
-    private static void reflectBoardVertical(int[][][] matrix) {
-        int N = matrix.length;
-        for (int col = 0; col < N; col++) {
-            for (int row = 0; row < N / 2; row++) {
-                for (int z = 0; z < 2; z++) {
-                int temporary = matrix[row][col][z];
-                matrix[row][col][z] = matrix[N - 1 - row][col][z];
-                matrix[N - 1 - row][col][z] = temporary;
-                }
-            }
+    public static void convertStringToIntArray(CharSequence representation, int[] values, SudokuSize size) {
+        if (representation.length() != size.getCellCount())
+            throw new IllegalArgumentException("representation length " +
+                    representation.length());
+        for (int i = 0; i < size.getCellCount(); i++) {
+            values[i] = convertCharToSudokuInt(representation.charAt(i), size);
         }
     }
-
     /**
-     * Swaps the numbers 3 and 5 in the entire board. This method iterates through the entire board
-     * and swaps the values 3 and 5 wherever they appear.
+     * Gets the character that stands for a value in the text form of a board.
      *
-     * @param matrix A 3D matrix representing the game board. The first two dimensions represent the board's grid,
-     *               and the third dimension holds two values (initial values and solutions).
+     * @param value A value from 0 to 35, zero for an empty cell.
+     * @return '0'-'9' for the values up to 9, and 'A' for 10, 'B' for 11 and so on.
      */
-    private static void swapThreesAndFives(int[][][] matrix) {
-        for (int row = 0; row < matrix.length; row++) {
-            for (int col = 0; col < matrix[row].length; col++) {
-                for (int z = 0; z < 2; z++) {
-                    if (matrix[row][col][z] == 3) {
-                        matrix[row][col][z] = 5;
-                    } else if (matrix[row][col][z] == 5) {
-                        matrix[row][col][z] = 3;
-                    }
-                }
-            }
-        }
+    public static char convertIntToSudokuChar(int value) {
+        return value < 10 ? (char) ('0' + value) : (char) ('A' + value - 10);
+    }
+    private static int convertCharToSudokuInt(char ch, SudokuSize size) {
+        int value;
+        if (ch == '.') value = 0;
+        else if (ch >= '0' && ch <= '9') value = ch - '0';
+        else if (ch >= 'A' && ch <= 'Z') value = ch - 'A' + 10;
+        else if (ch >= 'a' && ch <= 'z') value = ch - 'a' + 10;
+        else value = -1;
+        if (value < 0 || value > size.getGridSize()) throw new IllegalArgumentException("character " +
+                ch);
+        return value;
     }
 }
@@ -0,0 +1,45 @@
+package Sudoku.Game.Solver.model;
+
+/**
+ * The solving techniques a human player uses, declared from the easiest to the hardest.
+ * Each has a weight that {@link DifficultyRater} adds to the score of a puzzle for every
+ * step that needs it.
+ */
+public enum Technique {
+    /** The only cell of a row, column or box where a value can go. */
+    HIDDEN_SINGLE(1),
+    /** The only value that can go in a cell. */
+    NAKED_SINGLE(2),
+    /**
+     * The cells of a box that can hold a value all lie in one row or column, or the other
+     * way around, so the value is removed from the rest of that row, column or box.
+     */
+    POINTING(4),
+    /** Two cells of a unit that can only hold the same two values. */
+    NAKED_PAIR(5),
+    /** Two values that can only go in the same two cells of a unit. */
+    HIDDEN_PAIR(6),
+    /** A value confined to the same two columns in two rows, or the other way around. */
+    X_WING(8),
+    /** A value confined to the same three columns in three rows, or the other way around. */
+    SWORDFISH(10),
+    /** A chain of three cells with two candidates each, the shortest XY chain. */
+    XY_WING(12),
+    /** No technique above applies, so the puzzle needs trial and error from here on. */
+    TRIAL_AND_ERROR(30);
+
+    private final int weight;
+
+    Technique(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Gets the weight of a step that uses the technique.
+     *
+     * @return The weight, larger for harder techniques.
+     */
+    public int getWeight() {
+        return weight;
+    }
+}
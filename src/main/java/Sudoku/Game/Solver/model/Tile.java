@@ -1,22 +1,31 @@
 package Sudoku.Game.Solver.model;
 
-import java.io.Serializable;
-
 /**
  * Represents a tile in a puzzle game, which holds values entered by a user as well as the correct value.
  * It  keeps track of whether the tile is an initial tile (not editable) or not.
+ *
+ * The tiles of {@link SudokuGrid#getGrid()} are views of the cells of the grid: they store no
+ * values of their own, and reads and changes go straight to the grid. A tile made with
+ * {@link #Tile(int, boolean)} stands alone and holds its values itself, for example to be put
+ * on a board with {@link SudokuGrid#setTile}.
  */
-public class Tile implements Serializable {
-    private int correctValue;
+public class Tile {
+    private final SudokuGrid grid; // null for a tile that stands alone
+    private final int row;
+    private final int col;
+    private int correctValue; // The values of a tile that stands alone
     private int userValue;
-    private boolean fromStart;
+    private final boolean fromStart;
     /**
-     * Constructor  creating  a Tile object.
+     * Constructor  creating  a Tile object that stands alone.
      *
      * @param correctValue the correct value of the tile
      * @param fromStart   flag indicating whether this tile is an initial tile or not
      */
     public Tile(int correctValue, boolean fromStart) {
+        this.grid = null;
+        this.row = 0;
+        this.col = 0;
         this.correctValue = correctValue;
         this.fromStart = fromStart;
         if (fromStart) {
@@ -25,13 +34,26 @@ public class Tile implements Serializable {
             this.userValue = 0; // Represents an empty cell
         }
     }
+    /**
+     * Constructor  creating  a Tile view of a cell.
+     *
+     * @param grid the grid holding the cell
+     * @param row  the row of the cell
+     * @param col  the column of the cell
+     */
+    Tile(SudokuGrid grid, int row, int col) {
+        this.grid = grid;
+        this.row = row;
+        this.col = col;
+        this.fromStart = false;
+    }
     /**
      * to get  the correct value of the tile.
      *
      * @return the correct value of this tile
      */
     public int getCorrectValue() {
-        return correctValue;
+        return grid != null ? grid.getSolutionValue(row, col) : correctValue;
     }
 
     /**
@@ -40,7 +62,11 @@ public class Tile implements Serializable {
      * @param correctValue the correct value to set
      */
     public void setCorrectValue(int correctValue) {
-        this.correctValue = correctValue;
+        if (grid != null) {
+            grid.setSolutionValue(row, col, correctValue);
+        } else {
+            this.correctValue = correctValue;
+        }
     }
 
     /**
@@ -49,7 +75,7 @@ public class Tile implements Serializable {
      * @return the value entered by the user
      */
     public int getUserValue() {
-        return userValue;
+        return grid != null ? grid.getUserValue(row, col) : userValue;
     }
 
     /**
@@ -58,7 +84,7 @@ public class Tile implements Serializable {
      * @return true if user input is correct, false otherwise
      */
     public boolean isUserInputCorrect() {
-        return userValue == correctValue;
+        return getUserValue() == getCorrectValue();
     }
 
     /**
@@ -67,7 +93,7 @@ public class Tile implements Serializable {
      * @return true if the tile is not an initial tile, false otherwise
      */
     public boolean isEditable() {
-        return !fromStart;
+        return !isFromStart();
     }
     /**
      * Sets the user-entered value for the tile.
@@ -75,7 +101,20 @@ public class Tile implements Serializable {
      * @param userValue the value entered by the user
      */
     public void setUserValue(int userValue) {
-        this.userValue = userValue;
+        if (grid != null) {
+            grid.changeValue(row, col, userValue);
+        } else {
+            this.userValue = userValue;
+        }
+    }
+
+    /**
+     * Gets the pencil marks of the tile.
+     *
+     * @return a bitmask where bit (value - 1) is set for every marked value; always 0 for a tile that stands alone
+     */
+    public int getMarks() {
+        return grid != null ? grid.getMarks(row, col) : 0;
     }
 
     /**
@@ -84,7 +123,7 @@ public class Tile implements Serializable {
      * @return true if this is an initial tile, false otherwise
      */
     public boolean isFromStart() {
-        return fromStart;
+        return grid != null ? !grid.isTileEditable(row, col) : fromStart;
     }
 
 }
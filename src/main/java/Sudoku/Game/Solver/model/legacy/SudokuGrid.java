@@ -0,0 +1,41 @@
+package Sudoku.Game.Solver.model.legacy;
+
+import Sudoku.Game.Solver.model.SudokuUtilities;
+
+import java.io.Serializable;
+
+/**
+ * The serialized form of a game as written by the first releases, which saved the whole
+ * SudokuGrid object with Java serialization. Only used to read such files; the field
+ * names, types and serialVersionUID must not be changed.
+ */
+public final class SudokuGrid implements Serializable {
+    private static final long serialVersionUID = -6878718831310861987L;
+    private Tile[][] grid;
+    private Tile[][] solutionGrid;
+    private SudokuUtilities.SudokuLevel currentLevel;
+    private boolean[][] editableTiles;
+
+    private SudokuGrid() {
+    }
+
+    /**
+     * Gets the saved tile at the specified location.
+     *
+     * @param row The row number of the tile (zero-based index).
+     * @param col The column number of the tile (zero-based index).
+     * @return The saved tile.
+     */
+    public Tile getTile(int row, int col) {
+        return grid[row][col];
+    }
+
+    /**
+     * Gets the level of the saved game.
+     *
+     * @return The level of the saved game.
+     */
+    public SudokuUtilities.SudokuLevel getLevel() {
+        return currentLevel;
+    }
+}
@@ -0,0 +1,44 @@
+package Sudoku.Game.Solver.model.legacy;
+
+import java.io.Serializable;
+
+/**
+ * The serialized form of a tile as written by the first releases. Only used to read
+ * such files; the field names, types and serialVersionUID must not be changed.
+ */
+public final class Tile implements Serializable {
+    private static final long serialVersionUID = 2808783871770125168L;
+    private int correctValue;
+    private int userValue;
+    private boolean fromStart;
+
+    private Tile() {
+    }
+
+    /**
+     * Gets the correct value of the tile.
+     *
+     * @return the correct value of this tile
+     */
+    public int getCorrectValue() {
+        return correctValue;
+    }
+
+    /**
+     * Gets the user-entered value of the tile.
+     *
+     * @return the value entered by the user
+     */
+    public int getUserValue() {
+        return userValue;
+    }
+
+    /**
+     * Checks if the tile is an initial tile.
+     *
+     * @return true if this is an initial tile, false otherwise
+     */
+    public boolean isFromStart() {
+        return fromStart;
+    }
+}
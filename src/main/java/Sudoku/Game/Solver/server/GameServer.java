@@ -0,0 +1,416 @@
+package Sudoku.Game.Solver.server;
+
+import Sudoku.Game.Solver.model.BoardSnapshot;
+import Sudoku.Game.Solver.model.DancingLinksSolver;
+import Sudoku.Game.Solver.model.FileHandler;
+import Sudoku.Game.Solver.model.Hint;
+import Sudoku.Game.Solver.model.PuzzleBank;
+import Sudoku.Game.Solver.model.SudokuGrid;
+import Sudoku.Game.Solver.model.SudokuSize;
+import Sudoku.Game.Solver.model.SudokuUtilities;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless game server: hosts many games at once behind a small HTTP API, for a web
+ * front-end instead of the JavaFX view.
+ *
+ * <pre>
+ * POST   /games?level=EASY&amp;size=9          new game, answers with its state and session id
+ * POST   /games/load                       new session from a game saved by {@link FileHandler}, sent as the body;
+ *                                          422 if its puzzle cannot be checked within {@link SudokuGrid#PUZZLE_CHECK_SEARCHES}
+ * GET    /games/{id}                       state: level, size, values and given cells
+ * POST   /games/{id}/cells?row=R&amp;col=C&amp;value=V  fills a cell, value 0 empties it
+ * POST   /games/{id}/undo                  undoes the last move
+ * GET    /games/{id}/hint                  the next logical step, see {@link SudokuGrid#getHint(Hint)}
+ * GET    /games/{id}/check                 filled, wrong and conflicting cells
+ * GET    /games/{id}/save                  the game in the binary save format
+ * DELETE /games/{id}                       ends the session
+ * </pre>
+ * Answers are compact JSON, except for saved games. The values of a board are a string of
+ * one character per cell in row-major order, '0' for an empty cell and letters from A for
+ * values above 9, as in the text form of a board; the given cells are a string of '1' and '0'.
+ * Errors are answered with a status code and {"error": message}.
+ *
+ * Requests are handled by a fixed pool of threads. A grid is thread-safe, so the requests of
+ * one session are served at the same time too, and moves on cells that share no row, column
+ * or box do not even wait for each other. Sessions that are not used for a while are evicted, the number of
+ * sessions is bounded, and so is the number of moves in a session, as every move is kept
+ * for undo.
+ *
+ * Usage: GameServer [--port=8080] [--threads=N] [--max-sessions=N] [--idle-seconds=N]
+ * [--max-moves=N] [--bank=file]
+ */
+public class GameServer implements HttpHandler {
+    private static final int MAX_BODY_SIZE = 1 << 16;
+    private static final ThreadLocal<Hint> hints = ThreadLocal.withInitial(Hint::new);
+
+    private final SessionStore store;
+    private final int maxMoves;
+
+    GameServer(SessionStore store, int maxMoves) {
+        this.store = store;
+        this.maxMoves = maxMoves;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int threads = 2 * Runtime.getRuntime().availableProcessors();
+        int maxSessions = 100_000;
+        long idleSeconds = 30 * 60;
+        int maxMoves = 10_000;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--max-sessions=")) {
+                maxSessions = Integer.parseInt(arg.substring("--max-sessions=".length()));
+            } else if (arg.startsWith("--idle-seconds=")) {
+                idleSeconds = Long.parseLong(arg.substring("--idle-seconds=".length()));
+            } else if (arg.startsWith("--max-moves=")) {
+                maxMoves = Integer.parseInt(arg.substring("--max-moves=".length()));
+            } else if (arg.startsWith("--bank=")) {
+                SudokuUtilities.setPuzzleBank(PuzzleBank.open(Paths.get(arg.substring("--bank=".length()))));
+            } else {
+                System.err.println("Usage: GameServer [--port=8080] [--threads=N] [--max-sessions=N]"
+                        + " [--idle-seconds=N] [--max-moves=N] [--bank=file]");
+                System.exit(2);
+            }
+        }
+
+        SessionStore store = new SessionStore(maxSessions, TimeUnit.SECONDS.toNanos(idleSeconds));
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = store.getSweepNanos();
+        evictor.scheduleWithFixedDelay(store::evictIdle, period, period, TimeUnit.NANOSECONDS);
+
+        // The headers and body of an answer are written separately; without TCP_NODELAY the
+        // body waits for the client's delayed acknowledgement, about 40 ms per request
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/games", new GameServer(store, maxMoves));
+        server.setExecutor(executor);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            executor.shutdown();
+        }));
+        System.err.println("Listening on port " + port + " with " + threads + " threads");
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        // The path after /games: empty, /load, /{id} or /{id}/{action}
+        String path = exchange.getRequestURI().getPath().substring("/games".length());
+        if (path.isEmpty() || path.equals("/")) {
+            if (expect(exchange, "POST")) {
+                newGame(exchange);
+            }
+            return;
+        }
+        if (path.charAt(0) != '/') {
+            sendError(exchange, 404, "Unknown path " + exchange.getRequestURI().getPath());
+            return;
+        }
+        if (path.equals("/load")) {
+            if (expect(exchange, "POST")) {
+                loadGame(exchange);
+            }
+            return;
+        }
+        int slash = path.indexOf('/', 1);
+        String id = slash < 0 ? path.substring(1) : path.substring(1, slash);
+        String action = slash < 0 ? "" : path.substring(slash + 1);
+        if (action.isEmpty() && method.equals("DELETE")) {
+            if (store.remove(id)) {
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                sendError(exchange, 404, "No game " + id);
+            }
+            return;
+        }
+        SessionStore.Session session = store.get(id);
+        if (session == null) {
+            sendError(exchange, 404, "No game " + id);
+            return;
+        }
+        String query = exchange.getRequestURI().getRawQuery();
+        switch (action) {
+            case "":
+                if (expect(exchange, "GET")) {
+                    sendJson(exchange, 200, state(session));
+                }
+                break;
+            case "cells":
+                if (expect(exchange, "POST")) {
+                    fillCell(exchange, session, query);
+                }
+                break;
+            case "undo":
+                if (expect(exchange, "POST")) {
+                    sendJson(exchange, 200, "{\"undone\":" + session.grid.undo() + "}");
+                }
+                break;
+            case "hint":
+                if (expect(exchange, "GET")) {
+                    sendJson(exchange, 200, hint(session));
+                }
+                break;
+            case "check":
+                if (expect(exchange, "GET")) {
+                    sendJson(exchange, 200, check(session));
+                }
+                break;
+            case "save":
+                if (expect(exchange, "GET")) {
+                    send(exchange, 200, "application/octet-stream", FileHandler.write(session.grid).array());
+                }
+                break;
+            default:
+                sendError(exchange, 404, "Unknown action " + action);
+        }
+    }
+
+    private void newGame(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String levelName = param(query, "level");
+        SudokuUtilities.SudokuLevel level = levelName == null
+                ? SudokuUtilities.SudokuLevel.EASY : SudokuUtilities.SudokuLevel.valueOf(levelName.toUpperCase(Locale.ROOT));
+        String sizeName = param(query, "size");
+        SudokuSize size = sizeName == null ? SudokuSize.CLASSIC : sizeOf(Integer.parseInt(sizeName));
+        if (!store.reserve()) {
+            sendError(exchange, 503, "Too many games");
+            return;
+        }
+        SudokuGrid grid;
+        try {
+            grid = new SudokuGrid(level, size);
+        } catch (RuntimeException e) {
+            store.release();
+            throw e;
+        }
+        sendJson(exchange, 201, state(store.add(grid)));
+    }
+
+    private void loadGame(HttpExchange exchange) throws IOException {
+        byte[] body = readBody(exchange);
+        if (body == null) {
+            sendError(exchange, 413, "Saved game too large");
+            return;
+        }
+        SudokuGrid grid;
+        try {
+            grid = FileHandler.read(ByteBuffer.wrap(body));
+        } catch (IOException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        // The game comes from the client, so the puzzle must be checked before it is played, and
+        // within a budget, as a board made to be hard to decide would otherwise hold a thread for minutes
+        SudokuGrid.PuzzleCheck check = grid.checkPuzzle(new DancingLinksSolver(grid.getSize()),
+                SudokuGrid.PUZZLE_CHECK_SEARCHES);
+        if (check == SudokuGrid.PuzzleCheck.UNDECIDED) {
+            sendError(exchange, 422, "The saved game could not be checked in time");
+            return;
+        }
+        if (check == SudokuGrid.PuzzleCheck.INVALID) {
+            sendError(exchange, 400, "The saved game has no unique solution");
+            return;
+        }
+        if (!store.reserve()) {
+            sendError(exchange, 503, "Too many games");
+            return;
+        }
+        sendJson(exchange, 201, state(store.add(grid)));
+    }
+
+    private void fillCell(HttpExchange exchange, SessionStore.Session session, String query) throws IOException {
+        int row = intParam(query, "row");
+        int col = intParam(query, "col");
+        int value = intParam(query, "value");
+        SudokuGrid grid = session.grid;
+        int gridSize = grid.getSize().getGridSize();
+        if (row < 0 || row >= gridSize || col < 0 || col >= gridSize || value < 0 || value > gridSize) {
+            throw new IllegalArgumentException("Cell (" + row + ", " + col + ") or value " + value + " out of range");
+        }
+        if (!grid.isTileEditable(row, col)) {
+            sendError(exchange, 409, "Cell (" + row + ", " + col + ") is given");
+        } else if (grid.getJournal().getEntryCount() >= maxMoves) {
+            sendError(exchange, 429, "Move limit reached");
+        } else {
+            boolean legal = value == 0 || grid.isValidMove(row, col, value);
+            grid.setCellValue(row, col, value);
+            sendJson(exchange, 200, "{\"legal\":" + legal + ",\"filled\":" + grid.getFilledCount()
+                    + ",\"solved\":" + grid.checkSolution() + "}");
+        }
+    }
+
+    private static String hint(SessionStore.Session session) {
+        Hint hint = hints.get();
+        if (!session.grid.getHint(hint)) {
+            return "{\"solved\":true}";
+        }
+        StringBuilder json = new StringBuilder(64 + 8 * hint.getReasonCount());
+        json.append("{\"row\":").append(hint.getRow())
+                .append(",\"col\":").append(hint.getCol())
+                .append(",\"value\":").append(hint.getValue())
+                .append(",\"correction\":").append(hint.isCorrection());
+        if (hint.getTechnique() != null) {
+            json.append(",\"technique\":\"").append(hint.getTechnique()).append('"');
+        }
+        json.append(",\"reasons\":[");
+        for (int i = 0; i < hint.getReasonCount(); i++) {
+            json.append(i == 0 ? "[" : ",[").append(hint.getReasonRow(i)).append(',').append(hint.getReasonCol(i)).append(']');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String check(SessionStore.Session session) {
+        // Read from one snapshot, so that the counts agree with each other
+        BoardSnapshot board = session.grid.snapshot();
+        return "{\"correct\":" + (board.getWrongCount() == 0)
+                + ",\"filled\":" + board.getFilledCount()
+                + ",\"wrong\":" + board.getWrongCount()
+                + ",\"conflicts\":" + board.getConflictCount()
+                + ",\"solved\":" + board.isSolved() + "}";
+    }
+
+    /**
+     * Writes the state of a game as JSON, from a snapshot so that moves made meanwhile are
+     * either all in it or not at all.
+     */
+    private static String state(SessionStore.Session session) {
+        BoardSnapshot board = session.grid.snapshot();
+        int gridSize = board.getSize().getGridSize();
+        int cellCount = gridSize * gridSize;
+        StringBuilder json = new StringBuilder(80 + 2 * cellCount);
+        json.append("{\"id\":\"").append(session.id)
+                .append("\",\"level\":\"").append(board.getLevel())
+                .append("\",\"size\":").append(gridSize)
+                .append(",\"values\":\"");
+        for (int cell = 0; cell < cellCount; cell++) {
+            json.append(SudokuUtilities.convertIntToSudokuChar(board.getValue(cell / gridSize, cell % gridSize)));
+        }
+        json.append("\",\"givens\":\"");
+        for (int cell = 0; cell < cellCount; cell++) {
+            json.append(board.isGiven(cell / gridSize, cell % gridSize) ? '1' : '0');
+        }
+        return json.append("\"}").toString();
+    }
+
+    private static SudokuSize sizeOf(int gridSize) {
+        for (int boxSize = SudokuSize.MIN_BOX_SIZE; boxSize <= SudokuSize.MAX_BOX_SIZE; boxSize++) {
+            if (boxSize * boxSize == gridSize) {
+                return SudokuSize.of(boxSize);
+            }
+        }
+        throw new IllegalArgumentException("Unsupported board size " + gridSize);
+    }
+
+    /**
+     * Finds a parameter in a query string.
+     *
+     * @return The value, or null if the parameter is missing.
+     */
+    static String param(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        int start = 0;
+        while (start < query.length()) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = query.length();
+            }
+            if (query.startsWith(name, start) && start + name.length() < end && query.charAt(start + name.length()) == '=') {
+                return query.substring(start + name.length() + 1, end);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static int intParam(String query, String name) {
+        String value = param(query, name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return Integer.parseInt(value);
+    }
+
+    private static boolean expect(HttpExchange exchange, String method) throws IOException {
+        if (exchange.getRequestMethod().equals(method)) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        sendError(exchange, 405, "Use " + method);
+        return false;
+    }
+
+    /**
+     * Reads the request body.
+     *
+     * @return The body, or null if it is larger than the largest saved game.
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_SIZE + 1);
+            return body.length > MAX_BODY_SIZE ? null : body;
+        }
+    }
+
+    private static String error(String message) {
+        String text = String.valueOf(message).replace("\\", "\\\\").replace("\"", "\\\"");
+        return "{\"error\":\"" + text + "\"}";
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, error(message));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        send(exchange, status, "application/json", json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
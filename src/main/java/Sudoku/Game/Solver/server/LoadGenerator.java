@@ -0,0 +1,157 @@
+package Sudoku.Game.Solver.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a {@link GameServer} with simulated players, to measure how many moves per second
+ * it sustains.
+ *
+ * Every player starts a game, then repeatedly asks for a hint and fills in the value it
+ * gives, until the game is solved; then it ends the session and starts a new game. A move
+ * is one hint and one fill, so two requests. Connections are kept alive between requests.
+ * At the end the number of moves and requests per second and the mean and largest request
+ * times are printed.
+ *
+ * Usage: LoadGenerator [--url=http://localhost:8080] [--players=N] [--seconds=N]
+ * [--level=EASY] [--size=9]
+ */
+public class LoadGenerator {
+    private final String baseUrl;
+    private final String newGameQuery;
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong requestNanos = new AtomicLong();
+    private final AtomicLong maxRequestNanos = new AtomicLong();
+
+    LoadGenerator(String baseUrl, String level, int size) {
+        this.baseUrl = baseUrl + "/games";
+        newGameQuery = "?level=" + level + "&size=" + size;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String url = "http://localhost:8080";
+        int players = 2 * Runtime.getRuntime().availableProcessors();
+        int seconds = 10;
+        String level = "EASY";
+        int size = 9;
+        for (String arg : args) {
+            if (arg.startsWith("--url=")) {
+                url = arg.substring("--url=".length());
+            } else if (arg.startsWith("--players=")) {
+                players = Integer.parseInt(arg.substring("--players=".length()));
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            } else if (arg.startsWith("--level=")) {
+                level = arg.substring("--level=".length());
+            } else if (arg.startsWith("--size=")) {
+                size = Integer.parseInt(arg.substring("--size=".length()));
+            } else {
+                System.err.println("Usage: LoadGenerator [--url=http://localhost:8080] [--players=N] [--seconds=N]"
+                        + " [--level=EASY] [--size=9]");
+                System.exit(2);
+            }
+        }
+        // Without this, only five connections to the server are kept alive
+        System.setProperty("http.maxConnections", String.valueOf(players));
+
+        LoadGenerator generator = new LoadGenerator(url, level, size);
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[players];
+        for (int i = 0; i < players; i++) {
+            threads[i] = new Thread(() -> generator.play(deadline), "player-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long requestCount = generator.requests.get();
+        System.err.printf("%d moves in %d games, %.0f moves/s, %.0f requests/s, %d errors%n",
+                generator.moves.get(), generator.games.get(), generator.moves.get() / elapsed,
+                requestCount / elapsed, generator.errors.get());
+        System.err.printf("request time: mean %.3f ms, max %.3f ms%n",
+                requestCount == 0 ? 0 : generator.requestNanos.get() / 1e6 / requestCount,
+                generator.maxRequestNanos.get() / 1e6);
+    }
+
+    /**
+     * Plays games until the deadline.
+     */
+    void play(long deadline) {
+        while (System.nanoTime() < deadline) {
+            try {
+                String game = request("POST", newGameQuery);
+                String id = stringField(game, "id");
+                String gameUrl = "/" + id;
+                while (System.nanoTime() < deadline) {
+                    String hint = request("GET", gameUrl + "/hint");
+                    if (hint.contains("\"solved\":true")) {
+                        games.incrementAndGet();
+                        break;
+                    }
+                    request("POST", gameUrl + "/cells?row=" + intField(hint, "row") + "&col=" + intField(hint, "col")
+                            + "&value=" + intField(hint, "value"));
+                    moves.incrementAndGet();
+                }
+                request("DELETE", gameUrl);
+            } catch (IOException e) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Sends a request and reads the whole answer, so that the connection can be used again.
+     *
+     * @return The body of the answer.
+     * @throws IOException If the request fails or the server answers with an error.
+     */
+    private String request(String method, String path) throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        int status = connection.getResponseCode();
+        String body;
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            body = in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        long nanos = System.nanoTime() - start;
+        requests.incrementAndGet();
+        requestNanos.addAndGet(nanos);
+        maxRequestNanos.accumulateAndGet(nanos, Math::max);
+        if (status >= 400) {
+            throw new IOException(method + " " + path + ": " + status + " " + body);
+        }
+        return body;
+    }
+
+    private static String stringField(String json, String name) throws IOException {
+        int start = json.indexOf("\"" + name + "\":\"");
+        if (start < 0) {
+            throw new IOException("No " + name + " in " + json);
+        }
+        start += name.length() + 4;
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    private static int intField(String json, String name) throws IOException {
+        int start = json.indexOf("\"" + name + "\":");
+        if (start < 0) {
+            throw new IOException("No " + name + " in " + json);
+        }
+        start += name.length() + 3;
+        int end = start;
+        while (end < json.length() && (Character.isDigit(json.charAt(end)) || json.charAt(end) == '-')) {
+            end++;
+        }
+        return Integer.parseInt(json.substring(start, end));
+    }
+}
@@ -0,0 +1,185 @@
+package Sudoku.Game.Solver.server;
+
+import Sudoku.Game.Solver.model.SudokuGrid;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The games hosted by a {@link GameServer}, keyed by a random session id.
+ *
+ * The number of sessions is bounded: when the store is full, sessions that have been idle
+ * for longer than the idle timeout are evicted to make room, and if none are, no session is
+ * created. Idle sessions are also evicted by {@link #evictIdle()}, which the server calls
+ * once per sweep period, a quarter of the idle timeout. A full store scans for idle sessions
+ * at most once per sweep period too, so a flood of new games on a full server is refused
+ * without scanning every session each time. Grids are thread-safe, so requests use them
+ * without locking the session.
+ */
+final class SessionStore {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger count = new AtomicInteger();
+    private final SecureRandom random = new SecureRandom();
+    private final int maxSessions;
+    private final long idleNanos;
+    private final long sweepNanos;
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    /**
+     * A game and the time it was last used.
+     */
+    static final class Session {
+        final String id;
+        final SudokuGrid grid;
+        volatile long lastUsed;
+
+        Session(String id, SudokuGrid grid) {
+            this.id = id;
+            this.grid = grid;
+            lastUsed = System.nanoTime();
+        }
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param maxSessions The largest number of sessions kept at a time.
+     * @param idleNanos   The time in nanoseconds after which an unused session may be evicted.
+     */
+    SessionStore(int maxSessions, long idleNanos) {
+        this.maxSessions = maxSessions;
+        this.idleNanos = idleNanos;
+        sweepNanos = Math.max(TimeUnit.SECONDS.toNanos(1), idleNanos / 4);
+    }
+
+    /**
+     * Gets the time between two sweeps for idle sessions.
+     *
+     * @return The sweep period in nanoseconds.
+     */
+    long getSweepNanos() {
+        return sweepNanos;
+    }
+
+    /**
+     * Reserves room for a new session, evicting idle sessions if the store is full and it has
+     * not been swept within the sweep period. A successful reservation must be followed by {@link #add} or {@link #release}, so that
+     * no puzzle is made for a session that cannot be kept.
+     *
+     * @return true if there is room; false if the store is full of active sessions.
+     */
+    boolean reserve() {
+        if (count.incrementAndGet() <= maxSessions) {
+            return true;
+        }
+        // A session found active by the last sweep cannot have become idle much sooner than the next
+        long now = System.nanoTime();
+        long last = lastSweep.get();
+        if (now - last >= sweepNanos && lastSweep.compareAndSet(last, now)) {
+            sweep(now);
+        }
+        if (count.get() <= maxSessions) {
+            return true;
+        }
+        count.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Gives back a reservation that was not used.
+     */
+    void release() {
+        count.decrementAndGet();
+    }
+
+    /**
+     * Adds a game for which room was reserved.
+     *
+     * @param grid The game.
+     * @return The new session.
+     */
+    Session add(SudokuGrid grid) {
+        while (true) {
+            Session session = new Session(newId(), grid);
+            if (sessions.putIfAbsent(session.id, session) == null) {
+                return session;
+            }
+        }
+    }
+
+    /**
+     * Finds a session and marks it as used.
+     *
+     * @param id The session id.
+     * @return The session, or null if there is no session with the id.
+     */
+    Session get(String id) {
+        Session session = sessions.get(id);
+        if (session != null) {
+            session.lastUsed = System.nanoTime();
+        }
+        return session;
+    }
+
+    /**
+     * Ends a session.
+     *
+     * @param id The session id.
+     * @return true if the session existed; false otherwise.
+     */
+    boolean remove(String id) {
+        if (sessions.remove(id) != null) {
+            count.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the sessions that have not been used within the idle timeout.
+     *
+     * @return The number of sessions removed.
+     */
+    int evictIdle() {
+        long now = System.nanoTime();
+        lastSweep.set(now);
+        return sweep(now);
+    }
+
+    private int sweep(long now) {
+        int evicted = 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            if (now - session.lastUsed > idleNanos && sessions.remove(entry.getKey(), session)) {
+                count.decrementAndGet();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Gets the number of sessions.
+     *
+     * @return The number of sessions kept.
+     */
+    int size() {
+        return sessions.size();
+    }
+
+    private String newId() {
+        long bits = random.nextLong();
+        char[] id = new char[16];
+        for (int i = id.length - 1; i >= 0; i--) {
+            id[i] = HEX[(int) bits & 0xF];
+            bits >>>= 4;
+        }
+        return new String(id);
+    }
+}
@@ -1,6 +1,7 @@
 module Sudoku.Game.Solver {
     requires javafx.controls;
     requires javafx.fxml;
+    requires jdk.httpserver;
 
 
     opens Sudoku.Game.Solver to javafx.fxml;